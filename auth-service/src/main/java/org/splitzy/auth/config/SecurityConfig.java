@@ -1,6 +1,7 @@
 package org.splitzy.auth.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,7 +9,9 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -16,6 +19,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -38,8 +42,46 @@ public class SecurityConfig {
         return http.build();
     }
 
-    public PasswordEncoder passwordEncoder() {
-            return new BCryptPasswordEncoder(12);
+    /**
+     * Hashes without a prefix are the original bcrypt ones; anything stored with another algorithm or a
+     * lower bcrypt cost reports upgradeEncoding, and is re-hashed on the user's next login. Replicas from
+     * before this encoder only read unprefixed bcrypt, so until none of them serve logins new hashes stay
+     * unprefixed bcrypt (prefixed-hashes false). With prefixed-hashes true they are written as {id}hash with
+     * the configured algorithm, which is required for any algorithm other than bcrypt.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.algorithm:bcrypt}") String algorithm,
+                                           @Value("${auth.password.bcrypt-strength:12}") int bcryptStrength,
+                                           @Value("${auth.password.prefixed-hashes:false}") boolean prefixedHashes) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        if (prefixedHashes) {
+            return encoder;
+        }
+        if (!"bcrypt".equals(algorithm)) {
+            throw new IllegalStateException("auth.password.algorithm " + algorithm + " needs auth.password.prefixed-hashes=true");
+        }
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encoder.matches(rawPassword, encodedPassword);
+            }
+
+            // Prefixed hashes are rewritten unprefixed so every replica can read them
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return (encodedPassword != null && encodedPassword.startsWith("{")) || bcrypt.upgradeEncoding(encodedPassword);
+            }
+        };
     }
 
     @Bean
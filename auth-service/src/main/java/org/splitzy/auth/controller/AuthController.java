@@ -10,12 +10,16 @@ import org.splitzy.auth.dto.request.LoginRequest;
 import org.splitzy.auth.dto.request.RefreshTokenRequest;
 import org.splitzy.auth.dto.request.RegisterRequest;
 import org.splitzy.auth.dto.response.AuthResponse;
+import org.splitzy.auth.dto.response.TokenValidationResponse;
 import org.splitzy.auth.service.AuthService;
 import org.splitzy.common.dto.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -59,6 +63,21 @@ public class AuthController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @PostMapping("/logout-all")
+    @Operation(summary = "Logout everywhere", description = "Revoke every refresh token of the user and the presented access token")
+    public ResponseEntity<ApiResponse<String>> logoutEverywhere(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        log.info("Logout-everywhere request received");
+        authService.logoutEverywhere(authorization);
+        return ResponseEntity.ok(ApiResponse.success("Logged out of all sessions.", "Logout successful"));
+    }
+
+    @GetMapping("/validate")
+    @Operation(summary = "Validate access token", description = "Verify a bearer access token and return its claims")
+    public ResponseEntity<ApiResponse<TokenValidationResponse>> validate(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        TokenValidationResponse response = authService.validateAccessToken(authorization);
+        return ResponseEntity.ok(ApiResponse.success(response, "Token is valid"));
+    }
+
     @PostMapping("/refresh")
     @Operation(summary = "Refresh token", description = "Get new access token using refresh token")
     public ResponseEntity<ApiResponse<AuthResponse>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
@@ -0,0 +1,21 @@
+package org.splitzy.auth.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TokenValidationResponse {
+    private Long userId;
+    private String username;
+    private String email;
+    private String role;
+    private String tokenType;
+    private LocalDateTime expiresAt;
+}
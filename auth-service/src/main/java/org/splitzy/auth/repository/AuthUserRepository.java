@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,6 +33,12 @@ public interface AuthUserRepository extends JpaRepository<AuthUser, Long>, JpaSp
     @Query("UPDATE AuthUser u SET u.failedLoginAttempts = 0, u.accountLockedUntil = null WHERE u.id = :userId")
     void resetFailedLoginAttempts(@Param("userId") Long userId);
 
+    // Re-hash on login; login itself runs outside a transaction so the hashing does not hold a connection
+    @Transactional
+    @Modifying
+    @Query("UPDATE AuthUser u SET u.passwordHash = :passwordHash WHERE u.id = :userId")
+    void updatePasswordHash(@Param("userId") Long userId, @Param("passwordHash") String passwordHash);
+
     @Modifying
     @Query("UPDATE AuthUser u SET u.isEmailVerified = :verified WHERE u.id = :userId")
     void updateEmailVerificationStatus(@Param("userId") Long userId, @Param("verified") Boolean verified);
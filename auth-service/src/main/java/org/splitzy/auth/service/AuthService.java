@@ -7,12 +7,13 @@ import org.splitzy.auth.dto.request.LoginRequest;
 import org.splitzy.auth.dto.request.RefreshTokenRequest;
 import org.splitzy.auth.dto.request.RegisterRequest;
 import org.splitzy.auth.dto.response.AuthResponse;
+import org.splitzy.auth.dto.response.TokenValidationResponse;
 import org.splitzy.auth.entity.AuthUser;
 import org.splitzy.auth.repository.AuthUserRepository;
 import org.splitzy.common.exception.BusinessException;
 import org.splitzy.common.exception.ResourceNotFoundException;
 import org.splitzy.common.exception.ValidationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,11 +23,17 @@ import java.time.LocalDateTime;
 @Slf4j
 @RequiredArgsConstructor
 public class AuthService {
+    private static final String BEARER_PREFIX = "Bearer ";
+
     private final JwtTokenService jwtTokenService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final AuthUserRepository authUserRepository;
+    private final RefreshTokenFamilyStore refreshTokenFamilyStore;
 
-    @Transactional
+    /**
+     * Not transactional: the password hash takes hundreds of milliseconds and must not hold a database
+     * connection, so it runs between the checks and the insert, each of which commits on its own
+     */
     public AuthResponse register(RegisterRequest request) {
         log.info("Attempting to register a new user with email: {}", request.getEmail());
 
@@ -40,10 +47,11 @@ public class AuthService {
             throw new ValidationException("Username is already taken.");
         }
 
+        String passwordHash = passwordHashingService.encode(request.getPassword());
         AuthUser authUser = AuthUser.builder()
                 .username(request.getUsername())
                 .email(request.getEmail())
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHash)
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
                 .phoneNumber(request.getPhoneNumber())
@@ -53,10 +61,10 @@ public class AuthService {
         AuthUser authUserSaved = authUserRepository.save(authUser);
         log.info("Successfully registered a new user with ID: {}", authUserSaved.getId());
 
-        String accessToken = jwtTokenService.generateAccessToken(authUserSaved);
-        String refreshToken = jwtTokenService.generateRefreshToken(authUserSaved);
+        ParsedToken accessToken = jwtTokenService.issueAccessToken(authUserSaved);
+        ParsedToken refreshToken = startRefreshFamily(authUserSaved);
 
-        return buildAuthResponse(authUserSaved, accessToken, refreshToken);
+        return buildAuthResponse(userInfo(authUserSaved), accessToken, refreshToken);
     }
 
     public AuthResponse login(LoginRequest request) {
@@ -69,9 +77,16 @@ public class AuthService {
             throw new BusinessException("Account is locked due to multiple login attempts.");
         }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        PasswordHashingService.Verification verification =
+                passwordHashingService.verify(request.getPassword(), user.getPasswordHash());
+        if (!verification.matches()) {
             throw new ValidationException("Invalid password.");
         }
+        if (verification.upgradedHash() != null) {
+            user.setPasswordHash(verification.upgradedHash());
+            authUserRepository.updatePasswordHash(user.getId(), verification.upgradedHash());
+            log.info("Re-hashed password of user {} with the current encoding", user.getId());
+        }
 
         if (user.getFailedLoginAttempts() > 0) {
             user.resetFailedloginAttempts();
@@ -83,10 +98,10 @@ public class AuthService {
 
         log.info("Successfully login for: {}", user.getUsername());
 
-        String accessToken = jwtTokenService.generateAccessToken(user);
-        String refreshToken = jwtTokenService.generateRefreshToken(user);
+        ParsedToken accessToken = jwtTokenService.issueAccessToken(user);
+        ParsedToken refreshToken = startRefreshFamily(user);
 
-        return buildAuthResponse(user, accessToken, refreshToken);
+        return buildAuthResponse(userInfo(user), accessToken, refreshToken);
     }
 
     @Transactional
@@ -97,7 +112,12 @@ public class AuthService {
             jwtTokenService.blacklistToken(request.getAcessToken());
 
             if (request.getRefreshToken() != null && !request.getRefreshToken().isBlank()) {
-                jwtTokenService.blacklistToken(request.getRefreshToken());
+                ParsedToken refresh = jwtTokenService.parseToken(request.getRefreshToken());
+                if (refresh.familyId() != null) {
+                    refreshTokenFamilyStore.revokeFamily(refresh.userId(), refresh.familyId());
+                } else {
+                    jwtTokenService.blacklistToken(refresh);
+                }
             }
             log.info("User logged out successfully");
         } catch (Exception e) {
@@ -106,18 +126,52 @@ public class AuthService {
         }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Rotate a refresh token within its family: one primary key read and one Redis call.
+     * Presenting a token that was already rotated revokes the whole family; a deactivated user loses every family.
+     */
     public AuthResponse refreshToken(RefreshTokenRequest request) {
         log.info("Attempting token refresh");
 
-        // Validate refresh token
-        if (!jwtTokenService.validateRefreshToken(request.getRefreshToken())) {
+        ParsedToken refresh = jwtTokenService.parseRefreshToken(request.getRefreshToken())
+                .orElseThrow(() -> new ValidationException("Invalid or expired refresh token"));
+        if (refresh.familyId() == null) {
+            return refreshLegacyToken(refresh);
+        }
+
+        AuthUser user = authUserRepository.findById(refresh.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (!user.getIsActive()) {
+            refreshTokenFamilyStore.revokeAll(user.getId());
+            throw new BusinessException("User account is deactivated");
+        }
+
+        ParsedToken newRefreshToken = jwtTokenService.rotateRefreshToken(refresh);
+        switch (refreshTokenFamilyStore.rotate(refresh, newRefreshToken)) {
+            case ROTATED -> { }
+            case REUSE_DETECTED -> {
+                log.warn("Refresh token reuse detected for user {}; revoked token family", refresh.userId());
+                throw new ValidationException("Invalid or expired refresh token");
+            }
+            case UNKNOWN_FAMILY -> throw new ValidationException("Invalid or expired refresh token");
+        }
+
+        ParsedToken newAccessToken = jwtTokenService.issueAccessToken(user);
+        log.info("Token refreshed successfully for user: {}", user.getEmail());
+
+        return buildAuthResponse(userInfo(user), newAccessToken, newRefreshToken);
+    }
+
+    /**
+     * Refresh tokens issued before families existed: checked against the blacklist and the user row, then
+     * exchanged for a token that starts a family
+     */
+    private AuthResponse refreshLegacyToken(ParsedToken refresh) {
+        if (jwtTokenService.isTokenBlacklisted(refresh)) {
             throw new ValidationException("Invalid or expired refresh token");
         }
 
-        // Extract user information from refresh token
-        Long userId = jwtTokenService.getUserIdFromToken(request.getRefreshToken());
-        AuthUser user = authUserRepository.findById(userId)
+        AuthUser user = authUserRepository.findById(refresh.userId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         // Check if user is still active
@@ -125,16 +179,69 @@ public class AuthService {
             throw new BusinessException("User account is deactivated");
         }
 
-        // Generate new access token
-        String newAccessToken = jwtTokenService.generateAccessToken(user);
-        String newRefreshToken = jwtTokenService.generateRefreshToken(user);
+        ParsedToken newAccessToken = jwtTokenService.issueAccessToken(user);
+        ParsedToken newRefreshToken = startRefreshFamily(user);
 
         // Blacklist old refresh token
-        jwtTokenService.blacklistToken(request.getRefreshToken());
+        jwtTokenService.blacklistToken(refresh);
 
         log.info("Token refreshed successfully for user: {}", user.getEmail());
 
-        return buildAuthResponse(user, newAccessToken, newRefreshToken);
+        return buildAuthResponse(userInfo(user), newAccessToken, newRefreshToken);
+    }
+
+    /**
+     * Revoke every refresh-token family of the caller and the access token presented.
+     * Other access tokens already handed out stay valid until they expire.
+     */
+    public void logoutEverywhere(String authorizationHeader) {
+        ParsedToken access = verifyAccessToken(authorizationHeader);
+        refreshTokenFamilyStore.revokeAll(access.userId());
+        jwtTokenService.blacklistToken(access);
+        log.info("User {} logged out of all sessions", access.userId());
+    }
+
+    /**
+     * Check an access token presented as "Bearer <token>" and return its claims
+     */
+    public TokenValidationResponse validateAccessToken(String authorizationHeader) {
+        ParsedToken parsed = verifyAccessToken(authorizationHeader);
+
+        return TokenValidationResponse.builder()
+                .userId(parsed.userId())
+                .username(parsed.username())
+                .email(parsed.email())
+                .role(parsed.role())
+                .tokenType(parsed.tokenType())
+                .expiresAt(parsed.expiresAtLocalDateTime())
+                .build();
+    }
+
+    private ParsedToken verifyAccessToken(String authorizationHeader) {
+        String token = authorizationHeader != null && authorizationHeader.startsWith(BEARER_PREFIX)
+                ? authorizationHeader.substring(BEARER_PREFIX.length())
+                : authorizationHeader;
+        if (token == null || token.isBlank()) {
+            throw new BusinessException("Missing access token", HttpStatus.UNAUTHORIZED, "INVALID_TOKEN");
+        }
+
+        return jwtTokenService.verifyToken(token)
+                .filter(t -> ParsedToken.ACCESS.equals(t.tokenType()))
+                .orElseThrow(() -> new BusinessException("Invalid or expired access token", HttpStatus.UNAUTHORIZED, "INVALID_TOKEN"));
+    }
+
+    /**
+     * Issue the first refresh token of a new family. If Redis is unavailable the login still succeeds, but
+     * the refresh token will be rejected and the user has to log in again once the access token expires.
+     */
+    private ParsedToken startRefreshFamily(AuthUser user) {
+        ParsedToken refreshToken = jwtTokenService.issueRefreshToken(user);
+        try {
+            refreshTokenFamilyStore.startFamily(refreshToken);
+        } catch (Exception e) {
+            log.error("Failed to register refresh token family for user {}: {}", user.getId(), e.getMessage());
+        }
+        return refreshToken;
     }
 
     private void handleFailedLogin(AuthUser user) {
@@ -149,21 +256,25 @@ public class AuthService {
                 user.getEmail(), user.getFailedLoginAttempts());
     }
 
-    private AuthResponse buildAuthResponse(AuthUser authUser, String accessToken, String refreshToken) {
-        return AuthResponse.builder().accessToken(accessToken).refreshToken(refreshToken)
+    private AuthResponse buildAuthResponse(AuthResponse.UserInfo userInfo, ParsedToken accessToken, ParsedToken refreshToken) {
+        return AuthResponse.builder().accessToken(accessToken.token()).refreshToken(refreshToken.token())
                 .tokenType("Bearer")
-                .expiresIn(jwtTokenService.getRemainingValidityInSeconds(accessToken))
-                .expiresAt(jwtTokenService.getExpirationAsLocalDateTime(accessToken))
-                .user(AuthResponse.UserInfo.builder()
-                        .id(authUser.getId())
-                        .username(authUser.getUsername())
-                        .email(authUser.getEmail())
-                        .firstName(authUser.getFirstName())
-                        .lastName(authUser.getLastName())
-                        .role(authUser.getRole().toString())
-                        .emailVerified(authUser.getIsEmailVerified())
-                        .phoneVerified(authUser.getIsPhoneVerified())
-                        .build())
+                .expiresIn(accessToken.remainingValiditySeconds())
+                .expiresAt(accessToken.expiresAtLocalDateTime())
+                .user(userInfo)
+                .build();
+    }
+
+    private AuthResponse.UserInfo userInfo(AuthUser authUser) {
+        return AuthResponse.UserInfo.builder()
+                .id(authUser.getId())
+                .username(authUser.getUsername())
+                .email(authUser.getEmail())
+                .firstName(authUser.getFirstName())
+                .lastName(authUser.getLastName())
+                .role(authUser.getRole().toString())
+                .emailVerified(authUser.getIsEmailVerified())
+                .phoneVerified(authUser.getIsPhoneVerified())
                 .build();
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package org.splitzy.auth.service;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.splitzy.auth.entity.AuthUser;
@@ -10,11 +12,14 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -22,151 +27,283 @@ import java.util.concurrent.TimeUnit;
 public class JwtTokenService {
 
     private final SecretKey secretKey;
+    private final JwtParser jwtParser;
     private final long accessTokenValiditySeconds;
     private final long refreshTokenValiditySeconds;
     private final RedisTemplate<String, String> redisTemplate;
-    private static final String BLACKLIST_PREFIX = "BLACKLIST:";
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevokedTokenFilter revokedTokenFilter;
+    private final boolean blacklistMigrationMode;
+    private final Timer cachedValidationTimer;
+    private final Timer verifiedValidationTimer;
+    private final Timer rejectedValidationTimer;
+    static final String REVOKED_PREFIX = "REVOKED:";
+    static final String LEGACY_BLACKLIST_PREFIX = "BLACKLIST:";   // Keyed on the full token string
+    private static final int TOKEN_ID_BYTES = 16;
+    private static final SecureRandom TOKEN_ID_RANDOM = new SecureRandom();
     private static final String USER_ID_CLAIM = "USER_ID";
     private static final String USERNAME_CLAIM = "USERNAME";
     private static final String EMAIL_CLAIM = "EMAIL";
     private static final String ROLE_CLAIM = "ROLE";
     private static final String TOKEN_TYPE_CLAIM = "token_type";
+    private static final String FAMILY_CLAIM = "fam";
 
-    public JwtTokenService(RedisTemplate<String, String> redisTemplate, @Value("${jwt.secret}") String secret, @Value("${jwt.access-token.validity-ms:3600000}") long accessTokenValiditySeconds, @Value("${jwt.refresh-token.validity-ms:604800000}")  long refreshTokenValiditySeconds) {
+    public JwtTokenService(RedisTemplate<String, String> redisTemplate, VerifiedTokenCache verifiedTokenCache, RevokedTokenFilter revokedTokenFilter, MeterRegistry meterRegistry, @Value("${auth.blacklist.migration-mode:true}") boolean blacklistMigrationMode, @Value("${jwt.secret}") String secret, @Value("${jwt.access-token.validity-ms:3600000}") long accessTokenValiditySeconds, @Value("${jwt.refresh-token.validity-ms:604800000}")  long refreshTokenValiditySeconds) {
         this.redisTemplate = redisTemplate;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revokedTokenFilter = revokedTokenFilter;
+        this.blacklistMigrationMode = blacklistMigrationMode;
+        this.cachedValidationTimer = validationTimer(meterRegistry, "cached");
+        this.verifiedValidationTimer = validationTimer(meterRegistry, "verified");
+        this.rejectedValidationTimer = validationTimer(meterRegistry, "rejected");
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+        // Immutable and thread-safe, so one parser serves every request
+        this.jwtParser = Jwts.parser().verifyWith(secretKey).build();
         this.accessTokenValiditySeconds = accessTokenValiditySeconds;
         this.refreshTokenValiditySeconds = refreshTokenValiditySeconds;
     }
 
     public String generateAccessToken(AuthUser authUser) {
-        return generateToken(authUser, accessTokenValiditySeconds, "ACCESS");
+        return issueAccessToken(authUser).token();
     }
 
-    public String generateRefreshToken(AuthUser user) {
-        return generateToken(user, refreshTokenValiditySeconds, "REFRESH");
+    /**
+     * Sign an access token and return it with its claims, so callers need not parse what was just signed
+     */
+    public ParsedToken issueAccessToken(AuthUser authUser) {
+        return generateToken(authUser.getId(), authUser.getUsername(), authUser.getEmail(), String.valueOf(authUser.getRole()),
+                accessTokenValiditySeconds, ParsedToken.ACCESS, null);
+    }
+
+    /**
+     * Refresh token that starts a new family (one per login)
+     */
+    public ParsedToken issueRefreshToken(AuthUser user) {
+        return generateToken(user.getId(), user.getUsername(), user.getEmail(), String.valueOf(user.getRole()),
+                refreshTokenValiditySeconds, ParsedToken.REFRESH, newTokenId());
+    }
+
+    /**
+     * Successor of a refresh token in the same family, with a new jti
+     */
+    public ParsedToken rotateRefreshToken(ParsedToken refreshToken) {
+        return generateToken(refreshToken.userId(), refreshToken.username(), refreshToken.email(), refreshToken.role(),
+                refreshTokenValiditySeconds, ParsedToken.REFRESH, refreshToken.familyId());
     }
 
     //Generate JWT token with specified validity and type
-    private String generateToken(AuthUser authUser, long validityMs, String tokenType) {
-        Date now = new Date();
+    private ParsedToken generateToken(Long userId, String username, String email, String role,
+                                      long validityMs, String tokenType, String familyId) {
+        // JWT dates have second precision; truncate so the returned claims match what a parse would give
+        Date now = new Date(System.currentTimeMillis() / 1000 * 1000);
         Date expiryDate = new Date(now.getTime() + validityMs);
 
         Map<String, Object> claims = new HashMap<>();
-        claims.put(USER_ID_CLAIM, authUser.getId());
-        claims.put(USERNAME_CLAIM, authUser.getUsername());
-        claims.put(EMAIL_CLAIM, authUser.getEmail());
+        claims.put(USER_ID_CLAIM, userId);
+        claims.put(USERNAME_CLAIM, username);
+        claims.put(EMAIL_CLAIM, email);
         claims.put(TOKEN_TYPE_CLAIM, tokenType);
-        claims.put(ROLE_CLAIM, authUser.getRole());
+        claims.put(ROLE_CLAIM, role);
+        if (familyId != null) {
+            claims.put(FAMILY_CLAIM, familyId);
+        }
 
-        return Jwts.builder().setClaims(claims).setSubject(authUser.getEmail()).setIssuedAt(now).setExpiration(expiryDate).signWith(SignatureAlgorithm.HS512, secretKey).compact();
+        String tokenId = newTokenId();
+        String token = Jwts.builder().setClaims(claims).setId(tokenId).setSubject(email).setIssuedAt(now).setExpiration(expiryDate).signWith(SignatureAlgorithm.HS512, secretKey).compact();
+        return new ParsedToken(token, tokenId, userId, username, email, role, tokenType, familyId,
+                now.toInstant(), expiryDate.toInstant());
     }
 
-    public Long getUserIdFromToken(String token) {
+    /**
+     * Verify the signature and expiry once and expose the typed claims.
+     * Throws JwtException or IllegalArgumentException for anything that is not a valid token.
+     */
+    public ParsedToken parseToken(String token) {
         Claims claims = getClaimsFromToken(token);
         Object userIdObj = claims.get(USER_ID_CLAIM);
-        if(userIdObj instanceof Integer) {
-            return ((Integer) userIdObj).longValue();
+        Long userId = userIdObj instanceof Number number ? number.longValue() : null;
+        return new ParsedToken(token, claims.getId(), userId,
+                claims.get(USERNAME_CLAIM, String.class),
+                claims.get(EMAIL_CLAIM, String.class),
+                claims.get(ROLE_CLAIM, String.class),
+                claims.get(TOKEN_TYPE_CLAIM, String.class),
+                claims.get(FAMILY_CLAIM, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
+    }
+
+    /**
+     * Parse a token and check it is not revoked; empty when it is invalid, expired or blacklisted.
+     * Tokens that pass are cached, so repeat checks skip the signature and the Redis lookup.
+     */
+    public Optional<ParsedToken> verifyToken(String token) {
+        long start = System.nanoTime();
+        ParsedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            cachedValidationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.of(cached);
+        }
+        Optional<ParsedToken> verified = verifyUncached(token, start);
+        verified.ifPresent(verifiedTokenCache::put);
+        return verified;
+    }
+
+    /**
+     * Refresh tokens are single use, so they are always checked against the shared blacklist and never
+     * served from another replica's cache
+     */
+    public Optional<ParsedToken> verifyRefreshToken(String token) {
+        return verifyUncached(token, System.nanoTime()).filter(ParsedToken::isRefreshToken);
+    }
+
+    /**
+     * Signature, expiry and type only, without the blacklist lookup; whether a refresh token of a family is
+     * still current is decided by RefreshTokenFamilyStore
+     */
+    public Optional<ParsedToken> parseRefreshToken(String token) {
+        try {
+            return Optional.of(parseToken(token)).filter(ParsedToken::isRefreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Refresh token validation failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<ParsedToken> verifyUncached(String token, long start) {
+        ParsedToken parsed;
+        try {
+            parsed = parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token validation failed: {}", e.getMessage());
+            rejectedValidationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
         }
-        return (Long) userIdObj;
+        if (isTokenBlacklisted(parsed)) {
+            log.debug("Token is blacklisted");
+            rejectedValidationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Optional.empty();
+        }
+        verifiedValidationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return Optional.of(parsed);
+    }
+
+    public Long getUserIdFromToken(String token) {
+        return parseToken(token).userId();
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get(USERNAME_CLAIM);
+        return parseToken(token).username();
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get(EMAIL_CLAIM);
+        return parseToken(token).email();
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get(ROLE_CLAIM);
+        return parseToken(token).role();
     }
 
     public String getTokenTypeFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return (String) claims.get(TOKEN_TYPE_CLAIM);
+        return parseToken(token).tokenType();
     }
 
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims.getExpiration();
+        return Date.from(parseToken(token).expiresAt());
     }
 
     public LocalDateTime getExpirationAsLocalDateTime(String token) {
-        Date expiration = getExpirationDateFromToken(token);
-        return expiration.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+        return parseToken(token).expiresAtLocalDateTime();
     }
 
     public Boolean isTokenExpired(String token) {
         try{
-            Date expiration = getExpirationDateFromToken(token);
-            return expiration.before(new Date());
-        } catch(JwtException e){
+            return parseToken(token).isExpired();
+        } catch(JwtException | IllegalArgumentException e){
             return true;
         }
     }
 
     public Boolean validateToken(String token) {
-        try {
-            if (isTokenBlacklisted(token)) {
-                log.debug("Token is blacklisted");
-                return false;
-            }
-
-            getClaimsFromToken(token); // This will throw exception if invalid
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            log.debug("Token validation failed: {}", e.getMessage());
-            return false;
-        }
+        return verifyToken(token).isPresent();
     }
 
     public Boolean validateRefreshToken(String token) {
+        return verifyRefreshToken(token).isPresent();
+    }
+
+    public void blacklistToken(String token) {
+        ParsedToken parsed;
         try{
-            if (!validateToken(token)) {
-                return false;
-            }
-            String tokenType = getTokenTypeFromToken(token);
-            return "REFRESH".equals(tokenType);
+            parsed = parseToken(token);
         } catch(Exception e){
-            log.debug("Refresh Token validation failed: {}", e.getMessage());
-            return false;
+            log.error("Failed to blacklist token: {}", e.getMessage());
+            throw new ValidationException("Failed to logout user");
         }
+        blacklistToken(parsed);
     }
 
-    public void blacklistToken(String token) {
+    /**
+     * Revoke an already parsed token until it would have expired anyway.
+     * In migration mode the legacy full-token key is written too, for replicas that only know that format.
+     */
+    public void blacklistToken(ParsedToken token) {
         try{
-            Date expiration = getExpirationDateFromToken(token);
-            long tt1 = expiration.getTime() - System.currentTimeMillis();
+            long tt1 = token.remainingValidityMillis();
 
             if(tt1 > 0) {
-                String key = BLACKLIST_PREFIX + token;
-                redisTemplate.opsForValue().set(key, "blacklisted", tt1, TimeUnit.MILLISECONDS);
+                String revocationId = token.revocationId();
+                redisTemplate.opsForValue().set(REVOKED_PREFIX + revocationId, "1", tt1, TimeUnit.MILLISECONDS);
+                if (blacklistMigrationMode) {
+                    redisTemplate.opsForValue().set(LEGACY_BLACKLIST_PREFIX + token.token(), "blacklisted", tt1, TimeUnit.MILLISECONDS);
+                    revokedTokenFilter.revoked(revocationId, token.token());
+                } else {
+                    revokedTokenFilter.revoked(revocationId);
+                }
                 log.debug("Token is blacklisted successfully");
             }
+            verifiedTokenCache.invalidate(token.token());
         } catch(Exception e){
             log.error("Failed to blacklist token: {}", e.getMessage());
             throw new ValidationException("Failed to logout user");
         }
     }
 
-    public boolean isTokenBlacklisted(String token) {
+    /**
+     * Looks up the fixed-size key; in migration mode the legacy full-token key is checked in the same
+     * EXISTS call until every token revoked under the old format has expired
+     */
+    public boolean isTokenBlacklisted(ParsedToken token) {
+        String revocationId = token.revocationId();
+        if (!blacklistMigrationMode) {
+            if (!revokedTokenFilter.mightBeRevoked(revocationId)) {
+                return false;
+            }
+        } else if (!revokedTokenFilter.mightBeRevoked(revocationId, token.token())) {
+            return false;
+        }
         try{
-            String key = BLACKLIST_PREFIX + token;
-            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+            if (!blacklistMigrationMode) {
+                return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_PREFIX + revocationId));
+            }
+            Long existing = redisTemplate.countExistingKeys(
+                    List.of(REVOKED_PREFIX + revocationId, LEGACY_BLACKLIST_PREFIX + token.token()));
+            return existing != null && existing > 0;
         } catch(Exception e){
             log.error("Failed to check token status: {}", e.getMessage());
             return false;
         }
     }
 
+    // 128 random bits, 22 URL-safe characters
+    private static String newTokenId() {
+        byte[] bytes = new byte[TOKEN_ID_BYTES];
+        TOKEN_ID_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
     private Claims getClaimsFromToken(String token){
         try{
-            return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+            return jwtParser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e){
             log.debug("Token expired: {}", e.getMessage());
             throw e;
@@ -185,11 +322,17 @@ public class JwtTokenService {
         }
     }
 
+    private static Timer validationTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("auth.token.validation")
+                .description("Token validation latency by how the result was reached")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     public long getRemainingValidityInSeconds(String token) {
         try {
-            Date expiration = getExpirationDateFromToken(token);
-            long remaining = expiration.getTime() - System.currentTimeMillis();
-            return remaining > 0 ? remaining / 1000 : 0;
+            return parseToken(token).remainingValiditySeconds();
         } catch (Exception e) {
             return 0;
         }
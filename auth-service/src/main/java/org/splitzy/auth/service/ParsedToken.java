@@ -0,0 +1,53 @@
+package org.splitzy.auth.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Claims of a JWT whose signature has already been verified, or that this service just signed.
+ * Built once per token so callers read typed claims instead of parsing the compact string again.
+ * familyId is set on refresh tokens only and names the login session the token was rotated from.
+ */
+public record ParsedToken(String token,
+                          String tokenId,
+                          Long userId,
+                          String username,
+                          String email,
+                          String role,
+                          String tokenType,
+                          String familyId,
+                          Instant issuedAt,
+                          Instant expiresAt) {
+
+    public static final String ACCESS = "ACCESS";
+    public static final String REFRESH = "REFRESH";
+
+    /**
+     * Fixed-size id the blacklist is keyed on: the jti, or a digest of the whole token for tokens issued
+     * before jti was added
+     */
+    public String revocationId() {
+        return tokenId != null ? tokenId : TokenDigest.of(token);
+    }
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(Instant.now());
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH.equals(tokenType);
+    }
+
+    public long remainingValidityMillis() {
+        return Math.max(0, expiresAt.toEpochMilli() - System.currentTimeMillis());
+    }
+
+    public long remainingValiditySeconds() {
+        return remainingValidityMillis() / 1000;
+    }
+
+    public LocalDateTime expiresAtLocalDateTime() {
+        return LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,140 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.exception.BusinessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on its own bounded pool, one thread per core by default.
+ * A hash costs hundreds of milliseconds of CPU, so a login burst would otherwise tie up servlet threads
+ * that refresh and validation calls need. At most threads + queue-capacity callers wait here; anyone
+ * beyond that is turned away at once with 429 instead of queueing inside Tomcat.
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final boolean rehashOnLogin;
+    private final Timer matchTimer;
+    private final Timer encodeTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${auth.password.hash-threads:0}") int threads,
+                                  @Value("${auth.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${auth.password.rehash-on-login:true}") boolean rehashOnLogin) {
+        this.passwordEncoder = passwordEncoder;
+        this.rehashOnLogin = rehashOnLogin;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "password-hasher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchTimer = hashTimer(meterRegistry, "matches");
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.waitTimer = Timer.builder("auth.password.hash.wait")
+                .description("Time a hashing task spent queued before a hasher thread picked it up")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+                .description("Hashing requests turned away because the pool and its queue were full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Hashing tasks waiting for a hasher thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hasher threads busy hashing")
+                .register(meterRegistry);
+        log.info("Password hashing pool started with {} threads and a queue of {}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hash a new password
+     */
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Check a password against its stored hash. When it matches and the hash was made with another
+     * algorithm or a lower cost than configured now, the new hash is computed in the same task and returned
+     * for the caller to store.
+     */
+    public Verification verify(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> {
+            boolean matches = matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+            if (!matches || !rehashOnLogin || !passwordEncoder.upgradeEncoding(encodedPassword)) {
+                return new Verification(matches, null);
+            }
+            return new Verification(true, encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+        });
+    }
+
+    private <T> T submit(Callable<T> task) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new BusinessException("Too many sign-in attempts in progress. Please try again shortly.",
+                    HttpStatus.TOO_MANY_REQUESTS, "PASSWORD_HASHING_BUSY");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Password check was interrupted", HttpStatus.SERVICE_UNAVAILABLE, "PASSWORD_HASHING_INTERRUPTED");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("auth.password.hash")
+                .description("CPU time of one password hash operation")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,151 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Live refresh-token families in Redis, one hash per user: REFRESH_FAMILIES:<userId> maps each family id
+ * (one per login) to "<current jti>|<expiry millis>". Rotation is a single Lua call that compares and swaps
+ * the current jti, so a refresh needs one Redis round trip and no database read. Presenting a refresh token
+ * that is no longer the family's current one means it was replayed, and the whole family is revoked.
+ * Dropping the hash logs the user out of every session at once.
+ */
+@Slf4j
+@Service
+public class RefreshTokenFamilyStore {
+
+    static final String FAMILIES_PREFIX = "REFRESH_FAMILIES:";
+
+    // KEYS[1] user hash; ARGV family, jti, expiresAt, ttlMs, now, maxFamilies
+    private static final RedisScript<Long> START_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2] .. '|' .. ARGV[3])
+            local max = tonumber(ARGV[6])
+            if redis.call('HLEN', KEYS[1]) > max then
+              local entries = redis.call('HGETALL', KEYS[1])
+              local live = {}
+              for i = 1, #entries, 2 do
+                local sep = string.find(entries[i + 1], '|', 1, true)
+                local expiresAt = tonumber(string.sub(entries[i + 1], sep + 1))
+                if expiresAt <= tonumber(ARGV[5]) then
+                  redis.call('HDEL', KEYS[1], entries[i])
+                else
+                  live[#live + 1] = {entries[i], expiresAt}
+                end
+              end
+              if #live > max then
+                table.sort(live, function(a, b) return a[2] < b[2] end)
+                for i = 1, #live - max do
+                  redis.call('HDEL', KEYS[1], live[i][1])
+                end
+              end
+            end
+            if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[4]) then
+              redis.call('PEXPIRE', KEYS[1], ARGV[4])
+            end
+            return 1
+            """, Long.class);
+
+    // KEYS[1] user hash; ARGV family, presented jti, new jti, new expiresAt, ttlMs
+    private static final RedisScript<Long> ROTATE_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('HGET', KEYS[1], ARGV[1])
+            if not current then
+              return 0
+            end
+            local sep = string.find(current, '|', 1, true)
+            if string.sub(current, 1, sep - 1) ~= ARGV[2] then
+              redis.call('HDEL', KEYS[1], ARGV[1])
+              return -1
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3] .. '|' .. ARGV[4])
+            if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[5]) then
+              redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            end
+            return 1
+            """, Long.class);
+
+    public enum Rotation {
+        ROTATED,
+        UNKNOWN_FAMILY,
+        REUSE_DETECTED
+    }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Counter rotatedCounter;
+    private final Counter unknownCounter;
+    private final Counter reuseCounter;
+
+    @Value("${auth.refresh-families.max-per-user:50}")
+    private int maxFamiliesPerUser;
+
+    public RefreshTokenFamilyStore(RedisTemplate<String, String> redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.rotatedCounter = rotationCounter(meterRegistry, "rotated");
+        this.unknownCounter = rotationCounter(meterRegistry, "unknown");
+        this.reuseCounter = rotationCounter(meterRegistry, "reuse");
+    }
+
+    /**
+     * Register the first refresh token of a new family. Once the hash grows past the configured size,
+     * expired families are pruned and then the families closest to expiry, the longest idle, are evicted
+     * until it is back at the limit.
+     */
+    public void startFamily(ParsedToken refreshToken) {
+        long ttl = refreshToken.remainingValidityMillis();
+        redisTemplate.execute(START_SCRIPT, List.of(key(refreshToken.userId())),
+                refreshToken.familyId(), refreshToken.tokenId(), String.valueOf(refreshToken.expiresAt().toEpochMilli()),
+                String.valueOf(ttl), String.valueOf(System.currentTimeMillis()), String.valueOf(maxFamiliesPerUser));
+    }
+
+    /**
+     * Make next the current token of presented's family, provided presented is still the current one
+     */
+    public Rotation rotate(ParsedToken presented, ParsedToken next) {
+        Long result = redisTemplate.execute(ROTATE_SCRIPT, List.of(key(presented.userId())),
+                presented.familyId(), presented.tokenId(), next.tokenId(),
+                String.valueOf(next.expiresAt().toEpochMilli()), String.valueOf(next.remainingValidityMillis()));
+        if (result != null && result == 1) {
+            rotatedCounter.increment();
+            return Rotation.ROTATED;
+        }
+        if (result != null && result == -1) {
+            reuseCounter.increment();
+            return Rotation.REUSE_DETECTED;
+        }
+        unknownCounter.increment();
+        return Rotation.UNKNOWN_FAMILY;
+    }
+
+    /**
+     * End one session, e.g. on logout
+     */
+    public void revokeFamily(Long userId, String familyId) {
+        redisTemplate.opsForHash().delete(key(userId), familyId);
+    }
+
+    /**
+     * End every session of a user in one command
+     */
+    public void revokeAll(Long userId) {
+        redisTemplate.delete(key(userId));
+        log.info("Revoked all refresh-token families for user {}", userId);
+    }
+
+    private static String key(Long userId) {
+        return FAMILIES_PREFIX + userId;
+    }
+
+    private static Counter rotationCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.refresh.rotations")
+                .description("Refresh-token rotations by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
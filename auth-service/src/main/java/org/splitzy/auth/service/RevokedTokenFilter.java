@@ -0,0 +1,200 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process Bloom filter of revoked token ids, consulted before the Redis blacklist.
+ * A "no" from the filter is final and skips Redis; a "maybe" falls through to the Redis lookup. Every
+ * revocation is published on a pub/sub channel so all replicas add it, and the filter is rebuilt from
+ * the blacklist keys periodically, which drops expired revocations and repairs anything missed while a
+ * subscription was down. Until the first build completes every check goes to Redis.
+ */
+@Slf4j
+@Service
+public class RevokedTokenFilter implements MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Counter skippedCounter;
+    private final Counter checkedCounter;
+
+    @Value("${auth.revocation-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${auth.revocation-filter.channel:auth:token-revocations}")
+    private String channel;
+
+    @Value("${auth.revocation-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${auth.revocation-filter.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${auth.revocation-filter.rebuild-interval-minutes:10}")
+    private long rebuildIntervalMinutes;
+
+    @Value("${auth.blacklist.migration-mode:true}")
+    private boolean legacyKeys;
+
+    // Guards the swap to a rebuilt filter against concurrent adds; reads of current stay lock-free
+    private final Object swapLock = new Object();
+    private volatile BloomFilter current;
+    private BloomFilter rebuilding;
+    private ScheduledExecutorService scheduler;
+
+    public RevokedTokenFilter(RedisTemplate<String, String> redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.skippedCounter = Counter.builder("auth.revocation.filter")
+                .description("Blacklist checks answered by the local filter without Redis")
+                .tag("result", "skipped")
+                .register(meterRegistry);
+        this.checkedCounter = Counter.builder("auth.revocation.filter")
+                .description("Blacklist checks the filter passed on to Redis")
+                .tag("result", "redis")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        }
+    }
+
+    /**
+     * The listener container subscribes while the context starts, so the first scan runs after the
+     * subscription is live and no revocation can fall between the two
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "revoked-token-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * False only when none of the ids is on the blacklist
+     */
+    public boolean mightBeRevoked(String... tokenIds) {
+        BloomFilter filter = current;
+        boolean maybe = filter == null;
+        for (int i = 0; !maybe && i < tokenIds.length; i++) {
+            maybe = filter.mightContain(tokenIds[i]);
+        }
+        (maybe ? checkedCounter : skippedCounter).increment();
+        return maybe;
+    }
+
+    /**
+     * Record a revocation that was just written to the blacklist, locally and on every other replica
+     */
+    public void revoked(String... tokenIds) {
+        for (String tokenId : tokenIds) {
+            add(tokenId);
+            if (enabled) {
+                redisTemplate.convertAndSend(channel, tokenId);
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds to the live filter and to a build in progress, which would otherwise miss revocations made after
+     * its scan passed. Holding the swap lock keeps the swap from landing between the two, where the id would
+     * go only into the filter being retired.
+     */
+    private void add(String tokenId) {
+        synchronized (swapLock) {
+            if (current != null) {
+                current.add(tokenId);
+            }
+            if (rebuilding != null) {
+                rebuilding.add(tokenId);
+            }
+        }
+    }
+
+    void rebuild() {
+        BloomFilter next = new BloomFilter(expectedInsertions, falsePositiveRate);
+        synchronized (swapLock) {
+            rebuilding = next;
+        }
+        long count = 0;
+        try {
+            count += scanInto(next, JwtTokenService.REVOKED_PREFIX);
+            if (legacyKeys) {
+                count += scanInto(next, JwtTokenService.LEGACY_BLACKLIST_PREFIX);
+            }
+            synchronized (swapLock) {
+                current = next;
+                rebuilding = null;
+            }
+            if (count > expectedInsertions) {
+                log.warn("{} revoked tokens exceed the filter's expected {}; raise expected-insertions", count, expectedInsertions);
+            }
+            log.info("Rebuilt revoked token filter with {} entries", count);
+        } catch (Exception e) {
+            // Keep answering from the previous filter; it already contains everything revoked since
+            log.error("Failed to rebuild revoked token filter: {}", e.getMessage(), e);
+            synchronized (swapLock) {
+                rebuilding = null;
+            }
+        }
+    }
+
+    private long scanInto(BloomFilter filter, String prefix) {
+        long count = 0;
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(prefix + "*")
+                .count(1000)
+                .build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                filter.add(keys.next().substring(prefix.length()));
+                count++;
+            }
+        }
+        return count;
+    }
+}
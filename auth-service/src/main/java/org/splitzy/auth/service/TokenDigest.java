@@ -0,0 +1,26 @@
+package org.splitzy.auth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Fixed-size SHA-256 fingerprint of a compact JWT, for keys that should not grow with the token
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {
+        // Utility class
+    }
+
+    public static String of(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.splitzy.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local cache of tokens that passed signature, expiry and blacklist checks, keyed by the token's digest.
+ * An entry lives until the token expires or max-ttl-seconds passes, whichever is first. Blacklisting a
+ * token evicts it here at once; other replicas keep serving their entry for at most max-ttl-seconds,
+ * which bounds how long a revoked token stays usable elsewhere.
+ */
+@Slf4j
+@Service
+public class VerifiedTokenCache {
+
+    private final Cache<String, ParsedToken> cache;
+    private final boolean enabled;
+
+    public VerifiedTokenCache(@Value("${auth.token-cache.enabled:true}") boolean enabled,
+                              @Value("${auth.token-cache.maximum-size:100000}") long maximumSize,
+                              @Value("${auth.token-cache.max-ttl-seconds:30}") long maxTtlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(maxTtlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, ParsedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, ParsedToken token, long currentTime) {
+                        return Math.min(maxTtlNanos, TimeUnit.MILLISECONDS.toNanos(token.remainingValidityMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, ParsedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, ParsedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verifiedTokens");
+    }
+
+    /**
+     * Claims of a token verified earlier, or null when it has to be verified again
+     */
+    public ParsedToken get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        ParsedToken cached = cache.getIfPresent(TokenDigest.of(token));
+        // The entry carries the token it was verified for, so a hit is never weaker than a full check
+        return cached != null && cached.token().equals(token) && !cached.isExpired() ? cached : null;
+    }
+
+    public void put(ParsedToken token) {
+        if (enabled) {
+            cache.put(TokenDigest.of(token.token()), token);
+        }
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(TokenDigest.of(token));
+    }
+}
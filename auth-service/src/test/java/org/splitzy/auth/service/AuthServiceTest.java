@@ -0,0 +1,93 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.splitzy.auth.config.SecurityConfig;
+import org.splitzy.auth.dto.request.LoginRequest;
+import org.splitzy.auth.entity.AuthUser;
+import org.splitzy.auth.repository.AuthUserRepository;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private static final long USER_ID = 7L;
+
+    private final PasswordEncoder passwordEncoder = new SecurityConfig().passwordEncoder("bcrypt", 5, false);
+    private AuthUserRepository authUserRepository;
+    private PasswordHashingService passwordHashingService;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        JwtTokenService jwtTokenService = mock(JwtTokenService.class);
+        when(jwtTokenService.issueAccessToken(any())).thenReturn(token(ParsedToken.ACCESS));
+        when(jwtTokenService.issueRefreshToken(any())).thenReturn(token(ParsedToken.REFRESH));
+        authUserRepository = mock(AuthUserRepository.class);
+        passwordHashingService = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, true);
+        authService = new AuthService(jwtTokenService, passwordHashingService, authUserRepository, mock(RefreshTokenFamilyStore.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.stop();
+    }
+
+    @Test
+    void loginStoresAHashMadeWithTheCurrentCost() {
+        // Stored when the configured cost was 4; it is 5 now
+        AuthUser user = user(new BCryptPasswordEncoder(4).encode("secret"));
+        when(authUserRepository.findByUsernameAndIsActiveTrue("alice")).thenReturn(Optional.of(user));
+
+        authService.login(new LoginRequest("alice", "secret", false));
+
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(authUserRepository).updatePasswordHash(eq(USER_ID), stored.capture());
+        assertTrue(passwordEncoder.matches("secret", stored.getValue()));
+        assertFalse(passwordEncoder.upgradeEncoding(stored.getValue()));
+        assertEquals(stored.getValue(), user.getPasswordHash());
+    }
+
+    @Test
+    void loginKeepsACurrentHash() {
+        when(authUserRepository.findByUsernameAndIsActiveTrue("alice")).thenReturn(Optional.of(user(passwordEncoder.encode("secret"))));
+
+        authService.login(new LoginRequest("alice", "secret", false));
+
+        verify(authUserRepository, never()).updatePasswordHash(any(), anyString());
+    }
+
+    private static AuthUser user(String passwordHash) {
+        AuthUser user = AuthUser.builder()
+                .username("alice")
+                .email("alice@splitzy.org")
+                .passwordHash(passwordHash)
+                .build();
+        user.setId(USER_ID);
+        user.setIsActive(true);
+        return user;
+    }
+
+    private static ParsedToken token(String type) {
+        Instant now = Instant.now();
+        return new ParsedToken(type.toLowerCase(), type + "-id", USER_ID, "alice", "alice@splitzy.org", "USER", type,
+                null, now, now.plusSeconds(900));
+    }
+}
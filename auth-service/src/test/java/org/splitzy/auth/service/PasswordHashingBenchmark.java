@@ -0,0 +1,86 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.splitzy.auth.config.SecurityConfig;
+import org.splitzy.common.exception.BusinessException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A login burst of 32 concurrent callers against the hashing pool at the production bcrypt cost. Sample
+ * time shows how long an admitted login waits for its hash; callers beyond the pool and its queue come
+ * back at once with 429, and the share turned away is printed per trial. The queue sizes bracket the
+ * default of 64.
+ *
+ * Run with: mvn -pl auth-service -am test-compile, then this class's main on the auth-service test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+public class PasswordHashingBenchmark {
+
+    @Param({"8", "64"})
+    public int queueCapacity;
+
+    @Param({"12"})
+    public int bcryptStrength;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingService service;
+    private String storedHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PasswordEncoder passwordEncoder = new SecurityConfig().passwordEncoder("bcrypt", bcryptStrength, false);
+        storedHash = passwordEncoder.encode("correct horse battery staple");
+        meterRegistry = new SimpleMeterRegistry();
+        // One hasher per core, as in production
+        service = new PasswordHashingService(passwordEncoder, meterRegistry, 0, queueCapacity, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        double matched = meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count();
+        double rejected = meterRegistry.get("auth.password.hash.rejected").counter().count();
+        System.out.printf("%nqueue %d: %.0f hashed, %.0f turned away with 429 (%.1f%%)%n", queueCapacity, matched, rejected,
+                100.0 * rejected / Math.max(1, matched + rejected));
+        service.stop();
+    }
+
+    @Benchmark
+    public PasswordHashingService.Verification login() {
+        try {
+            return service.verify("correct horse battery staple", storedHash);
+        } catch (BusinessException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
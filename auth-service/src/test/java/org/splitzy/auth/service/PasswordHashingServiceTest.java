@@ -0,0 +1,101 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.splitzy.auth.config.SecurityConfig;
+import org.splitzy.common.exception.BusinessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    // The configured cost is 5, so a cost 4 hash is stale; both are cheap enough for a unit test
+    private final PasswordEncoder passwordEncoder = new SecurityConfig().passwordEncoder("bcrypt", 5, false);
+    private final String staleHash = new BCryptPasswordEncoder(4).encode("secret");
+
+    @Test
+    void turnsCallersAwayWith429WhenThePoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = mock(PasswordEncoder.class);
+        when(slowEncoder.matches(any(), anyString())).thenAnswer(invocation -> release.await(10, TimeUnit.SECONDS));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordHashingService service = new PasswordHashingService(slowEncoder, meterRegistry, 1, 1, true);
+
+        try {
+            // One hash running, one queued behind it
+            CompletableFuture<PasswordHashingService.Verification> running = CompletableFuture.supplyAsync(() -> service.verify("a", "hash"));
+            CompletableFuture<PasswordHashingService.Verification> queued = CompletableFuture.supplyAsync(() -> service.verify("b", "hash"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (gauge(meterRegistry, "auth.password.hash.active") < 1 || gauge(meterRegistry, "auth.password.hash.queue") < 1) {
+                assertTrue(System.nanoTime() < deadline, "pool never filled up");
+                Thread.sleep(10);
+            }
+
+            BusinessException rejected = assertThrows(BusinessException.class, () -> service.verify("c", "hash"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatus());
+            assertEquals(1.0, meterRegistry.get("auth.password.hash.rejected").counter().count());
+
+            // The callers already admitted still get their answer
+            release.countDown();
+            assertTrue(running.get(5, TimeUnit.SECONDS).matches());
+            assertTrue(queued.get(5, TimeUnit.SECONDS).matches());
+        } finally {
+            release.countDown();
+            service.stop();
+        }
+    }
+
+    @Test
+    void rehashesALowerCostHashWithTheConfiguredCost() {
+        PasswordHashingService service = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, true);
+
+        PasswordHashingService.Verification verification = service.verify("secret", staleHash);
+
+        assertTrue(verification.matches());
+        assertTrue(verification.upgradedHash().startsWith("$2a$05$"), verification.upgradedHash());
+        assertTrue(passwordEncoder.matches("secret", verification.upgradedHash()));
+        assertFalse(passwordEncoder.upgradeEncoding(verification.upgradedHash()));
+        service.stop();
+    }
+
+    @Test
+    void leavesACurrentHashAlone() {
+        PasswordHashingService service = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, true);
+
+        PasswordHashingService.Verification verification = service.verify("secret", passwordEncoder.encode("secret"));
+
+        assertTrue(verification.matches());
+        assertNull(verification.upgradedHash());
+        service.stop();
+    }
+
+    @Test
+    void neverRehashesOnAWrongPasswordOrWhenTurnedOff() {
+        PasswordHashingService enabled = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, true);
+        PasswordHashingService disabled = new PasswordHashingService(passwordEncoder, new SimpleMeterRegistry(), 1, 4, false);
+
+        assertEquals(new PasswordHashingService.Verification(false, null), enabled.verify("wrong", staleHash));
+        assertEquals(new PasswordHashingService.Verification(true, null), disabled.verify("secret", staleHash));
+        enabled.stop();
+        disabled.stop();
+    }
+
+    private static double gauge(SimpleMeterRegistry meterRegistry, String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+}
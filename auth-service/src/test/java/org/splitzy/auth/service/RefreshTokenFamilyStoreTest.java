@@ -0,0 +1,115 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the store's Lua scripts against a real Redis
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenFamilyStoreTest {
+
+    private static final long USER_ID = 42L;
+    private static final String KEY = RefreshTokenFamilyStore.FAMILIES_PREFIX + USER_ID;
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenFamilyStore store;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.delete(KEY);
+        meterRegistry = new SimpleMeterRegistry();
+        store = new RefreshTokenFamilyStore(redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(store, "maxFamiliesPerUser", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void rotatesTheCurrentToken() {
+        ParsedToken first = refreshToken("family-a", Duration.ofDays(7));
+        store.startFamily(first);
+        ParsedToken second = successor(first);
+
+        assertEquals(RefreshTokenFamilyStore.Rotation.ROTATED, store.rotate(first, second));
+        assertEquals(RefreshTokenFamilyStore.Rotation.ROTATED, store.rotate(second, successor(second)));
+    }
+
+    @Test
+    void revokesTheFamilyWhenARotatedTokenIsReplayed() {
+        ParsedToken first = refreshToken("family-a", Duration.ofDays(7));
+        store.startFamily(first);
+        store.startFamily(refreshToken("family-b", Duration.ofDays(7)));
+        ParsedToken second = successor(first);
+        store.rotate(first, second);
+
+        assertEquals(RefreshTokenFamilyStore.Rotation.REUSE_DETECTED, store.rotate(first, successor(first)));
+
+        // The legitimate holder is logged out too, other sessions are untouched
+        assertFalse(redisTemplate.opsForHash().hasKey(KEY, "family-a"));
+        assertEquals(RefreshTokenFamilyStore.Rotation.UNKNOWN_FAMILY, store.rotate(second, successor(second)));
+        assertTrue(redisTemplate.opsForHash().hasKey(KEY, "family-b"));
+        assertEquals(1.0, meterRegistry.get("auth.refresh.rotations").tag("result", "reuse").counter().count());
+    }
+
+    @Test
+    void rejectsFamiliesItDoesNotKnow() {
+        ParsedToken stranger = refreshToken("family-x", Duration.ofDays(7));
+
+        assertEquals(RefreshTokenFamilyStore.Rotation.UNKNOWN_FAMILY, store.rotate(stranger, successor(stranger)));
+    }
+
+    @Test
+    void evictsTheFamiliesClosestToExpiryPastTheLimit() {
+        store.startFamily(refreshToken("oldest", Duration.ofDays(1)));
+        store.startFamily(refreshToken("older", Duration.ofDays(2)));
+        store.startFamily(refreshToken("old", Duration.ofDays(3)));
+        store.startFamily(refreshToken("new", Duration.ofDays(7)));
+        store.startFamily(refreshToken("newest", Duration.ofDays(8)));
+
+        assertEquals(3L, redisTemplate.opsForHash().size(KEY).longValue());
+        assertFalse(redisTemplate.opsForHash().hasKey(KEY, "oldest"));
+        assertFalse(redisTemplate.opsForHash().hasKey(KEY, "older"));
+        assertTrue(redisTemplate.opsForHash().hasKey(KEY, "newest"));
+    }
+
+    private static ParsedToken refreshToken(String familyId, Duration validity) {
+        Instant now = Instant.now();
+        return new ParsedToken("token", UUID.randomUUID().toString(), USER_ID, "user", "user@splitzy.org", "USER",
+                ParsedToken.REFRESH, familyId, now, now.plus(validity));
+    }
+
+    private static ParsedToken successor(ParsedToken token) {
+        return refreshToken(token.familyId(), Duration.ofDays(7));
+    }
+}
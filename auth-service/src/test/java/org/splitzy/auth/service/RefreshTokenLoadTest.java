@@ -0,0 +1,131 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.splitzy.auth.dto.request.RefreshTokenRequest;
+import org.splitzy.auth.entity.AuthUser;
+import org.splitzy.auth.repository.AuthUserRepository;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Refreshes per second through AuthService.refreshToken with the family store on a real Redis.
+ * Each thread is one user rotating one session as fast as it can; every rotation must succeed, so the
+ * chain of current tokens is never broken under load. The user row comes from a mocked repository, so
+ * the rate measures token work and the Redis round trip. The floor is deliberately low for shared CI
+ * machines; raise -Dauth.refresh.load.min-per-second to hold a real budget.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenLoadTest {
+
+    private static final int THREADS = 16;
+    private static final long DURATION_MILLIS = 5_000;
+    private static final double MIN_PER_SECOND = Double.parseDouble(System.getProperty("auth.refresh.load.min-per-second", "200"));
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private JwtTokenService jwtTokenService;
+    private AuthService authService;
+    private final List<String> firstTokens = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RevokedTokenFilter revokedTokenFilter = new RevokedTokenFilter(redisTemplate, new RedisMessageListenerContainer(), meterRegistry);
+        jwtTokenService = new JwtTokenService(redisTemplate, new VerifiedTokenCache(false, 1, 1, meterRegistry),
+                revokedTokenFilter, meterRegistry, false,
+                "load-test-secret-load-test-secret-load-test-secret-load-test-secret", 3_600_000, 604_800_000);
+        RefreshTokenFamilyStore store = new RefreshTokenFamilyStore(redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(store, "maxFamiliesPerUser", 5);
+
+        AuthUserRepository authUserRepository = mock(AuthUserRepository.class);
+        when(authUserRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(user(invocation.getArgument(0))));
+        authService = new AuthService(jwtTokenService, mock(PasswordHashingService.class), authUserRepository, store);
+
+        // One session per user, as a login would start it
+        for (long userId = 1; userId <= THREADS; userId++) {
+            ParsedToken first = jwtTokenService.issueRefreshToken(user(userId));
+            store.startFamily(first);
+            firstTokens.add(first.token());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void sustainsRefreshesWithoutBreakingAnyFamily() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> workers = new ArrayList<>();
+        for (String first : firstTokens) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                // Always present the token the last refresh returned; a failed rotation throws and fails the test
+                String token = first;
+                int refreshes = 0;
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+                while (System.nanoTime() < deadline) {
+                    token = authService.refreshToken(new RefreshTokenRequest(token)).getRefreshToken();
+                    refreshes++;
+                }
+                return refreshes;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> worker : workers) {
+            total += worker.get(DURATION_MILLIS * 4, TimeUnit.MILLISECONDS);
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        pool.shutdown();
+
+        double perSecond = total / seconds;
+        assertTrue(perSecond >= MIN_PER_SECOND,
+                String.format("%.0f refreshes/s over %d threads, below the floor of %.0f", perSecond, THREADS, MIN_PER_SECOND));
+    }
+
+    private static AuthUser user(long userId) {
+        AuthUser user = AuthUser.builder()
+                .username("user" + userId)
+                .email("user" + userId + "@splitzy.org")
+                .build();
+        user.setId(userId);
+        user.setIsActive(true);
+        return user;
+    }
+}
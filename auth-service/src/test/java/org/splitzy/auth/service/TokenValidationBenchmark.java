@@ -0,0 +1,128 @@
+package org.splitzy.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.splitzy.auth.entity.AuthUser;
+import org.splitzy.common.util.BloomFilter;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Refresh token validation throughput, which always consults the blacklist, with and without the revoked
+ * token filter in front of it. Redis is replaced by an in-memory stand-in that parks each call for a fixed
+ * round trip, so the numbers show what the filter saves rather than how fast a local Redis is.
+ *
+ * Run with: mvn -pl auth-service -am test-compile, then this class's main on the auth-service test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class TokenValidationBenchmark {
+
+    private static final int TOKENS = 1_024;
+    private static final int REVOKED = 10_000;
+
+    @Param({"false", "true"})
+    public boolean filter;
+
+    @Param({"250"})
+    public long redisLatencyMicros;
+
+    private JwtTokenService jwtTokenService;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LatencyRedisTemplate redis = new LatencyRedisTemplate(TimeUnit.MICROSECONDS.toNanos(redisLatencyMicros));
+        RevokedTokenFilter revokedTokenFilter = new RevokedTokenFilter(redis, new RedisMessageListenerContainer(), meterRegistry);
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 1, 1, meterRegistry);
+        jwtTokenService = new JwtTokenService(redis, cache, revokedTokenFilter, meterRegistry, false,
+                "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret", 3_600_000, 604_800_000);
+
+        BloomFilter revoked = new BloomFilter(1_000_000, 0.001);
+        for (int i = 0; i < REVOKED; i++) {
+            String id = "revoked-" + i;
+            redis.keys.add(JwtTokenService.REVOKED_PREFIX + id);
+            revoked.add(id);
+        }
+        if (filter) {
+            // What a completed rebuild leaves behind; without it every check goes to Redis
+            ReflectionTestUtils.setField(revokedTokenFilter, "current", revoked);
+        }
+
+        AuthUser user = AuthUser.builder()
+                .username("bench")
+                .email("bench@splitzy.org")
+                .build();
+        user.setId(1L);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtTokenService.issueRefreshToken(user).token();
+        }
+    }
+
+    @Benchmark
+    public Optional<ParsedToken> verifyRefreshToken() {
+        return jwtTokenService.verifyRefreshToken(tokens[ThreadLocalRandom.current().nextInt(TOKENS)]);
+    }
+
+    /**
+     * Answers the blacklist lookups from a set after parking for one simulated round trip
+     */
+    static final class LatencyRedisTemplate extends RedisTemplate<String, String> {
+
+        final Set<String> keys = ConcurrentHashMap.newKeySet();
+        private final long latencyNanos;
+
+        LatencyRedisTemplate(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public Boolean hasKey(String key) {
+            LockSupport.parkNanos(latencyNanos);
+            return keys.contains(key);
+        }
+
+        @Override
+        public Long countExistingKeys(Collection<String> candidates) {
+            LockSupport.parkNanos(latencyNanos);
+            return candidates.stream().filter(keys::contains).count();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenValidationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
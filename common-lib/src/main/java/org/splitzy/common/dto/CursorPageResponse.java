@@ -0,0 +1,46 @@
+package org.splitzy.common.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) page: carries an opaque cursor for the next page instead of page numbers and totals,
+ * so listings never need an OFFSET scan or a count query
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int pageSize;
+    private boolean hasNext;
+    private String nextCursor;
+
+    /**
+     * Build a page from rows fetched with limit pageSize + 1; the extra row only signals that a next page exists
+     */
+    public static <E, T> CursorPageResponse<T> of(List<E> rows, int pageSize,
+                                                  Function<E, String> cursorOf, Function<E, T> mapper) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        List<T> content = new ArrayList<>(page.size());
+        for (E row : page) {
+            content.add(mapper.apply(row));
+        }
+
+        return CursorPageResponse.<T>builder()
+                .content(content)
+                .pageSize(pageSize)
+                .hasNext(hasNext)
+                .nextCursor(hasNext && !page.isEmpty() ? cursorOf.apply(page.get(page.size() - 1)) : null)
+                .build();
+    }
+}
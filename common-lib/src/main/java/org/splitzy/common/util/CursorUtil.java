@@ -0,0 +1,56 @@
+package org.splitzy.common.util;
+
+import org.splitzy.common.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utility class for opaque keyset pagination cursors
+ */
+public final class CursorUtil {
+
+    private static final String SEPARATOR = "|";
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private CursorUtil() {
+        // Utility class
+    }
+
+    /**
+     * Encode the sort key values of the last row into a URL-safe token
+     */
+    public static String encode(Object... keyParts) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < keyParts.length; i++) {
+            if (i > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(keyParts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Clamp a requested page size to 1..MAX_PAGE_SIZE, so the size + 1 lookahead limit is always valid
+     */
+    public static int pageSize(int requested) {
+        return Math.max(1, Math.min(requested, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Decode a token produced by encode, checking it has the expected number of key parts
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != expectedParts) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.splitzy.common.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of expense events, shared by the expense-events producer and its consumers.
+ *
+ * Layout (version 1): magic byte 0xE5, version byte, varint presence bitmask in field order, then each
+ * present field. Event types are a one-byte code (0 followed by the name for unknown types), ids are
+ * zigzag varints, amounts are scale plus unscaled long, the timestamp is UTC epoch seconds plus nanos and
+ * participant ids are zigzag deltas from the previous id, so ids allocated close together take a byte or two.
+ * The magic byte can never start a JSON document, which lets consumers accept both formats while
+ * producers switch over. Unknown presence bits are rejected on decode because their length cannot be skipped.
+ */
+public final class ExpenseEventCodec {
+
+    public static final int MAGIC = 0xE5;
+    public static final int VERSION = 1;
+
+    // Code = index + 1; append only
+    private static final List<String> EVENT_TYPE_CODES = List.of(
+            "EXPENSE_CREATED", "EXPENSE_UPDATED", "EXPENSE_DELETED", "SPLIT_SETTLED");
+
+    private static final int EVENT_TYPE = 1;
+    private static final int EXPENSE_ID = 1 << 1;
+    private static final int TITLE = 1 << 2;
+    private static final int TOTAL_AMOUNT = 1 << 3;
+    private static final int CURRENCY = 1 << 4;
+    private static final int PAID_BY_USER_ID = 1 << 5;
+    private static final int GROUP_ID = 1 << 6;
+    private static final int PARTICIPANTS = 1 << 7;
+    private static final int EVENT_TIMESTAMP = 1 << 8;
+    private static final int NOTES = 1 << 9;
+    private static final int KNOWN_FIELDS = (1 << 10) - 1;
+
+    /**
+     * Wire fields of an expense event; services map their own event class to and from it
+     */
+    public record Fields(String eventType,
+                         Long expenseId,
+                         String title,
+                         BigDecimal totalAmount,
+                         String currency,
+                         Long paidByUserId,
+                         Long groupId,
+                         List<Long> participantUserIds,
+                         LocalDateTime eventTimestamp,
+                         String notes) {
+    }
+
+    private ExpenseEventCodec() {
+        // Utility class
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 0 && (data[0] & 0xFF) == MAGIC;
+    }
+
+    public static byte[] encode(Fields event) {
+        List<Long> participants = event.participantUserIds();
+        VarintWriter writer = new VarintWriter(48 + (participants != null ? participants.size() * 3 : 0));
+        writer.writeByte(MAGIC).writeByte(VERSION).writeUnsignedVarLong(presence(event));
+
+        if (event.eventType() != null) {
+            int code = EVENT_TYPE_CODES.indexOf(event.eventType()) + 1;
+            writer.writeUnsignedVarLong(code);
+            if (code == 0) {
+                writer.writeString(event.eventType());
+            }
+        }
+        if (event.expenseId() != null) {
+            writer.writeVarLong(event.expenseId());
+        }
+        if (event.title() != null) {
+            writer.writeString(event.title());
+        }
+        if (event.totalAmount() != null) {
+            writer.writeDecimal(event.totalAmount());
+        }
+        if (event.currency() != null) {
+            writer.writeString(event.currency());
+        }
+        if (event.paidByUserId() != null) {
+            writer.writeVarLong(event.paidByUserId());
+        }
+        if (event.groupId() != null) {
+            writer.writeVarLong(event.groupId());
+        }
+        if (participants != null) {
+            writer.writeUnsignedVarLong(participants.size());
+            long previous = 0;
+            for (Long userId : participants) {
+                writer.writeVarLong(userId - previous);
+                previous = userId;
+            }
+        }
+        if (event.eventTimestamp() != null) {
+            LocalDateTime timestamp = event.eventTimestamp();
+            writer.writeVarLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+            writer.writeUnsignedVarLong(timestamp.getNano());
+        }
+        if (event.notes() != null) {
+            writer.writeString(event.notes());
+        }
+        return writer.toByteArray();
+    }
+
+    public static Fields decode(byte[] data) {
+        VarintReader reader = new VarintReader(data);
+        if (reader.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary expense event");
+        }
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported expense event version " + version);
+        }
+        long mask = reader.readUnsignedVarLong();
+        if ((mask & ~KNOWN_FIELDS) != 0) {
+            throw new IllegalArgumentException("Unknown expense event fields 0x" + Long.toHexString(mask & ~KNOWN_FIELDS));
+        }
+
+        String eventType = null;
+        if ((mask & EVENT_TYPE) != 0) {
+            int code = Math.toIntExact(reader.readUnsignedVarLong());
+            if (code == 0) {
+                eventType = reader.readString();
+            } else if (code <= EVENT_TYPE_CODES.size()) {
+                eventType = EVENT_TYPE_CODES.get(code - 1);
+            } else {
+                throw new IllegalArgumentException("Unknown expense event type code " + code);
+            }
+        }
+        Long expenseId = (mask & EXPENSE_ID) != 0 ? reader.readVarLong() : null;
+        String title = (mask & TITLE) != 0 ? reader.readString() : null;
+        BigDecimal totalAmount = (mask & TOTAL_AMOUNT) != 0 ? reader.readDecimal() : null;
+        String currency = (mask & CURRENCY) != 0 ? reader.readString() : null;
+        Long paidByUserId = (mask & PAID_BY_USER_ID) != 0 ? reader.readVarLong() : null;
+        Long groupId = (mask & GROUP_ID) != 0 ? reader.readVarLong() : null;
+        List<Long> participants = null;
+        if ((mask & PARTICIPANTS) != 0) {
+            int count = reader.readLength();
+            participants = new ArrayList<>(count);
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                previous += reader.readVarLong();
+                participants.add(previous);
+            }
+        }
+        LocalDateTime eventTimestamp = null;
+        if ((mask & EVENT_TIMESTAMP) != 0) {
+            long epochSecond = reader.readVarLong();
+            int nanos = Math.toIntExact(reader.readUnsignedVarLong());
+            eventTimestamp = LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+        }
+        String notes = (mask & NOTES) != 0 ? reader.readString() : null;
+        return new Fields(eventType, expenseId, title, totalAmount, currency, paidByUserId, groupId,
+                participants, eventTimestamp, notes);
+    }
+
+    private static int presence(Fields event) {
+        int mask = 0;
+        mask |= event.eventType() != null ? EVENT_TYPE : 0;
+        mask |= event.expenseId() != null ? EXPENSE_ID : 0;
+        mask |= event.title() != null ? TITLE : 0;
+        mask |= event.totalAmount() != null ? TOTAL_AMOUNT : 0;
+        mask |= event.currency() != null ? CURRENCY : 0;
+        mask |= event.paidByUserId() != null ? PAID_BY_USER_ID : 0;
+        mask |= event.groupId() != null ? GROUP_ID : 0;
+        mask |= event.participantUserIds() != null ? PARTICIPANTS : 0;
+        mask |= event.eventTimestamp() != null ? EVENT_TIMESTAMP : 0;
+        mask |= event.notes() != null ? NOTES : 0;
+        return mask;
+    }
+}
@@ -0,0 +1,70 @@
+package org.splitzy.common.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads values written by VarintWriter, throwing IllegalArgumentException on truncated or malformed input
+ */
+public final class VarintReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    public VarintReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public long readUnsignedVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            require(1);
+            byte b = buffer[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 10 bytes at offset " + position);
+    }
+
+    public long readVarLong() {
+        long raw = readUnsignedVarLong();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    public int readLength() {
+        long length = readUnsignedVarLong();
+        if (length > buffer.length - position) {
+            throw new IllegalArgumentException("Length " + length + " exceeds remaining " + (buffer.length - position) + " bytes");
+        }
+        return (int) length;
+    }
+
+    public String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public BigDecimal readDecimal() {
+        int scale = Math.toIntExact(readVarLong());
+        return BigDecimal.valueOf(readVarLong(), scale);
+    }
+
+    public boolean hasRemaining() {
+        return position < buffer.length;
+    }
+
+    private void require(int bytes) {
+        if (position + bytes > buffer.length) {
+            throw new IllegalArgumentException("Unexpected end of input at offset " + position);
+        }
+    }
+}
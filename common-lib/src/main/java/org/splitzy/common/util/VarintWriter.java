@@ -0,0 +1,70 @@
+package org.splitzy.common.util;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for compact binary encodings.
+ * Integers are LEB128 varints (7 bits per byte, high bit set on all but the last byte); signed values
+ * are zigzag-mapped first so small negatives stay short. Read back with VarintReader.
+ */
+public final class VarintWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    public VarintWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public VarintWriter writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public VarintWriter writeUnsignedVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return this;
+    }
+
+    public VarintWriter writeVarLong(long value) {
+        return writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Length-prefixed UTF-8
+     */
+    public VarintWriter writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsignedVarLong(bytes.length);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    /**
+     * Decimal as its scale followed by the unscaled value; the unscaled value must fit in a long
+     */
+    public VarintWriter writeDecimal(BigDecimal value) {
+        writeVarLong(value.scale());
+        return writeVarLong(value.unscaledValue().longValueExact());
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
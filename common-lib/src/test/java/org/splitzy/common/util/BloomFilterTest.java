@@ -0,0 +1,78 @@
+package org.splitzy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    private static final int VALUES = 100_000;
+
+    @Test
+    void neverMissesAnAddedValue() {
+        BloomFilter filter = new BloomFilter(VALUES, 0.01);
+        for (int i = 0; i < VALUES; i++) {
+            filter.add("user-" + i + "@splitzy.org");
+        }
+
+        for (int i = 0; i < VALUES; i++) {
+            assertTrue(filter.mightContain("user-" + i + "@splitzy.org"), "missing value " + i);
+        }
+    }
+
+    @Test
+    void neverMissesValuesAddedConcurrently() throws Exception {
+        BloomFilter filter = new BloomFilter(VALUES, 0.01);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                adds.add(executor.submit(() -> {
+                    for (int i = offset; i < VALUES; i += threads) {
+                        filter.add("token-" + i);
+                    }
+                }));
+            }
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < VALUES; i++) {
+            assertTrue(filter.mightContain("token-" + i), "missing value " + i);
+        }
+    }
+
+    @Test
+    void keepsFalsePositivesNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(VALUES, 0.01);
+        for (int i = 0; i < VALUES; i++) {
+            filter.add("present-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < VALUES; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < VALUES * 0.02, falsePositives + " false positives in " + VALUES);
+    }
+
+    @Test
+    void rejectsImpossibleSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1.0));
+    }
+}
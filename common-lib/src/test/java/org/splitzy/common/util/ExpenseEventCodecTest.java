@@ -0,0 +1,72 @@
+package org.splitzy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpenseEventCodecTest {
+
+    @Test
+    void roundTripsEveryField() {
+        ExpenseEventCodec.Fields event = new ExpenseEventCodec.Fields(
+                "SPLIT_SETTLED", 9_876_543_210L, "Dinner at Caf\u00e9 \u2615", new BigDecimal("1234.56"), "INR",
+                42L, -7L, List.of(42L, 40L, 1_000_000L, 43L),
+                LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_932), "split three ways");
+
+        byte[] encoded = ExpenseEventCodec.encode(event);
+
+        assertTrue(ExpenseEventCodec.isBinary(encoded));
+        assertEquals(event, ExpenseEventCodec.decode(encoded));
+    }
+
+    @Test
+    void roundTripsAnEventWithNoFields() {
+        ExpenseEventCodec.Fields event = new ExpenseEventCodec.Fields(
+                null, null, null, null, null, null, null, null, null, null);
+
+        byte[] encoded = ExpenseEventCodec.encode(event);
+
+        assertEquals(3, encoded.length);
+        assertEquals(event, ExpenseEventCodec.decode(encoded));
+    }
+
+    @Test
+    void keepsEventTypesWithoutACodeByName() {
+        ExpenseEventCodec.Fields event = new ExpenseEventCodec.Fields(
+                "EXPENSE_ARCHIVED", 1L, null, new BigDecimal("-0.5"), null, null, null, List.of(), null, null);
+
+        assertEquals(event, ExpenseEventCodec.decode(ExpenseEventCodec.encode(event)));
+    }
+
+    @Test
+    void doesNotTakeJsonForBinary() {
+        assertFalse(ExpenseEventCodec.isBinary("{\"eventType\":\"EXPENSE_CREATED\"}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(ExpenseEventCodec.isBinary(new byte[0]));
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndFields() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpenseEventCodec.decode(new byte[]{(byte) ExpenseEventCodec.MAGIC, 2, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> ExpenseEventCodec.decode(new byte[]{(byte) ExpenseEventCodec.MAGIC, 1, (byte) 0x80, 0x08}));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        byte[] encoded = ExpenseEventCodec.encode(new ExpenseEventCodec.Fields(
+                "EXPENSE_CREATED", 5L, "Taxi", null, null, null, null, null, null, null));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 2);
+
+        assertThrows(IllegalArgumentException.class, () -> ExpenseEventCodec.decode(truncated));
+    }
+}
@@ -1,28 +1,44 @@
 package org.splitzy.expense.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
 
 /**
- * Cache configuration using Caffeine for local caching
+ * Cache configuration using Caffeine for local caching.
+ * Each cache gets its own size/TTL spec; recordStats feeds the actuator cache metrics.
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final String EXPENSES_CACHE = "expenses";
+    public static final String BALANCES_CACHE = "balances";
+    public static final String STATISTICS_CACHE = "statistics";
+
+    @Value("${cache.caffeine.expenses:maximumSize=10000,expireAfterWrite=10m}")
+    private String expensesSpec;
+
+    @Value("${cache.caffeine.balances:maximumSize=5000,expireAfterWrite=5m}")
+    private String balancesSpec;
+
+    @Value("${cache.caffeine.statistics:maximumSize=2000,expireAfterWrite=15m}")
+    private String statisticsSpec;
+
     @Bean
     public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("expenses", "balances", "statistics");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .maximumSize(1000)
-                .recordStats());
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(EXPENSES_CACHE, Caffeine.from(expensesSpec).recordStats().build());
+        cacheManager.registerCustomCache(BALANCES_CACHE, Caffeine.from(balancesSpec).recordStats().build());
+        cacheManager.registerCustomCache(STATISTICS_CACHE, Caffeine.from(statisticsSpec).recordStats().build());
+        // Only the caches above exist; unknown names should fail instead of silently creating a cache
+        cacheManager.setCacheNames(List.of());
         return cacheManager;
     }
 }
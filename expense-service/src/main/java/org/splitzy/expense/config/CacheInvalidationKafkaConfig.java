@@ -0,0 +1,74 @@
+package org.splitzy.expense.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.splitzy.expense.dto.CacheInvalidationEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka producer/consumer for near-cache invalidation messages.
+ * Every replica consumes the topic from its own consumer group so each one sees every invalidation.
+ * Those groups never commit offsets: a restarted node starts from the latest offset anyway, and a group
+ * with no committed offsets is dropped by the broker once its member leaves instead of piling up.
+ */
+@Configuration
+public class CacheInvalidationKafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Bean
+    public ProducerFactory<String, CacheInvalidationEvent> cacheInvalidationProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "1"); // best effort, TTL still bounds staleness
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 0);
+        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+
+    @Bean
+    public KafkaTemplate<String, CacheInvalidationEvent> cacheInvalidationKafkaTemplate() {
+        return new KafkaTemplate<>(cacheInvalidationProducerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, CacheInvalidationEvent> cacheInvalidationConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // Only invalidations published after this node started matter; its caches start empty
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        JsonDeserializer<CacheInvalidationEvent> valueDeserializer = new JsonDeserializer<>(CacheInvalidationEvent.class, false);
+        valueDeserializer.addTrustedPackages("org.splitzy.expense.dto");
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), valueDeserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CacheInvalidationEvent> cacheInvalidationListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CacheInvalidationEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(cacheInvalidationConsumerFactory());
+        // MANUAL with a listener that never acknowledges: the container commits nothing
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -0,0 +1,21 @@
+package org.splitzy.expense.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers match_against(title, description, notes, term) so Specifications can filter on the MySQL
+ * FULLTEXT index; renders as natural language MATCH ... AGAINST and returns the relevance score
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    public static final String MATCH_AGAINST = "match_against";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(MATCH_AGAINST,
+                "match (?1, ?2, ?3) against (?4 in natural language mode)",
+                functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE));
+    }
+}
@@ -1,44 +1,99 @@
 package org.splitzy.expense.config;
 
-import com.fasterxml.jackson.databind.JsonSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.splitzy.expense.dto.ExpenseEvent;
+import org.splitzy.expense.serialization.ExpenseEventBinarySerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Producer for expense events, tuned by a ProducerProfile.
+ * Individual profile settings can be overridden; -1 or an empty value keeps the profile's choice.
+ * Values go out as JSON or, with value-format BINARY, in the compact ExpenseEventBinarySerializer layout;
+ * consumers must be able to read BINARY before it is switched on.
+ */
+@Slf4j
 @Configuration
 @EnableKafka
 public class KafkaProducerConfig {
 
+    private static final String PRODUCER_NAME = "expense-events";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${expense.kafka.producer.profile:THROUGHPUT}")
+    private ProducerProfile profile;
+
+    @Value("${expense.kafka.producer.value-format:JSON}")
+    private ValueFormat valueFormat;
+
+    @Value("${expense.kafka.producer.linger-ms:-1}")
+    private int lingerMs;
+
+    @Value("${expense.kafka.producer.batch-size:-1}")
+    private int batchSize;
+
+    @Value("${expense.kafka.producer.compression-type:}")
+    private String compressionType;
+
     @Bean
-    public ProducerFactory<String, ExpenseEvent> producerFactory(){
+    public ProducerFactory<String, ExpenseEvent> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        configProps.put(ProducerConfig.ACKS_CONFIG, "all"); // wait for all replics
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1); // Maintain order
-        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "snappy");
-        configProps.put("spring.json.add.type.headers", false);
-
-        return new DefaultKafkaProducerFactory<>(configProps);
+        if (valueFormat == ValueFormat.BINARY) {
+            configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ExpenseEventBinarySerializer.class);
+        } else {
+            configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+            configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        }
+        profile.applyTo(configProps);
+        if (lingerMs >= 0) {
+            configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        }
+        if (batchSize > 0) {
+            configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        }
+        if (!compressionType.isBlank()) {
+            configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        }
+        log.info("Expense event producer profile {} ({}): linger.ms={}, batch.size={}, compression.type={}", profile, valueFormat,
+                configProps.get(ProducerConfig.LINGER_MS_CONFIG), configProps.get(ProducerConfig.BATCH_SIZE_CONFIG),
+                configProps.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+
+        DefaultKafkaProducerFactory<String, ExpenseEvent> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Binds the client's own metrics (record-send-rate, batch-size-avg, request-latency-avg, ...)
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry,
+                List.of(Tag.of("producer", PRODUCER_NAME), Tag.of("profile", profile.name()))));
+        return factory;
     }
 
     @Bean
-    public KafkaTemplate<String, ExpenseEvent> kafkaTemplate(){
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaTemplate<String, ExpenseEvent> kafkaTemplate(ProducerFactory<String, ExpenseEvent> producerFactory,
+                                                             MeterRegistry meterRegistry) {
+        KafkaTemplate<String, ExpenseEvent> template = new KafkaTemplate<>(producerFactory);
+        template.setProducerListener(new ProducerMetricsListener<>(meterRegistry, PRODUCER_NAME, profile));
+        return template;
+    }
+
+    public enum ValueFormat {
+        JSON,
+        BINARY
     }
 }
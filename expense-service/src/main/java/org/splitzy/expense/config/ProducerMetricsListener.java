@@ -0,0 +1,54 @@
+package org.splitzy.expense.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.kafka.support.ProducerListener;
+
+import java.time.Duration;
+
+/**
+ * Send completion callback that turns acknowledgements into metrics.
+ * Runs on the producer's I/O thread, so it only touches pre-registered meters. Latency is measured from
+ * the record's create timestamp, which the producer stamps when send() is called.
+ */
+@Slf4j
+public class ProducerMetricsListener<K, V> implements ProducerListener<K, V> {
+
+    private final Counter acknowledged;
+    private final Counter failed;
+    private final Timer latency;
+
+    public ProducerMetricsListener(MeterRegistry meterRegistry, String producer, ProducerProfile profile) {
+        this.acknowledged = Counter.builder("kafka.producer.sends")
+                .description("Records acknowledged by the broker")
+                .tags("producer", producer, "profile", profile.name(), "outcome", "success")
+                .register(meterRegistry);
+        this.failed = Counter.builder("kafka.producer.sends")
+                .description("Records the producer gave up on")
+                .tags("producer", producer, "profile", profile.name(), "outcome", "failure")
+                .register(meterRegistry);
+        this.latency = Timer.builder("kafka.producer.send.latency")
+                .description("Time from send() to the broker acknowledgement")
+                .tags("producer", producer, "profile", profile.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onSuccess(ProducerRecord<K, V> record, RecordMetadata metadata) {
+        acknowledged.increment();
+        if (metadata.hasTimestamp()) {
+            latency.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - metadata.timestamp())));
+        }
+    }
+
+    @Override
+    public void onError(ProducerRecord<K, V> record, RecordMetadata metadata, Exception exception) {
+        failed.increment();
+        log.warn("Failed to send record with key {} to {}: {}", record.key(), record.topic(), exception.getMessage());
+    }
+}
@@ -0,0 +1,45 @@
+package org.splitzy.expense.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Batching presets for the expense event producer.
+ * Every profile is idempotent with acks=all, so up to five requests per connection can be in flight
+ * without reordering or duplicating records on retry; they only trade publish latency for batch size.
+ */
+public enum ProducerProfile {
+
+    // Wait up to 20 ms to fill large zstd batches, for bulk imports and outbox backlogs; the default
+    THROUGHPUT(20, 256 * 1024, "zstd"),
+    // Short linger with cheap compression, for mixed traffic
+    BALANCED(5, 64 * 1024, "lz4"),
+    // Send as soon as the I/O thread is free
+    LOW_LATENCY(0, 16 * 1024, "none");
+
+    private static final int MAX_IN_FLIGHT = 5;
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+
+    ProducerProfile(int lingerMs, int batchSize, String compressionType) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+    }
+
+    /**
+     * Write this profile's settings into a producer config map
+     */
+    public void applyTo(Map<String, Object> configProps) {
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE); // Bounded by delivery.timeout.ms
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, MAX_IN_FLIGHT);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+    }
+}
@@ -1,15 +1,23 @@
 package org.splitzy.expense.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.splitzy.common.dto.ApiResponse;
+import org.splitzy.common.dto.CursorPageResponse;
+import org.splitzy.expense.dto.request.SettleBetweenUsersRequest;
 import org.splitzy.expense.dto.response.BalanceResponse;
+import org.splitzy.expense.dto.response.SettleBetweenUsersResponse;
+import org.splitzy.expense.dto.response.GroupBalanceResponse;
 import org.splitzy.expense.service.BalanceService;
+import org.splitzy.expense.service.SplitSettlementService;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/balances")
@@ -17,17 +25,32 @@ import org.springframework.web.bind.annotation.*;
 public class BalanceController {
 
     private final BalanceService balanceService;
+    private final SplitSettlementService splitSettlementService;
 
     /**
-     * Get all balances for user
+     * Get balance totals for user
      */
     @GetMapping
-    @Operation(summary = "Get all balances", description = "Get all balances and settlement status for user")
-    public ResponseEntity<ApiResponse<BalanceResponse>> getUserBalances(@RequestHeader("X-User-Id") Long userId) {
+    @Operation(summary = "Get balance summary", description = "Get what the user owes and is owed in total, per currency")
+    public ResponseEntity<ApiResponse<List<BalanceResponse>>> getUserBalanceSummary(@RequestHeader("X-User-Id") Long userId) {
+        log.info("Get balance summary request for user: {}", userId);
+
+        List<BalanceResponse> response = balanceService.getUserBalanceSummary(userId);
+        ApiResponse<List<BalanceResponse>> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Get all balances for user
+     */
+    @GetMapping("/details")
+    @Operation(summary = "Get all balances", description = "Get all balances and settlement status for user, per currency")
+    public ResponseEntity<ApiResponse<List<BalanceResponse>>> getUserBalances(@RequestHeader("X-User-Id") Long userId) {
         log.info("Get balances request for user: {}", userId);
 
-        BalanceResponse response = balanceService.getUserBalances(userId);
-        ApiResponse<BalanceResponse> apiResponse = ApiResponse.success(response);
+        List<BalanceResponse> response = balanceService.getUserBalances(userId);
+        ApiResponse<List<BalanceResponse>> apiResponse = ApiResponse.success(response);
 
         return ResponseEntity.ok(apiResponse);
     }
@@ -36,14 +59,48 @@ public class BalanceController {
      * Get balance between two users
      */
     @GetMapping("/between/{otherUserId}")
-    @Operation(summary = "Get balance between users", description = "Get balance and settlement status between two users")
-    public ResponseEntity<ApiResponse<BalanceResponse>> getBalanceBetweenUsers(
+    @Operation(summary = "Get balance between users", description = "Get balance and settlement status between two users, per currency")
+    public ResponseEntity<ApiResponse<List<BalanceResponse>>> getBalanceBetweenUsers(
             @RequestHeader("X-User-Id") Long userId,
             @PathVariable Long otherUserId) {
         log.info("Get balance between users: {} and {}", userId, otherUserId);
 
-        BalanceResponse response = balanceService.getBalanceBetweenUsers(userId, otherUserId);
-        ApiResponse<BalanceResponse> apiResponse = ApiResponse.success(response);
+        List<BalanceResponse> response = balanceService.getBalanceBetweenUsers(userId, otherUserId);
+        ApiResponse<List<BalanceResponse>> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Get outstanding debts inside a group
+     */
+    @GetMapping("/group/{groupId}")
+    @Operation(summary = "Get group balances", description = "Get outstanding debts between members of a group")
+    public ResponseEntity<ApiResponse<GroupBalanceResponse>> getGroupBalances(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long groupId) {
+        log.info("Get balances for group {} by user {}", groupId, userId);
+
+        GroupBalanceResponse response = balanceService.getGroupBalances(groupId, userId);
+        ApiResponse<GroupBalanceResponse> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Pay another user, settling the splits owed to them oldest first
+     */
+    @PostMapping("/settle-with/{otherUserId}")
+    @Operation(summary = "Settle with user", description = "Apply a payment to the oldest unsettled splits owed to another user")
+    public ResponseEntity<ApiResponse<SettleBetweenUsersResponse>> settleWithUser(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long otherUserId,
+            @Valid @RequestBody SettleBetweenUsersRequest request) {
+        log.info("Settle request from user {} to user {} for {} {}", userId, otherUserId, request.getAmount(), request.getCurrency());
+
+        SettleBetweenUsersResponse response = splitSettlementService.settleBetweenUsers(userId, otherUserId,
+                request.getAmount(), request.getCurrency());
+        ApiResponse<SettleBetweenUsersResponse> apiResponse = ApiResponse.success(response, "Payment applied successfully");
 
         return ResponseEntity.ok(apiResponse);
     }
@@ -65,6 +122,23 @@ public class BalanceController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    /**
+     * Get balances with cursor (keyset) pagination
+     */
+    @GetMapping("/cursor")
+    @Operation(summary = "Get balances by cursor", description = "Get user balances with keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPageResponse<BalanceResponse.IndividualBalance>>> getBalancesByCursor(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Get balances by cursor for user: {}", userId);
+
+        CursorPageResponse<BalanceResponse.IndividualBalance> response = balanceService.getUserBalancesByCursor(userId, cursor, size);
+        ApiResponse<CursorPageResponse<BalanceResponse.IndividualBalance>> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
     /**
      * Health check
      */
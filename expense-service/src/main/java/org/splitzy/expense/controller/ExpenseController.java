@@ -3,19 +3,28 @@ package org.splitzy.expense.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import org.splitzy.common.dto.ApiResponse;
+import org.splitzy.common.dto.CursorPageResponse;
 import org.splitzy.common.dto.PageResponse;
 import org.splitzy.expense.dto.ExpenseSearchCriteria;
+import org.splitzy.expense.dto.request.BulkCreateExpenseRequest;
 import org.splitzy.expense.dto.request.CreateExpenseRequest;
 import org.splitzy.expense.dto.request.UpdateExpenseRequest;
 import org.splitzy.expense.dto.response.ExpenseResponse;
 import org.splitzy.expense.dto.response.ExpenseStatisticsResponse;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.service.ExpenseExportService;
 import org.splitzy.expense.service.ExpenseService;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RestController
@@ -23,6 +32,7 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class ExpenseController {
     private final ExpenseService expenseService;
+    private final ExpenseExportService expenseExportService;
 
     /** Create a new expense */
     @PostMapping("/create")
@@ -37,6 +47,19 @@ public class ExpenseController {
         return ResponseEntity.status(HttpStatus.CREATED).body(apiResponse);
     }
 
+    /** Create many expenses in one request (statement / ledger import) */
+    @PostMapping("/bulk-create")
+    public ResponseEntity<ApiResponse<List<ExpenseResponse>>> createExpenses(
+            @Valid @RequestBody BulkCreateExpenseRequest request,
+            @RequestHeader("X-User-Id") Long userId) {
+        log.info("Bulk create request for {} expenses from user: {}", request.getExpenses().size(), userId);
+
+        List<ExpenseResponse> response = expenseService.createExpenses(request.getExpenses(), userId);
+        ApiResponse<List<ExpenseResponse>> apiResponse = ApiResponse.success(response, "Expenses created successfully");
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(apiResponse);
+    }
+
     /** Get expense by ID */
     @GetMapping("/{expenseId}")
     public ResponseEntity<ApiResponse<ExpenseResponse>> getExpense(
@@ -74,7 +97,14 @@ public class ExpenseController {
             @RequestParam(required = false) String sortDirection,
             @RequestParam(required = false) String searchTerm,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateFrom,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dateTo,
+            @RequestParam(required = false) List<Expense.ExpenseCategory> categories,
+            @RequestParam(required = false) Expense.ExpenseStatus status,
+            @RequestParam(required = false) Expense.SplitType splitType,
+            @RequestParam(required = false) Long paidByUserId,
+            @RequestParam(required = false) Long groupId,
+            @RequestParam(required = false) BigDecimal amountMin,
+            @RequestParam(required = false) BigDecimal amountMax) {
         log.info("Get expenses request for user: {}", userId);
 
         ExpenseSearchCriteria criteria = ExpenseSearchCriteria.builder()
@@ -86,6 +116,13 @@ public class ExpenseController {
                 .searchTerm(searchTerm)
                 .dateFrom(dateFrom)
                 .dateTo(dateTo)
+                .categories(categories)
+                .status(status)
+                .splitType(splitType)
+                .paidByUserId(paidByUserId)
+                .groupId(groupId)
+                .amountMin(amountMin)
+                .amountMax(amountMax)
                 .build();
 
         PageResponse<ExpenseResponse> response = expenseService.getUserExpenses(userId, criteria);
@@ -94,6 +131,50 @@ public class ExpenseController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    /** Stream the user's full expense history as CSV or NDJSON */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportExpenses(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(defaultValue = "CSV") ExpenseExportService.ExportFormat format) {
+        log.info("Export expenses request for user: {} as {}", userId, format);
+
+        StreamingResponseBody body = outputStream -> expenseExportService.exportUserExpenses(userId, format, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"expenses-" + userId + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    /** Search user's expenses by title, description and notes */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<ExpenseResponse>>> searchExpenses(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        log.info("Search expenses request for user: {}", userId);
+
+        List<ExpenseResponse> response = expenseService.searchExpenses(userId, query, limit);
+        ApiResponse<List<ExpenseResponse>> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /** Get user's expenses newest first with cursor (keyset) pagination */
+    @GetMapping("/getAll/cursor")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ExpenseResponse>>> getUserExpensesByCursor(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer size) {
+        log.info("Get expenses by cursor request for user: {}", userId);
+
+        CursorPageResponse<ExpenseResponse> response = expenseService.getUserExpensesByCursor(userId, cursor, size);
+        ApiResponse<CursorPageResponse<ExpenseResponse>> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
     /** Delete expense */
     @DeleteMapping("/{expenseId}")
     public ResponseEntity<ApiResponse<String>> deleteExpense(
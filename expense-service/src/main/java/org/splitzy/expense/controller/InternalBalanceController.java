@@ -0,0 +1,105 @@
+package org.splitzy.expense.controller;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.dto.ApiResponse;
+import org.splitzy.common.exception.BusinessException;
+import org.splitzy.expense.dto.request.BatchSettleRequest;
+import org.splitzy.expense.dto.response.BatchSettleResponse;
+import org.splitzy.expense.dto.response.GroupBalanceResponse;
+import org.splitzy.expense.service.BalanceService;
+import org.splitzy.expense.service.SplitSettlementService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Balance endpoints for other services, not routed through the gateway. Every call must carry
+ * the shared service token; with no token configured the endpoints reject everything.
+ */
+@Slf4j
+@Hidden
+@RestController
+@RequestMapping("/internal/balances")
+@RequiredArgsConstructor
+public class InternalBalanceController {
+
+    private static final String SERVICE_TOKEN_HEADER = "X-Service-Token";
+
+    private final BalanceService balanceService;
+    private final SplitSettlementService splitSettlementService;
+
+    @Value("${expense.internal.service-token:}")
+    private String serviceToken;
+
+    /**
+     * Get outstanding debts inside a group, for settlement planning
+     */
+    @GetMapping("/group/{groupId}")
+    public ResponseEntity<ApiResponse<GroupBalanceResponse>> getGroupBalances(
+            @RequestHeader(value = SERVICE_TOKEN_HEADER, required = false) String token,
+            @PathVariable Long groupId) {
+        verifyServiceToken(token);
+        log.info("Internal get balances for group: {}", groupId);
+
+        GroupBalanceResponse response = balanceService.getGroupBalances(groupId);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Whether a user takes part in the group, for services acting on that user's behalf
+     */
+    @GetMapping("/group/{groupId}/members/{userId}")
+    public ResponseEntity<ApiResponse<Boolean>> isGroupMember(
+            @RequestHeader(value = SERVICE_TOKEN_HEADER, required = false) String token,
+            @PathVariable Long groupId,
+            @PathVariable Long userId) {
+        verifyServiceToken(token);
+        log.info("Internal membership check for user {} in group {}", userId, groupId);
+
+        boolean member = balanceService.isGroupMember(groupId, userId);
+        return ResponseEntity.ok(ApiResponse.success(member));
+    }
+
+    /**
+     * Settle all outstanding splits between many user pairs in one transaction
+     */
+    @PostMapping("/settle-batch")
+    public ResponseEntity<ApiResponse<BatchSettleResponse>> settleBatch(
+            @RequestHeader(value = SERVICE_TOKEN_HEADER, required = false) String token,
+            @Valid @RequestBody BatchSettleRequest request) {
+        verifyServiceToken(token);
+        log.info("Batch settle request for {} pairs", request.getPairs().size());
+
+        BatchSettleResponse response = splitSettlementService.settlePairs(request);
+        return ResponseEntity.ok(ApiResponse.success(response, "Pairs settled successfully"));
+    }
+
+    /**
+     * Outcome of an earlier batch settlement, 404 when the reference never settled
+     */
+    @GetMapping("/settle-batch/{reference}")
+    public ResponseEntity<ApiResponse<BatchSettleResponse>> getSettledBatch(
+            @RequestHeader(value = SERVICE_TOKEN_HEADER, required = false) String token,
+            @PathVariable String reference) {
+        verifyServiceToken(token);
+        log.info("Get settled batch: {}", reference);
+
+        BatchSettleResponse response = splitSettlementService.getSettledBatch(reference);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    private void verifyServiceToken(String token) {
+        // Constant-time compare so the token cannot be guessed byte by byte from response timing
+        if (serviceToken.isEmpty() || token == null
+                || !MessageDigest.isEqual(serviceToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new BusinessException("Missing or invalid service token", HttpStatus.UNAUTHORIZED, "INVALID_SERVICE_TOKEN");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.splitzy.expense.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+//  Batched cache invalidation broadcast between expense-service replicas
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationEvent {
+
+    private String originNodeId;
+    private Map<String, List<Long>> keysByCache; // cache name -> expense ids or user ids
+    private long firstInvalidatedAt;            // epoch millis of the oldest invalidation in the batch
+}
@@ -22,6 +22,7 @@ public class ExpenseEvent {
     private BigDecimal totalAmount;
     private String currency;
     private Long paidByUserId;
+    private Long groupId;
     private List<Long> participantUserIds;
     private LocalDateTime eventTimestamp;
     private String notes;
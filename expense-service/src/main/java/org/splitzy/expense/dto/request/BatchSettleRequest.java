@@ -0,0 +1,40 @@
+package org.splitzy.expense.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Request DTO for settling every outstanding split between many user pairs at once
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSettleRequest {
+
+    @NotNull(message = "Pairs are required")
+    @Size(min = 1, max = 1000, message = "Between 1 and 1000 pairs can be settled at once")
+    @Valid
+    private List<PairSettlement> pairs;
+
+    @Size(max = 64, message = "Reference cannot exceed 64 characters")
+    private String reference;   // Caller's id for the batch; a repeated reference returns the first outcome
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PairSettlement {
+
+        @NotNull(message = "User 1 is required")
+        private Long user1Id;
+
+        @NotNull(message = "User 2 is required")
+        private Long user2Id;
+    }
+}
@@ -0,0 +1,24 @@
+package org.splitzy.expense.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Request DTO for importing many expenses in one call (statements, trip ledgers)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateExpenseRequest {
+
+    @NotNull(message = "Expenses are required")
+    @Size(min = 1, max = 5000, message = "Between 1 and 5000 expenses can be imported at once")
+    @Valid
+    private List<CreateExpenseRequest> expenses;
+}
@@ -0,0 +1,30 @@
+package org.splitzy.expense.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Request DTO for a payment from the current user to another user, applied to their oldest splits first
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettleBetweenUsersRequest {
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than 0")
+    @Digits(integer = 10, fraction = 2, message = "Invalid amount format")
+    private BigDecimal amount;
+
+    @NotBlank(message = "Currency is required")
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Currency must be a valid 3-letter ISO code")
+    private String currency;    // Only splits of expenses in this currency are paid
+}
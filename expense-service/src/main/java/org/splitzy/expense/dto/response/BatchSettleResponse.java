@@ -0,0 +1,35 @@
+package org.splitzy.expense.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Response DTO for a batch settlement
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSettleResponse {
+
+    private String reference;
+    private int settledSplitCount;
+    private List<Long> settledExpenseIds;   // Expenses that became fully settled
+    private List<PairResult> pairs;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PairResult {
+        private Long user1Id;
+        private Long user2Id;
+        private int settledSplitCount;
+        private BigDecimal user1Paid;     // Outstanding split amounts user1 owed user2 and has now settled
+        private BigDecimal user2Paid;     // Outstanding split amounts user2 owed user1 and has now settled
+        private String currency;
+    }
+}
@@ -0,0 +1,31 @@
+package org.splitzy.expense.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Response DTO for the outstanding debts inside a group, one entry per debtor -> creditor pair
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBalanceResponse {
+
+    private Long groupId;
+    private List<Debt> debts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Debt {
+        private Long debtorId;
+        private Long creditorId;
+        private BigDecimal amount;
+        private String currency;
+    }
+}
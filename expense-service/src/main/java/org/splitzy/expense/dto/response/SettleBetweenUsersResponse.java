@@ -0,0 +1,26 @@
+package org.splitzy.expense.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Response DTO for a payment applied across the splits one user owes another
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettleBetweenUsersResponse {
+
+    private Long payerUserId;
+    private Long payeeUserId;
+    private BigDecimal amountApplied;
+    private String currency;
+    private BigDecimal remainingOwed;        // What the payer still owes the payee on splits
+    private int settledSplitCount;           // Splits now fully settled
+    private Long partiallySettledSplitId;    // The split the payment ran out on, if any
+    private List<Long> settledExpenseIds;    // Expenses that became fully settled
+}
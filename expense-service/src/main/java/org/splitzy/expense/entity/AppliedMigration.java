@@ -0,0 +1,33 @@
+package org.splitzy.expense.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.splitzy.common.entity.BaseEntity;
+
+/**
+ * Marker of a one-shot migration that has completed; its presence is what stops the migration running again
+ */
+@Entity
+@Table(name = "applied_migrations", indexes = {
+        @Index(name = "idx_applied_migration_version", columnList = "version", unique = true)
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppliedMigration extends BaseEntity {
+
+    @Column(name = "version", nullable = false, length = 64)
+    private String version;
+
+    @Column(name = "description", length = 255)
+    private String description;
+}
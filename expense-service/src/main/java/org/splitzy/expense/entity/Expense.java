@@ -2,6 +2,7 @@ package org.splitzy.expense.entity;
 
 import org.splitzy.common.entity.BaseEntity;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,7 +22,12 @@ import java.util.List;
         @Index(name = "idx_category", columnList = "category"),
         @Index(name = "idx_expense_date", columnList = "expense_date"),
         @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+        @Index(name = "idx_created_at", columnList = "created_at"),
+        @Index(name = "idx_paid_by_active_date", columnList = "paid_by_user_id, is_active, expense_date, id"),
+        @Index(name = "idx_active_date", columnList = "is_active, expense_date, id"),
+        @Index(name = "idx_active_category_date", columnList = "is_active, category, expense_date"),
+        @Index(name = "idx_active_status_date", columnList = "is_active, status, expense_date"),
+        @Index(name = "idx_group_active_date", columnList = "group_id, is_active, expense_date")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -73,6 +79,7 @@ public class Expense extends BaseEntity {
     private ExpenseStatus status = ExpenseStatus.ACTIVE;
 
     @OneToMany(mappedBy = "expense", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     @Builder.Default
     private List<ExpenseSplit> splits = new ArrayList<>();
 
@@ -0,0 +1,50 @@
+package org.splitzy.expense.entity;
+
+import org.splitzy.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Daily per-user expense totals, maintained on every expense write so statistics
+ * are an index range aggregate instead of a scan over expenses and splits
+ */
+@Entity
+@Table(name = "expense_daily_rollups", indexes = {
+        @Index(name = "idx_rollup_user_day", columnList = "user_id, rollup_date, category, currency", unique = true),
+        @Index(name = "idx_rollup_day", columnList = "rollup_date")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseDailyRollup extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category", nullable = false)
+    private Expense.ExpenseCategory category;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "paid_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal paidAmount = BigDecimal.ZERO;   // Total of expenses paid by the user
+
+    @Column(name = "owed_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal owedAmount = BigDecimal.ZERO;   // Outstanding (unsettled) split amounts of the user
+}
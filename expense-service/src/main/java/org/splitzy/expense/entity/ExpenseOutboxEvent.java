@@ -0,0 +1,44 @@
+package org.splitzy.expense.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.splitzy.common.entity.BaseEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Expense event waiting to be relayed to Kafka.
+ * Rows are written in the same transaction as the expense change they describe and deleted once the
+ * relay has the broker's acknowledgement, so the primary key order is the publish order. While a relay
+ * is sending a row it holds a lease on it, recorded in claimed_by and claimed_until.
+ */
+@Entity
+@Table(name = "expense_outbox")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseOutboxEvent extends BaseEntity {
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;       // Expense id, used as the record key
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;         // Serialized ExpenseEvent
+
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;       // Relay instance sending the row
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
@@ -18,7 +18,8 @@ import java.math.BigDecimal;
         @Index(name = "idx_expense", columnList = "expense_id"),
         @Index(name = "idx_user", columnList = "user_id"),
         @Index(name = "idx_paid_status", columnList = "is_settled"),
-        @Index(name = "idx_expense_user", columnList = "expense_id, user_id", unique = true)
+        @Index(name = "idx_expense_user", columnList = "expense_id, user_id", unique = true),
+        @Index(name = "idx_user_expense", columnList = "user_id, expense_id")
 })
 @Data
 @EqualsAndHashCode(callSuper = true, exclude = "expense")
@@ -0,0 +1,35 @@
+package org.splitzy.expense.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.splitzy.common.entity.BaseEntity;
+
+/**
+ * Outcome of a batch settlement, keyed by the caller's reference.
+ * Written in the settling transaction, so a reference is present exactly when its splits were settled
+ * and a repeated request is answered from here instead of being applied again.
+ */
+@Entity
+@Table(name = "settled_batches", indexes = {
+        @Index(name = "idx_settled_batch_reference", columnList = "reference", unique = true)
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettledBatch extends BaseEntity {
+
+    @Column(name = "reference", nullable = false, length = 64)
+    private String reference;
+
+    @Column(name = "result", nullable = false, columnDefinition = "TEXT")
+    private String result;          // Serialized BatchSettleResponse
+}
@@ -12,9 +12,11 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "user_balances", indexes = {
-        @Index(name = "idx_user1", columnList = "user1_id"),
-        @Index(name = "idx_user2", columnList = "user2_id"),
-        @Index(name = "idx_users_pair", columnList = "user1_id, user2_id", unique = true)
+        // Cover the per-user balance scans; replace idx_user1 / idx_user2, dropped by SchemaMigrationService
+        @Index(name = "idx_user1_balance", columnList = "user1_id, balance_amount"),
+        @Index(name = "idx_user2_balance", columnList = "user2_id, balance_amount"),
+        // One row per pair and currency; replaces idx_users_pair, dropped by SchemaMigrationService
+        @Index(name = "idx_users_pair_currency", columnList = "user1_id, user2_id, currency", unique = true)
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
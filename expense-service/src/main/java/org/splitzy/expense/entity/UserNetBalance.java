@@ -0,0 +1,42 @@
+package org.splitzy.expense.entity;
+
+import org.splitzy.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-user totals across all pairwise balances, kept in step with every user_balances change
+ * so the dashboard reads one row instead of scanning both sides of user_balances
+ */
+@Entity
+@Table(name = "user_net_balances", indexes = {
+        @Index(name = "idx_net_user_currency", columnList = "user_id, currency", unique = true)
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserNetBalance extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    @Builder.Default
+    private String currency = "INR";
+
+    @Column(name = "owed_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal owedAmount = BigDecimal.ZERO;     // Total the user owes to others
+
+    @Column(name = "owed_to_amount", nullable = false, precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal owedToAmount = BigDecimal.ZERO;   // Total others owe to the user
+}
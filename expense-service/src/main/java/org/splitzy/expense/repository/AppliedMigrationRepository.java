@@ -0,0 +1,13 @@
+package org.splitzy.expense.repository;
+
+import org.splitzy.expense.entity.AppliedMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+// Repository for AppliedMigration entity operations
+@Repository
+public interface AppliedMigrationRepository extends JpaRepository<AppliedMigration, Long> {
+
+    // Whether the migration has completed (seek on idx_applied_migration_version)
+    boolean existsByVersion(String version);
+}
@@ -0,0 +1,183 @@
+package org.splitzy.expense.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * JDBC batch writer for the bulk import path.
+ * BaseEntity ids use IDENTITY, which makes Hibernate insert row by row, so bulk inserts bypass the
+ * persistence context. With rewriteBatchedStatements each chunk becomes one multi-row INSERT, MySQL
+ * hands out a consecutive auto-increment block for it and the ids come back through getGeneratedKeys.
+ */
+@Slf4j
+@Repository
+public class ExpenseBatchRepository {
+
+    private static final String INSERT_EXPENSE_SQL = "INSERT INTO expenses (title, description, total_amount, currency, " +
+            "paid_by_user_id, expense_date, category, split_type, group_id, notes, receipt_url, status, " +
+            "created_at, updated_at, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SPLIT_SQL = "INSERT INTO expense_splits (expense_id, user_id, amount, percentage, " +
+            "shares, is_settled, settled_amount, notes, created_at, updated_at, is_active) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SETTLED_SQL = "UPDATE expense_splits SET settled_amount = ?, is_settled = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ExpenseBatchRepository(JdbcTemplate jdbcTemplate,
+                                  @Value("${expense.bulk.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Insert expenses and their splits in JDBC batches, assigning the generated ids back onto the entities
+     */
+    public void insertAll(List<Expense> expenses) {
+        for (int from = 0; from < expenses.size(); from += batchSize) {
+            List<Expense> chunk = expenses.subList(from, Math.min(from + batchSize, expenses.size()));
+            insertExpenses(chunk);
+        }
+
+        List<ExpenseSplit> splits = expenses.stream()
+                .flatMap(e -> e.getSplits().stream())
+                .toList();
+        for (int from = 0; from < splits.size(); from += batchSize) {
+            List<ExpenseSplit> chunk = splits.subList(from, Math.min(from + batchSize, splits.size()));
+            insertSplits(chunk);
+        }
+        log.debug("Batch inserted {} expenses with {} splits", expenses.size(), splits.size());
+    }
+
+    private void insertExpenses(List<Expense> expenses) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_EXPENSE_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Expense expense = expenses.get(i);
+                        ps.setString(1, expense.getTitle());
+                        ps.setString(2, expense.getDescription());
+                        ps.setBigDecimal(3, expense.getTotalAmount());
+                        ps.setString(4, expense.getCurrency());
+                        ps.setLong(5, expense.getPaidByUserId());
+                        ps.setDate(6, Date.valueOf(expense.getExpenseDate()));
+                        ps.setString(7, expense.getCategory().name());
+                        ps.setString(8, expense.getSplitType().name());
+                        setNullableLong(ps, 9, expense.getGroupId());
+                        ps.setString(10, expense.getNotes());
+                        ps.setString(11, expense.getReceiptUrl());
+                        ps.setString(12, expense.getStatus().name());
+                        ps.setTimestamp(13, Timestamp.valueOf(expense.getCreatedAt()));
+                        ps.setTimestamp(14, Timestamp.valueOf(expense.getUpdateAt()));
+                        ps.setBoolean(15, expense.getIsActive());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return expenses.size();
+                    }
+                },
+                keyHolder);
+
+        assignGeneratedIds(keyHolder, expenses.size(), i -> expenses.get(i)::setId);
+    }
+
+    private void insertSplits(List<ExpenseSplit> splits) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SPLIT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ExpenseSplit split = splits.get(i);
+                        ps.setLong(1, split.getExpense().getId());
+                        ps.setLong(2, split.getUserId());
+                        ps.setBigDecimal(3, split.getAmount());
+                        ps.setBigDecimal(4, split.getPercentage());
+                        if (split.getShares() != null) {
+                            ps.setInt(5, split.getShares());
+                        } else {
+                            ps.setNull(5, Types.INTEGER);
+                        }
+                        ps.setBoolean(6, split.getIsSettled());
+                        ps.setBigDecimal(7, split.getSettledAmount());
+                        ps.setString(8, split.getNotes());
+                        ps.setTimestamp(9, Timestamp.valueOf(split.getCreatedAt()));
+                        ps.setTimestamp(10, Timestamp.valueOf(split.getUpdateAt()));
+                        ps.setBoolean(11, split.getIsActive());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return splits.size();
+                    }
+                },
+                keyHolder);
+
+        assignGeneratedIds(keyHolder, splits.size(), i -> splits.get(i)::setId);
+    }
+
+    /**
+     * Add settled amounts to splits in one JDBC batch. The entities are left untouched, so the new
+     * values are written only here and not again by a dirty-check flush.
+     */
+    public void applySettlements(Map<ExpenseSplit, BigDecimal> settledAmounts) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(settledAmounts.size());
+        for (Map.Entry<ExpenseSplit, BigDecimal> entry : settledAmounts.entrySet()) {
+            ExpenseSplit split = entry.getKey();
+            BigDecimal alreadySettled = split.getSettledAmount() != null ? split.getSettledAmount() : BigDecimal.ZERO;
+            BigDecimal settled = alreadySettled.add(entry.getValue());
+            rows.add(new Object[]{settled, settled.compareTo(split.getAmount()) >= 0, now, split.getId()});
+        }
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(UPDATE_SETTLED_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+        log.debug("Batch updated settled amounts for {} splits", rows.size());
+    }
+
+    private void assignGeneratedIds(KeyHolder keyHolder, int expected,
+                                    IntFunction<Consumer<Long>> target) {
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != expected) {
+            throw new IllegalStateException("Expected " + expected + " generated keys but got " + keys.size());
+        }
+        for (int i = 0; i < expected; i++) {
+            Number key = (Number) keys.get(i).values().iterator().next();
+            target.apply(i).accept(key.longValue());
+        }
+    }
+
+    private void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.splitzy.expense.repository;
+
+import org.splitzy.expense.entity.ExpenseDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Repository for ExpenseDailyRollup entity operations
+@Repository
+public interface ExpenseDailyRollupRepository extends JpaRepository<ExpenseDailyRollup, Long> {
+
+    // Add paid/owed deltas to a (user, day, category, currency) bucket, creating it if needed
+    @Modifying
+    @Query(value = "INSERT INTO expense_daily_rollups (user_id, rollup_date, category, currency, paid_amount, owed_amount, created_at, updated_at, is_active) " +
+            "VALUES (:userId, :rollupDate, :category, :currency, :paidDelta, :owedDelta, NOW(), NOW(), true) " +
+            "ON DUPLICATE KEY UPDATE paid_amount = paid_amount + VALUES(paid_amount), owed_amount = owed_amount + VALUES(owed_amount), updated_at = NOW()",
+            nativeQuery = true)
+    void upsertDelta(@Param("userId") Long userId,
+                     @Param("rollupDate") LocalDate rollupDate,
+                     @Param("category") String category,
+                     @Param("currency") String currency,
+                     @Param("paidDelta") BigDecimal paidDelta,
+                     @Param("owedDelta") BigDecimal owedDelta);
+
+    // Aggregate a user's totals over a date range (seek on idx_rollup_user_day)
+    @Query("SELECT COALESCE(SUM(r.paidAmount), 0) AS paidAmount, COALESCE(SUM(r.owedAmount), 0) AS owedAmount " +
+            "FROM ExpenseDailyRollup r WHERE r.userId = :userId AND r.rollupDate BETWEEN :startDate AND :endDate")
+    RollupTotals sumForUser(@Param("userId") Long userId,
+                            @Param("startDate") LocalDate startDate,
+                            @Param("endDate") LocalDate endDate);
+
+    // Shared-lock the expenses and splits a rebuild of the date range reads, and the gaps between them on
+    // idx_expense_date, so writers that would post to the range wait for the rebuild to commit
+    @Query(value = "SELECT COUNT(*) FROM expenses e LEFT JOIN expense_splits s ON s.expense_id = e.id " +
+            "WHERE e.expense_date BETWEEN :startDate AND :endDate FOR SHARE",
+            nativeQuery = true)
+    long lockSourceRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Drop all buckets in a date range before a rebuild
+    @Modifying
+    @Query(value = "DELETE FROM expense_daily_rollups WHERE rollup_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Rebuild paid totals for a date range from expenses
+    @Modifying
+    @Query(value = "INSERT INTO expense_daily_rollups (user_id, rollup_date, category, currency, paid_amount, owed_amount, created_at, updated_at, is_active) " +
+            "SELECT agg.user_id, agg.rollup_date, agg.category, agg.currency, agg.paid, 0, NOW(), NOW(), true FROM (" +
+            "SELECT e.paid_by_user_id AS user_id, e.expense_date AS rollup_date, e.category AS category, e.currency AS currency, SUM(e.total_amount) AS paid " +
+            "FROM expenses e WHERE e.is_active = true AND e.expense_date BETWEEN :startDate AND :endDate " +
+            "GROUP BY e.paid_by_user_id, e.expense_date, e.category, e.currency) agg " +
+            "ON DUPLICATE KEY UPDATE paid_amount = paid_amount + agg.paid",
+            nativeQuery = true)
+    int rebuildPaid(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Rebuild outstanding owed totals for a date range from splits
+    @Modifying
+    @Query(value = "INSERT INTO expense_daily_rollups (user_id, rollup_date, category, currency, paid_amount, owed_amount, created_at, updated_at, is_active) " +
+            "SELECT agg.user_id, agg.rollup_date, agg.category, agg.currency, 0, agg.owed, NOW(), NOW(), true FROM (" +
+            "SELECT s.user_id AS user_id, e.expense_date AS rollup_date, e.category AS category, e.currency AS currency, " +
+            "SUM(s.amount - COALESCE(s.settled_amount, 0)) AS owed " +
+            "FROM expense_splits s JOIN expenses e ON e.id = s.expense_id " +
+            "WHERE e.is_active = true AND e.expense_date BETWEEN :startDate AND :endDate " +
+            "GROUP BY s.user_id, e.expense_date, e.category, e.currency) agg " +
+            "ON DUPLICATE KEY UPDATE owed_amount = owed_amount + agg.owed",
+            nativeQuery = true)
+    int rebuildOwed(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Earliest and latest expense dates, used to bound a full rebuild
+    @Query("SELECT MIN(e.expenseDate) FROM Expense e")
+    LocalDate findEarliestExpenseDate();
+
+    @Query("SELECT MAX(e.expenseDate) FROM Expense e")
+    LocalDate findLatestExpenseDate();
+
+    interface RollupTotals {
+        BigDecimal getPaidAmount();
+        BigDecimal getOwedAmount();
+    }
+}
@@ -0,0 +1,116 @@
+package org.splitzy.expense.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.entity.ExpenseOutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC access to the expense_outbox table.
+ * Writers append rows inside their own transaction. The relay leases the head of the table in a short
+ * transaction, publishes it with no transaction open and then deletes exactly the rows it published.
+ * A lease left by a relay that died expires, and the rows are delivered again.
+ */
+@Slf4j
+@Repository
+public class ExpenseOutboxBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO expense_outbox (aggregate_id, event_type, payload, " +
+            "created_at, updated_at, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Reads the head whether or not it is leased, so a claim never skips past rows another relay is sending
+    private static final String CLAIM_SQL = "SELECT id, aggregate_id, event_type, payload, created_at, " +
+            "claimed_until IS NOT NULL AND claimed_until > NOW() AS leased " +
+            "FROM expense_outbox ORDER BY id LIMIT ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ExpenseOutboxBatchRepository(JdbcTemplate jdbcTemplate,
+                                        @Value("${expense.bulk.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Append events in JDBC batches; with rewriteBatchedStatements each chunk is one multi-row INSERT
+     */
+    public void insertAll(List<ExpenseOutboxEvent> events) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (ExpenseOutboxEvent event : events) {
+            rows.add(new Object[]{event.getAggregateId(), event.getEventType(), event.getPayload(), now, now, Boolean.TRUE});
+        }
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+        log.debug("Appended {} events to the outbox", rows.size());
+    }
+
+    /**
+     * Lease the oldest rows up to the first one another relay still holds, and return them.
+     * Must run in a transaction: the head stays locked until the lease is written, so two relays never
+     * lease the same rows. Commit straight after; the lease, not the row lock, covers the send.
+     */
+    public List<OutboxRow> claimBatch(int limit, String owner, long leaseSeconds) {
+        List<OutboxRow> rows = jdbcTemplate.query(CLAIM_SQL, (ResultSetExtractor<List<OutboxRow>>) rs -> {
+            List<OutboxRow> head = new ArrayList<>();
+            // Keep outbox order: nothing after a row in flight may overtake it
+            while (rs.next() && !rs.getBoolean("leased")) {
+                head.add(new OutboxRow(
+                        rs.getLong("id"),
+                        rs.getLong("aggregate_id"),
+                        rs.getString("event_type"),
+                        rs.getString("payload"),
+                        rs.getTimestamp("created_at").toLocalDateTime()));
+            }
+            return head;
+        }, limit);
+        List<Long> ids = rows.stream().map(OutboxRow::id).toList();
+        updateByIds("UPDATE expense_outbox SET claimed_by = ?, claimed_until = DATE_ADD(NOW(), INTERVAL ? SECOND) WHERE id IN (",
+                ids, owner, leaseSeconds);
+        return rows;
+    }
+
+    /**
+     * Hand leased rows back so the next round, on any relay, retries them without waiting for the lease
+     */
+    public int release(List<Long> ids, String owner) {
+        return updateByIds("UPDATE expense_outbox SET claimed_by = NULL, claimed_until = NULL WHERE claimed_by = ? AND id IN (",
+                ids, owner);
+    }
+
+    /**
+     * Delete published rows by id. Ids are not a watermark: a row with a lower id can still be
+     * uncommitted when a later one is claimed.
+     */
+    public int deleteAll(List<Long> ids) {
+        return updateByIds("DELETE FROM expense_outbox WHERE id IN (", ids);
+    }
+
+    // Runs the statement per chunk of ids; the prefix ends with "id IN (" and takes the leading args
+    private int updateByIds(String prefix, List<Long> ids, Object... leadingArgs) {
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            List<Object> args = new ArrayList<>(leadingArgs.length + chunk.size());
+            args.addAll(Arrays.asList(leadingArgs));
+            args.addAll(chunk);
+            updated += jdbcTemplate.update(prefix + placeholders + ")", args.toArray());
+        }
+        return updated;
+    }
+
+    public record OutboxRow(long id, long aggregateId, String eventType, String payload, LocalDateTime createdAt) {
+    }
+}
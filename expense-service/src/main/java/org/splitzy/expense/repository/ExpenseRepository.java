@@ -3,6 +3,7 @@ package org.splitzy.expense.repository;
 import org.splitzy.expense.entity.Expense;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +21,10 @@ import java.util.Optional;
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpecificationExecutor<Expense> {
 
+    // Load an expense together with its splits in one query
+    @EntityGraph(attributePaths = "splits")
+    Optional<Expense> findWithSplitsById(Long id);
+
     // Find expenses by paid by user
     Page<Expense> findByPaidByUserIdAndIsActiveTrue(Long userId, Pageable pageable);
 
@@ -26,9 +32,45 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpec
     @Query("SELECT e FROM Expense e WHERE e.isActive = true AND (e.paidByUserId = :userId OR EXISTS (SELECT 1 FROM ExpenseSplit s WHERE s.expense = e AND s.userId = :userId))")
     Page<Expense> findUserExpenses(@Param("userId") Long userId, Pageable pageable);
 
+    // First keyset page of a user's expenses, newest first (no count query)
+    @Query("SELECT e FROM Expense e WHERE e.isActive = true AND (e.paidByUserId = :userId OR EXISTS (SELECT 1 FROM ExpenseSplit s WHERE s.expense = e AND s.userId = :userId)) ORDER BY e.expenseDate DESC, e.id DESC")
+    List<Expense> findUserExpensesFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    // Keyset page strictly after (expenseDate, id) in (expenseDate DESC, id DESC) order
+    @Query("SELECT e FROM Expense e WHERE e.isActive = true AND (e.paidByUserId = :userId OR EXISTS (SELECT 1 FROM ExpenseSplit s WHERE s.expense = e AND s.userId = :userId)) AND (e.expenseDate < :expenseDate OR (e.expenseDate = :expenseDate AND e.id < :id)) ORDER BY e.expenseDate DESC, e.id DESC")
+    List<Expense> findUserExpensesAfter(@Param("userId") Long userId,
+                                        @Param("expenseDate") LocalDate expenseDate,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    // Full-text match over title, description and notes (ft_expense_text, ngram parser), best match first
+    @Query(value = "SELECT e.id FROM expenses e WHERE e.is_active = true " +
+            "AND (e.paid_by_user_id = :userId OR EXISTS (SELECT 1 FROM expense_splits s WHERE s.expense_id = e.id AND s.user_id = :userId)) " +
+            "AND MATCH(e.title, e.description, e.notes) AGAINST (:term IN NATURAL LANGUAGE MODE) " +
+            "ORDER BY MATCH(e.title, e.description, e.notes) AGAINST (:term IN NATURAL LANGUAGE MODE) DESC, e.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Long> searchUserExpenseIds(@Param("userId") Long userId, @Param("term") String term, @Param("limit") int limit);
+
+    // Fallback text match when the full-text index is unavailable
+    @Query(value = "SELECT e.id FROM expenses e WHERE e.is_active = true " +
+            "AND (e.paid_by_user_id = :userId OR EXISTS (SELECT 1 FROM expense_splits s WHERE s.expense_id = e.id AND s.user_id = :userId)) " +
+            "AND (e.title LIKE :pattern OR e.description LIKE :pattern OR e.notes LIKE :pattern) " +
+            "ORDER BY e.expense_date DESC, e.id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Long> searchUserExpenseIdsLike(@Param("userId") Long userId, @Param("pattern") String pattern, @Param("limit") int limit);
+
+    // Highest expense id, the end of the id range for chunked maintenance jobs
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM Expense e")
+    long findMaxId();
+
     // Find expenses by group
     Page<Expense> findByGroupIdAndIsActiveTrue(Long groupId, Pageable pageable);
 
+    // Whether the user paid for or shares in any active expense of the group
+    @Query("SELECT COUNT(e) > 0 FROM Expense e WHERE e.groupId = :groupId AND e.isActive = true " +
+            "AND (e.paidByUserId = :userId OR EXISTS (SELECT 1 FROM ExpenseSplit s WHERE s.expense = e AND s.userId = :userId))")
+    boolean isGroupParticipant(@Param("groupId") Long groupId, @Param("userId") Long userId);
+
     // Find unsettled expenses for a user
     @Query("SELECT DISTINCT e FROM Expense e JOIN e.splits s WHERE e.isActive = true AND s.isSettled = false AND (e.paidByUserId = :userId OR s.userId = :userId)")
     Page<Expense> findUnsettledExpenses(@Param("userId") Long userId, Pageable pageable);
@@ -63,6 +105,11 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long>, JpaSpec
     @Query("UPDATE Expense e SET e.status = 'SETTLED' WHERE e.id = :expenseId")
     void markAsSettled(@Param("expenseId") Long expenseId);
 
+    // Of the given expenses, those where every participant other than the payer has settled
+    @Query("SELECT e.id FROM Expense e WHERE e.id IN :expenseIds AND e.status <> 'SETTLED' AND NOT EXISTS " +
+            "(SELECT 1 FROM ExpenseSplit s WHERE s.expense = e AND s.isSettled = false AND s.userId <> e.paidByUserId)")
+    List<Long> findFullySettledExpenseIds(@Param("expenseIds") Collection<Long> expenseIds);
+
     // Soft delete expense
     @Modifying
     @Query("UPDATE Expense e SET e.isActive = false WHERE e.id = :expenseId")
@@ -0,0 +1,33 @@
+package org.splitzy.expense.repository;
+
+import jakarta.persistence.criteria.Subquery;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Expense specific specifications that GenericCriteriaBuilder cannot express
+ */
+public final class ExpenseSpecifications {
+
+    private ExpenseSpecifications() {
+        // Utility class
+    }
+
+    /**
+     * Expenses the user paid for or has a split in, same predicate as ExpenseRepository.findUserExpenses
+     */
+    public static Specification<Expense> involvesUser(Long userId) {
+        return (root, query, cb) -> {
+            Subquery<Long> splitExists = query.subquery(Long.class);
+            var split = splitExists.from(ExpenseSplit.class);
+            splitExists.select(cb.literal(1L))
+                    .where(cb.equal(split.get("expense"), root),
+                            cb.equal(split.get("userId"), userId));
+
+            return cb.or(
+                    cb.equal(root.get("paidByUserId"), userId),
+                    cb.exists(splitExists));
+        };
+    }
+}
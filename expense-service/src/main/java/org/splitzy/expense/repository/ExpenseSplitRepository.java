@@ -1,15 +1,24 @@
 package org.splitzy.expense.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.splitzy.expense.entity.ExpenseSplit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 // Repository for ExpenseSplit entity operations
 @Repository
@@ -37,16 +46,78 @@ public interface ExpenseSplitRepository extends JpaRepository<ExpenseSplit, Long
     @Query("UPDATE ExpenseSplit s SET s.isSettled = true, s.settledAmount = s.amount WHERE s.id = :splitId")
     void markAsSettled(@Param("splitId") Long splitId);
 
+    // Mark many splits as settled in one statement
+    @Modifying
+    @Query("UPDATE ExpenseSplit s SET s.isSettled = true, s.settledAmount = s.amount WHERE s.id IN :splitIds")
+    int markAllAsSettled(@Param("splitIds") Collection<Long> splitIds);
+
+    // Unsettled splits in either direction between two users, with their expense, oldest first, locked until commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ExpenseSplit s JOIN FETCH s.expense e WHERE s.isSettled = false AND e.isActive = true AND e.status <> 'CANCELLED' " +
+            "AND ((s.userId = :user1Id AND e.paidByUserId = :user2Id) OR (s.userId = :user2Id AND e.paidByUserId = :user1Id)) " +
+            "ORDER BY e.expenseDate, e.id")
+    List<ExpenseSplit> lockUnsettledSplitsForPair(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
+
+    // Splits the user still owes the other user in a currency, oldest first, locked so concurrent payments apply one after another
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ExpenseSplit s JOIN FETCH s.expense e WHERE s.userId = :userId AND s.isSettled = false " +
+            "AND e.paidByUserId = :otherUserId AND e.currency = :currency AND e.isActive = true AND e.status <> 'CANCELLED' " +
+            "ORDER BY e.expenseDate, e.id")
+    List<ExpenseSplit> lockUnsettledSplitsOwedTo(@Param("userId") Long userId, @Param("otherUserId") Long otherUserId,
+                                                 @Param("currency") String currency);
+
     // Partially settle split
     @Modifying
     @Query("UPDATE ExpenseSplit s SET s.settledAmount = s.settledAmount + :amount WHERE s.id = :splitId")
     void partiallySettle(@Param("splitId") Long splitId, @Param("amount") BigDecimal amount);
 
+    // Rescale CUSTOM_RATIO percentages stored as 0..1 fractions to 0..100, recomputed from the split amount.
+    // The scale is decided per expense, not per row: fractions add up to about 1, shares on the 0..100 scale
+    // to about 100, so an expense with a genuine share of 1% or less is left alone
+    @Modifying
+    @Query(value = "UPDATE expense_splits s JOIN expenses e ON e.id = s.expense_id " +
+            "JOIN (SELECT f.expense_id FROM expense_splits f WHERE f.expense_id > :afterId AND f.expense_id <= :upToId " +
+            "GROUP BY f.expense_id HAVING SUM(f.percentage) <= 2) legacy ON legacy.expense_id = e.id " +
+            "SET s.percentage = ROUND(s.amount * 100 / e.total_amount, 2) " +
+            "WHERE e.split_type = 'CUSTOM_RATIO' AND e.total_amount <> 0 " +
+            "AND e.id > :afterId AND e.id <= :upToId",
+            nativeQuery = true)
+    int rescaleRatioPercentages(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
     // Count unsettled splits for user
     @Query("SELECT COUNT(s) FROM ExpenseSplit s WHERE s.userId = :userId AND s.isSettled = false")
     long countUnsettledSplits(@Param("userId") Long userId);
 
+    // Stream every split of a user's expenses with its expense fetched, grouped by expense for export
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM ExpenseSplit s JOIN FETCH s.expense e WHERE e.isActive = true AND (e.paidByUserId = :userId OR EXISTS (SELECT 1 FROM ExpenseSplit us WHERE us.expense = e AND us.userId = :userId)) ORDER BY e.expenseDate DESC, e.id DESC, s.userId")
+    Stream<ExpenseSplit> streamUserExpenseSplits(@Param("userId") Long userId);
+
+    // Find splits for a batch of expenses in one query (avoids a lazy load per expense)
+    @Query("SELECT s FROM ExpenseSplit s WHERE s.expense.id IN :expenseIds ORDER BY s.expense.id, s.userId")
+    List<ExpenseSplit> findByExpenseIds(@Param("expenseIds") Collection<Long> expenseIds);
+
+    // Outstanding debt per (debtor, creditor, currency) across a group's unsettled expenses
+    @Query(value = "SELECT s.user_id AS debtorId, e.paid_by_user_id AS creditorId, e.currency AS currency, " +
+            "SUM(s.amount - COALESCE(s.settled_amount, 0)) AS amount " +
+            "FROM expenses e JOIN expense_splits s ON s.expense_id = e.id " +
+            "WHERE e.group_id = :groupId AND e.is_active = true AND e.status <> 'CANCELLED' " +
+            "AND s.is_settled = false AND s.user_id <> e.paid_by_user_id " +
+            "GROUP BY s.user_id, e.paid_by_user_id, e.currency",
+            nativeQuery = true)
+    List<GroupDebt> findGroupDebts(@Param("groupId") Long groupId);
+
     // Find all splits for expense
     @Query("SELECT s FROM ExpenseSplit s WHERE s.expense.id = :expenseId ORDER BY s.userId")
     List<ExpenseSplit> findAllSplitsForExpense(@Param("expenseId") Long expenseId);
+
+    interface GroupDebt {
+        Long getDebtorId();
+        Long getCreditorId();
+        String getCurrency();
+        BigDecimal getAmount();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package org.splitzy.expense.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * MySQL named locks (GET_LOCK), for jobs that must run on one replica at a time.
+ * A named lock belongs to the connection that took it, so that connection is held for the whole job;
+ * the job itself runs its own transactions on other connections. The lock is freed if the node dies.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class NamedLockRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Run the task under the named lock. Returns false, without running it, when another node holds the lock.
+     */
+    public boolean runExclusively(String name, Runnable task) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!acquire(connection, name)) {
+                log.debug("Lock {} is held elsewhere, skipping", name);
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                release(connection, name);
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    private static boolean acquire(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static void release(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, name);
+            statement.executeQuery().close();
+        }
+    }
+}
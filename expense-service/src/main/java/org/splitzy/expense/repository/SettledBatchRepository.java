@@ -0,0 +1,15 @@
+package org.splitzy.expense.repository;
+
+import org.splitzy.expense.entity.SettledBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+// Repository for SettledBatch entity operations
+@Repository
+public interface SettledBatchRepository extends JpaRepository<SettledBatch, Long> {
+
+    // Find the recorded outcome of a batch settlement (seek on idx_settled_batch_reference)
+    Optional<SettledBatch> findByReference(String reference);
+}
@@ -0,0 +1,116 @@
+package org.splitzy.expense.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Applies many pairwise balance deltas as one JDBC batch of upserts.
+ * With rewriteBatchedStatements the batch goes to MySQL as a single multi-row INSERT ... ON DUPLICATE KEY UPDATE.
+ * Callers go through NetBalanceLedgerService so the per-user ledger moves with every change.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class UserBalanceBatchRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO user_balances (user1_id, user2_id, balance_amount, currency, created_at, updated_at, is_active) " +
+            "VALUES (?, ?, ?, ?, NOW(), NOW(), true) " +
+            "ON DUPLICATE KEY UPDATE balance_amount = balance_amount + VALUES(balance_amount)";
+
+    private static final String LOCK_SQL_PREFIX = "SELECT user1_id, user2_id, balance_amount FROM user_balances WHERE currency = ? AND (user1_id, user2_id) IN (";
+
+    private static final int LOCK_CHUNK_SIZE = 500;
+
+    private static final String LOCK_REVERSED_SQL = "SELECT id, user1_id, user2_id, balance_amount, currency FROM user_balances " +
+            "WHERE user1_id > user2_id AND id > ? ORDER BY id LIMIT ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Upsert canonical pair deltas in one currency, keyed on (user1_id, user2_id, currency).
+     * A sorted map keeps row lock order stable across concurrent posts.
+     */
+    public void upsertAll(SortedMap<BalancePair, BigDecimal> deltas, String currency) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<BalancePair, BigDecimal> entry : deltas.entrySet()) {
+            if (entry.getValue().signum() != 0) {
+                rows.add(new Object[]{entry.getKey().user1Id(), entry.getKey().user2Id(), entry.getValue(), currency});
+            }
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        log.debug("Upserted {} balance pairs", rows.size());
+    }
+
+    /**
+     * Read the current balance of each pair in the currency with a locking read, so callers see the latest
+     * committed value and hold the row until commit. Pairs without a row are absent from the result.
+     */
+    public Map<BalancePair, BigDecimal> lockPairs(Collection<BalancePair> pairs, String currency) {
+        Map<BalancePair, BigDecimal> balances = new HashMap<>();
+        List<BalancePair> ordered = new ArrayList<>(pairs);
+        for (int from = 0; from < ordered.size(); from += LOCK_CHUNK_SIZE) {
+            List<BalancePair> chunk = ordered.subList(from, Math.min(from + LOCK_CHUNK_SIZE, ordered.size()));
+            StringBuilder sql = new StringBuilder(LOCK_SQL_PREFIX);
+            Object[] args = new Object[chunk.size() * 2 + 1];
+            args[0] = currency;
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+                args[2 * i + 1] = chunk.get(i).user1Id();
+                args[2 * i + 2] = chunk.get(i).user2Id();
+            }
+            sql.append(") FOR UPDATE");
+            jdbcTemplate.query(sql.toString(), rs -> {
+                balances.put(new BalancePair(rs.getLong("user1_id"), rs.getLong("user2_id")), rs.getBigDecimal("balance_amount"));
+            }, args);
+        }
+        return balances;
+    }
+
+    /**
+     * Lock the next rows stored with user1_id > user2_id, the order used before pairs were canonical
+     */
+    public List<ReversedRow> lockReversedRows(long afterId, int limit) {
+        return jdbcTemplate.query(LOCK_REVERSED_SQL, (rs, rowNum) -> new ReversedRow(
+                rs.getLong("id"), rs.getLong("user1_id"), rs.getLong("user2_id"),
+                rs.getBigDecimal("balance_amount"), rs.getString("currency")), afterId, limit);
+    }
+
+    public void deleteRow(long id) {
+        jdbcTemplate.update("DELETE FROM user_balances WHERE id = ?", id);
+    }
+
+    /**
+     * A pair row in the old (higher id, lower id) order
+     */
+    public record ReversedRow(long id, long user1Id, long user2Id, BigDecimal balanceAmount, String currency) {
+    }
+
+    /**
+     * Canonical user pair, always user1Id < user2Id
+     */
+    public record BalancePair(long user1Id, long user2Id) implements Comparable<BalancePair> {
+
+        public static BalancePair of(long a, long b) {
+            return a < b ? new BalancePair(a, b) : new BalancePair(b, a);
+        }
+
+        @Override
+        public int compareTo(BalancePair other) {
+            int cmp = Long.compare(user1Id, other.user1Id);
+            return cmp != 0 ? cmp : Long.compare(user2Id, other.user2Id);
+        }
+    }
+}
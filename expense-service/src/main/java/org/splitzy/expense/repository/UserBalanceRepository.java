@@ -1,15 +1,16 @@
 package org.splitzy.expense.repository;
 
+import jakarta.persistence.LockModeType;
 import org.splitzy.expense.entity.UserBalance;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,9 +18,20 @@ import java.util.Optional;
 @Repository
 public interface UserBalanceRepository extends JpaRepository<UserBalance, Long> {
 
-    //  Find balance between two users
-    @Query("SELECT b FROM UserBalance b WHERE (b.user1Id = :user1Id AND b.user2Id = :user2Id) OR (b.user1Id = :user2Id AND b.user2Id = :user1Id)")
-    Optional<UserBalance> findBalanceBetweenUsers(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
+    // Find the balances of a canonical pair (user1Id < user2Id), one per currency, a single seek on idx_users_pair_currency
+    List<UserBalance> findByUser1IdAndUser2Id(Long user1Id, Long user2Id);
+
+    //  Find balances between two users in either order; rows are written with user1Id < user2Id, and rows
+    //  stored the other way round are still found until BalancePairMigrationService has moved them
+    default List<UserBalance> findBalancesBetweenUsers(Long user1Id, Long user2Id) {
+        long low = Math.min(user1Id, user2Id);
+        long high = Math.max(user1Id, user2Id);
+        List<UserBalance> balances = new ArrayList<>(findByUser1IdAndUser2Id(low, high));
+        balances.addAll(findByUser1IdAndUser2Id(high, low));
+        return balances;
+    }
+
+    // Balance writes go through NetBalanceLedgerService so user_net_balances stays in step
 
     // Find all balances for a user
     @Query("SELECT b FROM UserBalance b WHERE (b.user1Id = :userId OR b.user2Id = :userId) AND b.balanceAmount != 0 ORDER BY b.balanceAmount DESC")
@@ -29,29 +41,32 @@ public interface UserBalanceRepository extends JpaRepository<UserBalance, Long>
     @Query("SELECT b FROM UserBalance b WHERE (b.user1Id = :userId OR b.user2Id = :userId) AND b.balanceAmount != 0")
     Page<UserBalance> findUserBalancesPaginated(@Param("userId") Long userId, Pageable pageable);
 
-     // Calculate total amount user owes to others
-    @Query("SELECT COALESCE(SUM(b.balanceAmount), 0) FROM UserBalance b WHERE b.user1Id = :userId AND b.balanceAmount > 0")
-    BigDecimal calculateTotalOwedByUser(@Param("userId") Long userId);
-
-    // Calculate total amount others owe to user
-    @Query("SELECT COALESCE(SUM(ABS(b.balanceAmount)), 0) FROM UserBalance b WHERE b.user2Id = :userId AND b.balanceAmount < 0")
-    BigDecimal calculateTotalOwedToUser(@Param("userId") Long userId);
-
-    // Update balance
-    @Modifying
-    @Query("UPDATE UserBalance b SET b.balanceAmount = b.balanceAmount + :amount WHERE b.id = :balanceId")
-    void updateBalance(@Param("balanceId") Long balanceId, @Param("amount") BigDecimal amount);
-
-    // Settle balance
-    @Modifying
-    @Query("UPDATE UserBalance b SET b.balanceAmount = 0 WHERE b.id = :balanceId")
-    void settleBalance(@Param("balanceId") Long balanceId);
+    // Keyset page of a user's balances ordered by id
+    @Query("SELECT b FROM UserBalance b WHERE (b.user1Id = :userId OR b.user2Id = :userId) AND b.balanceAmount != 0 AND b.id > :afterId ORDER BY b.id")
+    List<UserBalance> findUserBalancesAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
 
     // Find unsettled balances
     @Query("SELECT b FROM UserBalance b WHERE (b.user1Id = :userId OR b.user2Id = :userId) AND b.balanceAmount != 0")
     List<UserBalance> findUnsettledBalances(@Param("userId") Long userId);
 
-    // Check if balance exists between users
-    @Query("SELECT COUNT(b) > 0 FROM UserBalance b WHERE (b.user1Id = :user1Id AND b.user2Id = :user2Id) OR (b.user1Id = :user2Id AND b.user2Id = :user1Id)")
-    boolean balanceExistsBetweenUsers(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
-}
\ No newline at end of file
+    // Check if balance exists for a canonical pair
+    boolean existsByUser1IdAndUser2Id(Long user1Id, Long user2Id);
+
+    // Check if balance exists between users in either order
+    default boolean balanceExistsBetweenUsers(Long user1Id, Long user2Id) {
+        return existsByUser1IdAndUser2Id(user1Id, user2Id) || existsByUser1IdAndUser2Id(user2Id, user1Id);
+    }
+
+    // Pair row in a currency with a write lock held until commit, for read-modify-write through the entity
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM UserBalance b WHERE b.user1Id = :user1Id AND b.user2Id = :user2Id AND b.currency = :currency")
+    Optional<UserBalance> findForUpdate(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id,
+                                        @Param("currency") String currency);
+
+    default Optional<UserBalance> lockBalanceBetweenUsers(Long user1Id, Long user2Id, String currency) {
+        long low = Math.min(user1Id, user2Id);
+        long high = Math.max(user1Id, user2Id);
+        return findForUpdate(low, high, currency)
+                .or(() -> findForUpdate(high, low, currency));
+    }
+}
@@ -0,0 +1,122 @@
+package org.splitzy.expense.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * JDBC batch access to the user_net_balances ledger.
+ * Deltas are applied as one multi-row INSERT ... ON DUPLICATE KEY UPDATE; the same table can be
+ * recomputed from user_balances for a user id range when reconciling.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class UserNetBalanceBatchRepository {
+
+    private static final String UPSERT_DELTA_SQL = "INSERT INTO user_net_balances (user_id, currency, owed_amount, owed_to_amount, created_at, updated_at, is_active) " +
+            "VALUES (?, ?, ?, ?, NOW(), NOW(), true) " +
+            "ON DUPLICATE KEY UPDATE owed_amount = owed_amount + VALUES(owed_amount), " +
+            "owed_to_amount = owed_to_amount + VALUES(owed_to_amount), updated_at = NOW()";
+
+    // Each pair contributes to both of its users; user1 owes on a positive balance, user2 on a negative one
+    private static final String AGGREGATE_SQL = "SELECT t.user_id, t.currency, SUM(t.owed) AS owed, SUM(t.owed_to) AS owed_to FROM (" +
+            "SELECT b.user1_id AS user_id, b.currency, GREATEST(b.balance_amount, 0) AS owed, GREATEST(-b.balance_amount, 0) AS owed_to " +
+            "FROM user_balances b WHERE b.user1_id BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT b.user2_id AS user_id, b.currency, GREATEST(-b.balance_amount, 0) AS owed, GREATEST(b.balance_amount, 0) AS owed_to " +
+            "FROM user_balances b WHERE b.user2_id BETWEEN ? AND ?" +
+            ") t GROUP BY t.user_id, t.currency";
+
+    private static final String READ_RANGE_SQL = "SELECT user_id, currency, owed_amount, owed_to_amount FROM user_net_balances " +
+            "WHERE user_id BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add owed / owed-to deltas per (user, currency). A sorted map keeps row lock order stable.
+     */
+    public void upsertDeltas(SortedMap<NetKey, NetAmounts> deltas) {
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (Map.Entry<NetKey, NetAmounts> entry : deltas.entrySet()) {
+            if (!entry.getValue().isZero()) {
+                rows.add(new Object[]{entry.getKey().userId(), entry.getKey().currency(),
+                        entry.getValue().owed(), entry.getValue().owedTo()});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_DELTA_SQL, rows);
+        log.debug("Applied net balance deltas for {} users", rows.size());
+    }
+
+    /**
+     * Recompute totals from user_balances for users in [fromUserId, toUserId]
+     */
+    public void aggregateFromBalances(long fromUserId, long toUserId, Map<NetKey, NetAmounts> into) {
+        jdbcTemplate.query(AGGREGATE_SQL, rs -> {
+            into.put(new NetKey(rs.getLong("user_id"), rs.getString("currency")),
+                    new NetAmounts(rs.getBigDecimal("owed"), rs.getBigDecimal("owed_to")));
+        }, fromUserId, toUserId, fromUserId, toUserId);
+    }
+
+    /**
+     * Current ledger rows for users in [fromUserId, toUserId], a plain consistent read
+     */
+    public Map<NetKey, NetAmounts> readRange(long fromUserId, long toUserId) {
+        Map<NetKey, NetAmounts> rows = new HashMap<>();
+        jdbcTemplate.query(READ_RANGE_SQL, rs -> {
+            rows.put(new NetKey(rs.getLong("user_id"), rs.getString("currency")),
+                    new NetAmounts(rs.getBigDecimal("owed_amount"), rs.getBigDecimal("owed_to_amount")));
+        }, fromUserId, toUserId);
+        return rows;
+    }
+
+    /**
+     * Ledger key, ordered by user then currency
+     */
+    public record NetKey(long userId, String currency) implements Comparable<NetKey> {
+
+        @Override
+        public int compareTo(NetKey other) {
+            int cmp = Long.compare(userId, other.userId);
+            return cmp != 0 ? cmp : currency.compareTo(other.currency);
+        }
+    }
+
+    /**
+     * Owed and owed-to amounts, either as totals or as deltas
+     */
+    public record NetAmounts(BigDecimal owed, BigDecimal owedTo) {
+
+        public static final NetAmounts ZERO = new NetAmounts(BigDecimal.ZERO, BigDecimal.ZERO);
+
+        public NetAmounts add(NetAmounts other) {
+            return new NetAmounts(owed.add(other.owed), owedTo.add(other.owedTo));
+        }
+
+        public NetAmounts subtract(NetAmounts other) {
+            return new NetAmounts(owed.subtract(other.owed), owedTo.subtract(other.owedTo));
+        }
+
+        public boolean isZero() {
+            return owed.signum() == 0 && owedTo.signum() == 0;
+        }
+
+        /**
+         * Compare by value, ignoring scale differences between the database and computed amounts
+         */
+        public boolean sameAs(NetAmounts other) {
+            return owed.compareTo(other.owed) == 0 && owedTo.compareTo(other.owedTo) == 0;
+        }
+    }
+}
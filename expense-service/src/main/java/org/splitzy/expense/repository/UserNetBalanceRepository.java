@@ -0,0 +1,24 @@
+package org.splitzy.expense.repository;
+
+import org.splitzy.expense.entity.UserNetBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Repository for UserNetBalance entity operations
+@Repository
+public interface UserNetBalanceRepository extends JpaRepository<UserNetBalance, Long> {
+
+    // Dashboard totals in every currency, one range scan on idx_net_user_currency
+    List<UserNetBalance> findByUserIdOrderByCurrency(Long userId);
+
+    // Highest user id present in either side of user_balances or in the ledger (three index-only lookups)
+    @Query(value = "SELECT GREATEST(COALESCE((SELECT MAX(user1_id) FROM user_balances), 0), " +
+            "COALESCE((SELECT MAX(user2_id) FROM user_balances), 0), " +
+            "COALESCE((SELECT MAX(user_id) FROM user_net_balances), 0))",
+            nativeQuery = true)
+    long findMaxUserId();
+}
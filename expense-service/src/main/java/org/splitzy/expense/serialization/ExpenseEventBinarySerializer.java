@@ -0,0 +1,35 @@
+package org.splitzy.expense.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.splitzy.common.util.ExpenseEventCodec;
+import org.splitzy.expense.dto.ExpenseEvent;
+
+/**
+ * Writes ExpenseEvent in the compact binary layout of ExpenseEventCodec, an alternative to JSON on
+ * expense-events. Consumers tell the two formats apart by the codec's magic byte.
+ */
+public class ExpenseEventBinarySerializer implements Serializer<ExpenseEvent> {
+
+    @Override
+    public byte[] serialize(String topic, ExpenseEvent event) {
+        if (event == null) {
+            return null;
+        }
+        try {
+            return ExpenseEventCodec.encode(new ExpenseEventCodec.Fields(
+                    event.getEventType(),
+                    event.getExpenseId(),
+                    event.getTitle(),
+                    event.getTotalAmount(),
+                    event.getCurrency(),
+                    event.getPaidByUserId(),
+                    event.getGroupId(),
+                    event.getParticipantUserIds(),
+                    event.getEventTimestamp(),
+                    event.getNotes()));
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot encode expense event " + event.getExpenseId(), e);
+        }
+    }
+}
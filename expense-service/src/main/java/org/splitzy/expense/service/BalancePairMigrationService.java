@@ -0,0 +1,119 @@
+package org.splitzy.expense.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.repository.UserBalanceBatchRepository;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.BalancePair;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.ReversedRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * One-off data migration to canonical pair order.
+ * user_balances rows written before pairs were canonical may be stored as (higher id, lower id). Each one is
+ * merged into the (lower id, higher id) row with its amount negated and then deleted, and the net ledger is
+ * moved by the same change, since merging two rows of opposite sign changes both users' totals. Each row
+ * merges into the canonical row of its own currency. Runs once as a versioned migration through
+ * {@link SchemaMigrationService}; it is off by default and is switched on for the release that ships it.
+ * A run interrupted part way is safe to repeat: rows are claimed with a locking read and are gone once merged.
+ */
+@Slf4j
+@Service
+public class BalancePairMigrationService {
+
+    static final String CANONICAL_PAIR_ORDER = "V4_user_balances_canonical_pair_order";
+
+    private final UserBalanceBatchRepository userBalanceBatchRepository;
+    private final NetBalanceLedgerService netBalanceLedgerService;
+    private final CacheEvictionService cacheEvictionService;
+    private final SchemaMigrationService schemaMigrationService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${expense.balances.canonicalize-on-startup:false}")
+    private boolean canonicalizeOnStartup;
+
+    @Value("${expense.balances.canonicalize-chunk-size:500}")
+    private int chunkSize;
+
+    public BalancePairMigrationService(UserBalanceBatchRepository userBalanceBatchRepository,
+                                       NetBalanceLedgerService netBalanceLedgerService,
+                                       CacheEvictionService cacheEvictionService,
+                                       SchemaMigrationService schemaMigrationService,
+                                       PlatformTransactionManager transactionManager) {
+        this.userBalanceBatchRepository = userBalanceBatchRepository;
+        this.netBalanceLedgerService = netBalanceLedgerService;
+        this.cacheEvictionService = cacheEvictionService;
+        this.schemaMigrationService = schemaMigrationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void canonicalizeOnStartup() {
+        if (canonicalizeOnStartup) {
+            schemaMigrationService.runOnce(CANONICAL_PAIR_ORDER,
+                    "Merge user_balances rows stored as (higher id, lower id) into canonical pair order", this::canonicalize);
+        }
+    }
+
+    /**
+     * Merge every reversed row into its canonical pair row, one transaction per chunk
+     */
+    public int canonicalize() {
+        long afterId = 0;
+        int merged = 0;
+        while (true) {
+            long from = afterId;
+            ChunkResult chunk = transactionTemplate.execute(status -> mergeChunk(from));
+            if (chunk == null || chunk.lastId() < 0) {
+                break;
+            }
+            merged += chunk.merged();
+            afterId = chunk.lastId();
+        }
+        if (merged > 0) {
+            log.info("Moved {} balance rows to canonical pair order", merged);
+        }
+        return merged;
+    }
+
+    private ChunkResult mergeChunk(long afterId) {
+        List<ReversedRow> rows = userBalanceBatchRepository.lockReversedRows(afterId, chunkSize);
+        if (rows.isEmpty()) {
+            return new ChunkResult(-1, 0);
+        }
+
+        int merged = 0;
+        List<Long> users = new ArrayList<>();
+        for (ReversedRow row : rows) {
+            BalancePair pair = BalancePair.of(row.user1Id(), row.user2Id());
+
+            // Drop the reversed row from the ledger first, then post its amount onto the canonical row
+            userBalanceBatchRepository.deleteRow(row.id());
+            netBalanceLedgerService.recordPairChange(row.user1Id(), row.user2Id(), row.currency(),
+                    row.balanceAmount(), BigDecimal.ZERO);
+            SortedMap<BalancePair, BigDecimal> delta = new TreeMap<>();
+            delta.put(pair, row.balanceAmount().negate());
+            netBalanceLedgerService.applyPairDeltas(delta, row.currency());
+
+            users.add(row.user1Id());
+            users.add(row.user2Id());
+            merged++;
+        }
+        if (!users.isEmpty()) {
+            cacheEvictionService.evictForUsers(users);
+        }
+        return new ChunkResult(rows.get(rows.size() - 1).id(), merged);
+    }
+
+    private record ChunkResult(long lastId, int merged) {
+    }
+}
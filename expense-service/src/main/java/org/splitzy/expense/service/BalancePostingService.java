@@ -0,0 +1,115 @@
+package org.splitzy.expense.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.BalancePair;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Turns expense splits into pairwise UserBalance deltas.
+ * Each participant other than the payer owes the payer their outstanding split amount; deltas are merged per
+ * canonical pair and applied as one batched upsert inside the caller's transaction, together with the net ledger.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BalancePostingService {
+
+    private final NetBalanceLedgerService netBalanceLedgerService;
+    private final CacheEvictionService cacheEvictionService;
+
+    /**
+     * Post balances for newly created expenses
+     */
+    public void postExpenses(Collection<Expense> expenses) {
+        post(expenses, BigDecimal.ONE);
+    }
+
+    /**
+     * Reverse the outstanding balances of deleted or cancelled expenses
+     */
+    public void reverseExpenses(Collection<Expense> expenses) {
+        post(expenses, BigDecimal.ONE.negate());
+    }
+
+    /**
+     * A participant paying part of their split owes the payer that much less.
+     * Settlements are merged per canonical pair.
+     */
+    public void postSettlements(Map<ExpenseSplit, BigDecimal> settledAmounts) {
+        Map<String, SortedMap<BalancePair, BigDecimal>> deltasByCurrency = new TreeMap<>();
+        Set<Long> users = new HashSet<>();
+
+        for (Map.Entry<ExpenseSplit, BigDecimal> entry : settledAmounts.entrySet()) {
+            ExpenseSplit split = entry.getKey();
+            Long payerId = split.getExpense().getPaidByUserId();
+            if (split.getUserId().equals(payerId) || entry.getValue().signum() == 0) {
+                continue;
+            }
+            SortedMap<BalancePair, BigDecimal> deltas = deltasByCurrency.computeIfAbsent(split.getExpense().getCurrency(), c -> new TreeMap<>());
+            addDelta(deltas, split.getUserId(), payerId, entry.getValue().negate());
+            users.add(split.getUserId());
+            users.add(payerId);
+        }
+
+        for (Map.Entry<String, SortedMap<BalancePair, BigDecimal>> entry : deltasByCurrency.entrySet()) {
+            netBalanceLedgerService.applyPairDeltas(entry.getValue(), entry.getKey());
+        }
+        if (!users.isEmpty()) {
+            cacheEvictionService.evictForUsers(users);
+        }
+    }
+
+    private void post(Collection<Expense> expenses, BigDecimal sign) {
+        // Merge per currency so each batch carries one currency for newly created rows
+        Map<String, SortedMap<BalancePair, BigDecimal>> deltasByCurrency = new TreeMap<>();
+        Set<Long> users = new HashSet<>();
+
+        for (Expense expense : expenses) {
+            Long payerId = expense.getPaidByUserId();
+            SortedMap<BalancePair, BigDecimal> deltas = deltasByCurrency.computeIfAbsent(expense.getCurrency(), c -> new TreeMap<>());
+            for (ExpenseSplit split : expense.getSplits()) {
+                if (split.getUserId().equals(payerId)) {
+                    continue; // the payer's own share moves no money
+                }
+                BigDecimal outstanding = split.getRemainingAmount();
+                if (outstanding.signum() == 0) {
+                    continue;
+                }
+                addDelta(deltas, split.getUserId(), payerId, outstanding.multiply(sign));
+                users.add(split.getUserId());
+            }
+            users.add(payerId);
+        }
+
+        int pairs = 0;
+        for (Map.Entry<String, SortedMap<BalancePair, BigDecimal>> entry : deltasByCurrency.entrySet()) {
+            netBalanceLedgerService.applyPairDeltas(entry.getValue(), entry.getKey());
+            pairs += entry.getValue().size();
+        }
+        cacheEvictionService.evictForUsers(users);
+        log.debug("Posted balance deltas for {} expenses across {} pairs", expenses.size(), pairs);
+    }
+
+    /**
+     * Record that debtor owes creditor amount more, in the canonical pair's sign convention
+     * (positive balance means user1 owes user2)
+     */
+    private void addDelta(SortedMap<BalancePair, BigDecimal> deltas, Long debtorId, Long creditorId, BigDecimal amount) {
+        BalancePair pair = BalancePair.of(debtorId, creditorId);
+        BigDecimal signed = debtorId == pair.user1Id() ? amount : amount.negate();
+        deltas.merge(pair, signed, BigDecimal::add);
+    }
+}
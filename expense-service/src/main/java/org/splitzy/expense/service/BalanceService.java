@@ -2,21 +2,36 @@ package org.splitzy.expense.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.dto.CursorPageResponse;
+import org.splitzy.common.exception.BusinessException;
 import org.splitzy.common.exception.ResourceNotFoundException;
+import org.splitzy.common.exception.ValidationException;
+import org.splitzy.common.util.CursorUtil;
+import org.splitzy.expense.config.CacheConfig;
 import org.splitzy.expense.dto.response.BalanceResponse;
+import org.splitzy.expense.dto.response.GroupBalanceResponse;
 import org.splitzy.expense.entity.UserBalance;
+import org.splitzy.expense.entity.UserNetBalance;
+import org.splitzy.expense.repository.ExpenseRepository;
+import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.BalancePair;
 import org.splitzy.expense.repository.UserBalanceRepository;
+import org.splitzy.expense.repository.UserNetBalanceRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 @Service
 @Slf4j
@@ -24,49 +39,100 @@ import java.util.stream.Collectors;
 @Transactional
 public class BalanceService {
     private final UserBalanceRepository userBalanceRepository;
+    private final UserNetBalanceRepository userNetBalanceRepository;
+    private final NetBalanceLedgerService netBalanceLedgerService;
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final ExpenseRepository expenseRepository;
+    private final CacheEvictionService cacheEvictionService;
 
     /**
-     * Get balance for a specific pair of users
+     * Get balances for a specific pair of users, one response per currency they have a balance in
      */
     @Transactional(readOnly = true)
-    public BalanceResponse getBalanceBetweenUsers(Long user1Id, Long user2Id) {
+    public List<BalanceResponse> getBalanceBetweenUsers(Long user1Id, Long user2Id) {
         log.debug("Fetching balance between users: {} and {}", user1Id, user2Id);
 
-        Optional<UserBalance> balance = userBalanceRepository.findBalanceBetweenUsers(user1Id, user2Id);
+        List<UserBalance> balances = userBalanceRepository.findBalancesBetweenUsers(user1Id, user2Id);
+        return summarize(user1Id, balances);
+    }
 
-        if (balance.isEmpty()) {
-            // No balance record exists, create default zero balance
-            return createDefaultBalance(user1Id, user2Id);
-        }
+    /**
+     * Get a user's owed / owed-to totals from the net ledger, one seek on the user's rows, one summary per currency
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.BALANCES_CACHE, key = "#userId")
+    public List<BalanceResponse> getUserBalanceSummary(Long userId) {
+        log.debug("Fetching balance summary for user: {}", userId);
 
-        UserBalance userBalance = balance.get();
-        return mapToResponse(userBalance, user1Id);
+        List<BalanceResponse> summaries = new ArrayList<>();
+        for (UserNetBalance net : userNetBalanceRepository.findByUserIdOrderByCurrency(userId)) {
+            if (net.getOwedAmount().signum() == 0 && net.getOwedToAmount().signum() == 0) {
+                continue;
+            }
+            summaries.add(BalanceResponse.builder()
+                    .userId(userId)
+                    .totalOwed(net.getOwedAmount())
+                    .totalOwedBy(net.getOwedToAmount())
+                    .netBalance(net.getOwedToAmount().subtract(net.getOwedAmount()))
+                    .currency(net.getCurrency())
+                    .balances(new ArrayList<>())
+                    .build());
+        }
+        return summaries;
     }
 
     /**
-     * Get all balances for a user
+     * Get all balances for a user, one response per currency
      */
     @Transactional(readOnly = true)
-    public BalanceResponse getUserBalances(Long userId) {
+    public List<BalanceResponse> getUserBalances(Long userId) {
         log.debug("Fetching all balances for user: {}", userId);
 
+        // One round trip: the totals are folded from the same rows that make up the list
         List<UserBalance> balances = userBalanceRepository.findUserBalances(userId);
+        return summarize(userId, balances);
+    }
+
+    /**
+     * Get outstanding debts inside a group on behalf of a user, who must take part in one of its expenses
+     */
+    @Transactional(readOnly = true)
+    public GroupBalanceResponse getGroupBalances(Long groupId, Long userId) {
+        if (!isGroupMember(groupId, userId)) {
+            throw new BusinessException("User " + userId + " is not a member of group " + groupId,
+                    HttpStatus.FORBIDDEN, "NOT_GROUP_MEMBER");
+        }
+        return getGroupBalances(groupId);
+    }
+
+    /**
+     * Whether the user paid for or shares in an active expense of the group
+     */
+    @Transactional(readOnly = true)
+    public boolean isGroupMember(Long groupId, Long userId) {
+        return expenseRepository.isGroupParticipant(groupId, userId);
+    }
+
+    /**
+     * Get outstanding debts between members of a group, aggregated per debtor and creditor
+     */
+    @Transactional(readOnly = true)
+    public GroupBalanceResponse getGroupBalances(Long groupId) {
+        log.debug("Fetching balances for group: {}", groupId);
 
-        BigDecimal totalOwed = userBalanceRepository.calculateTotalOwedByUser(userId);
-        BigDecimal totalOwedBy = userBalanceRepository.calculateTotalOwedToUser(userId);
-        BigDecimal netBalance = totalOwedBy.subtract(totalOwed);
-
-        List<BalanceResponse.IndividualBalance> individualBalances = balances.stream()
-                .map(b -> mapToIndividualBalance(b, userId))
-                .collect(Collectors.toList());
-
-        return BalanceResponse.builder()
-                .userId(userId)
-                .totalOwed(totalOwed)
-                .totalOwedBy(totalOwedBy)
-                .netBalance(netBalance)
-                .currency("INR")
-                .balances(individualBalances)
+        List<GroupBalanceResponse.Debt> debts = expenseSplitRepository.findGroupDebts(groupId).stream()
+                .filter(d -> d.getAmount().signum() > 0)
+                .map(d -> GroupBalanceResponse.Debt.builder()
+                        .debtorId(d.getDebtorId())
+                        .creditorId(d.getCreditorId())
+                        .amount(d.getAmount())
+                        .currency(d.getCurrency())
+                        .build())
+                .toList();
+
+        return GroupBalanceResponse.builder()
+                .groupId(groupId)
+                .debts(debts)
                 .build();
     }
 
@@ -84,55 +150,78 @@ public class BalanceService {
     }
 
     /**
-     * Update or create balance between two users
+     * Get balances for a user with keyset pagination on the balance id
      */
-    public void updateBalance(Long user1Id, Long user2Id, BigDecimal amount) {
-        log.debug("Updating balance between users {} and {} with amount: {}", user1Id, user2Id, amount);
+    @Transactional(readOnly = true)
+    public CursorPageResponse<BalanceResponse.IndividualBalance> getUserBalancesByCursor(Long userId, String cursor, int requestedSize) {
+        int size = CursorUtil.pageSize(requestedSize);
+        log.debug("Fetching balances for user: {} after cursor: {}", userId, cursor);
 
-        Optional<UserBalance> existingBalance = userBalanceRepository.findBalanceBetweenUsers(user1Id, user2Id);
+        long afterId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                afterId = Long.parseLong(CursorUtil.decode(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new ValidationException("Invalid cursor", e);
+            }
+        }
 
-        if (existingBalance.isPresent()) {
-            UserBalance balance = existingBalance.get();
-            balance.updateBalance(amount);
-            userBalanceRepository.save(balance);
-        } else {
-            // Create new balance record
-            UserBalance newBalance = UserBalance.builder()
-                    .user1Id(user1Id)
-                    .user2Id(user2Id)
-                    .balanceAmount(amount)
-                    .currency("INR")
-                    .build();
-            userBalanceRepository.save(newBalance);
+        List<UserBalance> rows = userBalanceRepository.findUserBalancesAfter(userId, afterId, PageRequest.of(0, size + 1));
+        return CursorPageResponse.of(rows, size,
+                b -> CursorUtil.encode(b.getId()),
+                b -> mapToIndividualBalance(b, userId));
+    }
+
+    /**
+     * Update or create balance between two users in a currency
+     */
+    public void updateBalance(Long user1Id, Long user2Id, BigDecimal amount, String currency) {
+        log.debug("Updating balance between users {} and {} with amount: {} {}", user1Id, user2Id, amount, currency);
+
+        if (user1Id.equals(user2Id)) {
+            throw new ValidationException("Cannot update balance of a user with themselves");
         }
 
+        // Store the pair as (lower id, higher id); flip the sign when the caller's order is reversed
+        BalancePair pair = BalancePair.of(user1Id, user2Id);
+        SortedMap<BalancePair, BigDecimal> deltas = new TreeMap<>();
+        deltas.put(pair, user1Id == pair.user1Id() ? amount : amount.negate());
+        netBalanceLedgerService.applyPairDeltas(deltas, currency);
+        cacheEvictionService.evictForUsers(List.of(user1Id, user2Id));
+
         log.debug("Balance updated successfully");
     }
 
     /**
-     * Settle balance between two users
+     * Settle balance between two users in a currency
      */
-    public void settleBalance(Long user1Id, Long user2Id) {
-        log.info("Settling balance between users: {} and {}", user1Id, user2Id);
+    public void settleBalance(Long user1Id, Long user2Id, String currency) {
+        log.info("Settling {} balance between users: {} and {}", currency, user1Id, user2Id);
 
-        Optional<UserBalance> balance = userBalanceRepository.findBalanceBetweenUsers(user1Id, user2Id);
+        Optional<UserBalance> balance = userBalanceRepository.lockBalanceBetweenUsers(user1Id, user2Id, currency);
         if (balance.isPresent()) {
+            BigDecimal before = balance.get().getBalanceAmount();
             balance.get().settle();
             userBalanceRepository.save(balance.get());
+            recordPairChange(balance.get(), before);
+            cacheEvictionService.evictForUsers(List.of(user1Id, user2Id));
             log.info("Balance settled successfully");
         }
     }
 
     /**
-     * Partially settle balance
+     * Partially settle balance in a currency
      */
-    public void partiallySettleBalance(Long user1Id, Long user2Id, BigDecimal amount) {
-        log.info("Partially settling balance between users: {} and {} with amount: {}", user1Id, user2Id, amount);
+    public void partiallySettleBalance(Long user1Id, Long user2Id, String currency, BigDecimal amount) {
+        log.info("Partially settling balance between users: {} and {} with amount: {} {}", user1Id, user2Id, amount, currency);
 
-        Optional<UserBalance> balance = userBalanceRepository.findBalanceBetweenUsers(user1Id, user2Id);
+        Optional<UserBalance> balance = userBalanceRepository.lockBalanceBetweenUsers(user1Id, user2Id, currency);
         if (balance.isPresent()) {
+            BigDecimal before = balance.get().getBalanceAmount();
             balance.get().partiallySettle(amount);
             userBalanceRepository.save(balance.get());
+            recordPairChange(balance.get(), before);
+            cacheEvictionService.evictForUsers(List.of(user1Id, user2Id));
             log.info("Balance partially settled successfully");
         } else {
             throw new ResourceNotFoundException("Balance not found between users");
@@ -140,37 +229,41 @@ public class BalanceService {
     }
 
     /**
-     * Create default zero balance response
+     * Carry an entity-level change of a locked pair row over to the net ledger
      */
-    private BalanceResponse createDefaultBalance(Long user1Id, Long user2Id) {
-        return BalanceResponse.builder()
-                .userId(user1Id)
-                .totalOwed(BigDecimal.ZERO)
-                .totalOwedBy(BigDecimal.ZERO)
-                .netBalance(BigDecimal.ZERO)
-                .currency("INR")
-                .balances(new ArrayList<>())
-                .build();
+    private void recordPairChange(UserBalance balance, BigDecimal before) {
+        netBalanceLedgerService.recordPairChange(balance.getUser1Id(), balance.getUser2Id(), balance.getCurrency(),
+                before, balance.getBalanceAmount());
     }
 
     /**
-     * Map UserBalance to BalanceResponse
+     * Build one response per currency from balance rows, totalling both sides of each pair from the user's
+     * point of view; amounts in different currencies are never added together
      */
-    private BalanceResponse mapToResponse(UserBalance userBalance, Long userId) {
-        BigDecimal totalOwed = userBalanceRepository.calculateTotalOwedByUser(userId);
-        BigDecimal totalOwedBy = userBalanceRepository.calculateTotalOwedToUser(userId);
-
-        List<BalanceResponse.IndividualBalance> balances = new ArrayList<>();
-        balances.add(mapToIndividualBalance(userBalance, userId));
-
-        return BalanceResponse.builder()
-                .userId(userId)
-                .totalOwed(totalOwed)
-                .totalOwedBy(totalOwedBy)
-                .netBalance(totalOwedBy.subtract(totalOwed))
-                .currency("INR")
-                .balances(balances)
-                .build();
+    private List<BalanceResponse> summarize(Long userId, List<UserBalance> rows) {
+        Map<String, BalanceResponse> byCurrency = new TreeMap<>();
+        for (UserBalance row : rows) {
+            BalanceResponse summary = byCurrency.computeIfAbsent(row.getCurrency(), currency -> BalanceResponse.builder()
+                    .userId(userId)
+                    .totalOwed(BigDecimal.ZERO)
+                    .totalOwedBy(BigDecimal.ZERO)
+                    .currency(currency)
+                    .balances(new ArrayList<>())
+                    .build());
+            BalanceResponse.IndividualBalance individual = mapToIndividualBalance(row, userId);
+            if ("owes".equals(individual.getType())) {
+                summary.setTotalOwed(summary.getTotalOwed().add(individual.getAmount()));
+            } else {
+                summary.setTotalOwedBy(summary.getTotalOwedBy().add(individual.getAmount()));
+            }
+            summary.getBalances().add(individual);
+        }
+
+        List<BalanceResponse> summaries = new ArrayList<>(byCurrency.values());
+        for (BalanceResponse summary : summaries) {
+            summary.setNetBalance(summary.getTotalOwedBy().subtract(summary.getTotalOwed()));
+        }
+        return summaries;
     }
 
     /**
@@ -183,7 +276,7 @@ public class BalanceService {
                     .otherUserId(balance.getUser2Id())
                     .amount(balance.getBalanceAmount().abs())
                     .type(type)
-                    .currency("INR")
+                    .currency(balance.getCurrency())
                     .build();
         } else {
             // Reverse the amount and type for user2
@@ -193,7 +286,7 @@ public class BalanceService {
                     .otherUserId(balance.getUser1Id())
                     .amount(reversedAmount.abs())
                     .type(type)
-                    .currency("INR")
+                    .currency(balance.getCurrency())
                     .build();
         }
     }
@@ -0,0 +1,120 @@
+package org.splitzy.expense.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.config.CacheConfig;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Precise eviction for the expenses, balances and statistics caches.
+ * Evictions run after commit so a concurrent read cannot re-cache the pre-commit state,
+ * and are forwarded to the other replicas through CacheInvalidationBroadcaster.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheEvictionService {
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBroadcaster invalidationBroadcaster;
+
+    @PostConstruct
+    void registerLocalEvictor() {
+        invalidationBroadcaster.setLocalEvictor(this::evictLocal);
+    }
+
+    /**
+     * Evict everything an expense write can change: the expense itself and every participant's balances and statistics
+     */
+    public void evictForExpense(Expense expense) {
+        Set<Long> participants = participantsOf(expense);
+        Long expenseId = expense.getId();
+        afterCommit(() -> {
+            evictAndBroadcast(CacheConfig.EXPENSES_CACHE, List.of(expenseId));
+            evictUsers(participants);
+        });
+    }
+
+    /**
+     * Evict balances and statistics for the given users
+     */
+    public void evictForUsers(Collection<Long> userIds) {
+        Set<Long> users = new HashSet<>(userIds);
+        afterCommit(() -> evictUsers(users));
+    }
+
+    /**
+     * Evict a single expense entry
+     */
+    public void evictExpense(Long expenseId) {
+        afterCommit(() -> evictAndBroadcast(CacheConfig.EXPENSES_CACHE, List.of(expenseId)));
+    }
+
+    public static Set<Long> participantsOf(Expense expense) {
+        Set<Long> participants = new HashSet<>();
+        participants.add(expense.getPaidByUserId());
+        for (ExpenseSplit split : expense.getSplits()) {
+            participants.add(split.getUserId());
+        }
+        return participants;
+    }
+
+    private void evictUsers(Set<Long> userIds) {
+        evictAndBroadcast(CacheConfig.BALANCES_CACHE, userIds);
+        evictAndBroadcast(CacheConfig.STATISTICS_CACHE, userIds);
+        log.debug("Evicted balances and statistics for {} users", userIds.size());
+    }
+
+    private void evictAndBroadcast(String cacheName, Collection<Long> keys) {
+        evictLocal(cacheName, keys);
+        invalidationBroadcaster.enqueue(cacheName, keys);
+    }
+
+    /**
+     * Evict keys from this node's cache only; statistics keys are user ids
+     */
+    void evictLocal(String cacheName, Collection<Long> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (CacheConfig.STATISTICS_CACHE.equals(cacheName)) {
+            // Statistics keys are [userId, startDate, endDate]; drop every range cached for these users
+            Set<Long> userIds = new HashSet<>(keys);
+            if (cache instanceof CaffeineCache caffeineCache) {
+                caffeineCache.getNativeCache().asMap().keySet()
+                        .removeIf(key -> key instanceof List<?> parts && !parts.isEmpty() && userIds.contains(parts.get(0)));
+            }
+            return;
+        }
+        for (Long key : keys) {
+            cache.evict(key);
+        }
+    }
+
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.splitzy.expense.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.dto.CacheInvalidationEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Keeps the local Caffeine caches of all replicas coherent.
+ * Local evictions are buffered and broadcast as one compact message per flush interval (or earlier when
+ * the batch fills up); every other replica evicts the same keys and records how stale it was.
+ */
+@Slf4j
+@Service
+public class CacheInvalidationBroadcaster {
+
+    private final KafkaTemplate<String, CacheInvalidationEvent> kafkaTemplate;
+    private final Timer stalenessTimer;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${cache.invalidation.topic:expense-cache-invalidations}")
+    private String topic;
+
+    @Value("${cache.invalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.invalidation.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${cache.invalidation.max-batch-keys:500}")
+    private int maxBatchKeys;
+
+    private final Object lock = new Object();
+    private Map<String, Set<Long>> pending = new HashMap<>();
+    private int pendingKeys;
+    private long firstPendingAt;
+
+    private ScheduledExecutorService scheduler;
+    private BiConsumer<String, Collection<Long>> localEvictor = (cacheName, keys) -> { };
+
+    public CacheInvalidationBroadcaster(KafkaTemplate<String, CacheInvalidationEvent> cacheInvalidationKafkaTemplate,
+                                        MeterRegistry meterRegistry) {
+        this.kafkaTemplate = cacheInvalidationKafkaTemplate;
+        this.stalenessTimer = Timer.builder("cache.invalidation.staleness")
+                .description("Time from a write's local eviction to the eviction on another replica")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            flush();
+        }
+    }
+
+    /**
+     * Register the callback that evicts keys from the local caches when a remote invalidation arrives
+     */
+    public void setLocalEvictor(BiConsumer<String, Collection<Long>> localEvictor) {
+        this.localEvictor = localEvictor;
+    }
+
+    /**
+     * Queue keys that were just evicted locally for broadcast to the other replicas
+     */
+    public void enqueue(String cacheName, Collection<Long> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        boolean full;
+        synchronized (lock) {
+            if (pendingKeys == 0) {
+                firstPendingAt = System.currentTimeMillis();
+            }
+            Set<Long> cacheKeys = pending.computeIfAbsent(cacheName, name -> new HashSet<>());
+            for (Long key : keys) {
+                if (cacheKeys.add(key)) {
+                    pendingKeys++;
+                }
+            }
+            full = pendingKeys >= maxBatchKeys;
+        }
+        if (full) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    void flush() {
+        Map<String, Set<Long>> batch;
+        long firstAt;
+        synchronized (lock) {
+            if (pendingKeys == 0) {
+                return;
+            }
+            batch = pending;
+            firstAt = firstPendingAt;
+            pending = new HashMap<>();
+            pendingKeys = 0;
+        }
+
+        Map<String, List<Long>> keysByCache = new HashMap<>();
+        batch.forEach((cacheName, keys) -> keysByCache.put(cacheName, new ArrayList<>(keys)));
+        CacheInvalidationEvent event = CacheInvalidationEvent.builder()
+                .originNodeId(nodeId)
+                .keysByCache(keysByCache)
+                .firstInvalidatedAt(firstAt)
+                .build();
+        try {
+            kafkaTemplate.send(topic, nodeId, event);
+        } catch (Exception e) {
+            // Remote entries still expire through their TTL
+            log.error("Failed to broadcast cache invalidation: {}", e.getMessage(), e);
+        }
+    }
+
+    @KafkaListener(topics = "${cache.invalidation.topic:expense-cache-invalidations}",
+            groupId = "expense-cache-#{T(java.util.UUID).randomUUID().toString()}",
+            containerFactory = "cacheInvalidationListenerFactory",
+            autoStartup = "${cache.invalidation.enabled:true}")
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (nodeId.equals(event.getOriginNodeId())) {
+            return;
+        }
+        event.getKeysByCache().forEach(localEvictor);
+        stalenessTimer.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - event.getFirstInvalidatedAt())));
+        log.debug("Applied remote cache invalidation from node {}", event.getOriginNodeId());
+    }
+}
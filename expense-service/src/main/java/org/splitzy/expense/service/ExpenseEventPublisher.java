@@ -1,56 +1,97 @@
 package org.splitzy.expense.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.splitzy.expense.dto.ExpenseEvent;
 import org.splitzy.expense.entity.Expense;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.splitzy.expense.entity.ExpenseOutboxEvent;
+import org.splitzy.expense.repository.ExpenseOutboxBatchRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Records expense events in the outbox as part of the caller's transaction.
+ * Nothing reaches Kafka until the write commits; ExpenseOutboxRelay publishes the rows afterwards,
+ * so request threads never wait on the broker and rolled back writes never produce events.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
 public class ExpenseEventPublisher {
 
-    private final KafkaTemplate<String, ExpenseEvent> kafkaTemplate;
-    private static final String EXPENSE_TOPIC = "expense-events";
+    private final ExpenseOutboxBatchRepository outboxRepository;
+    private final ObjectMapper objectMapper;
 
     public void publishExpenseCreated(Expense expense) {
-        ExpenseEvent event = buildExpenseEvent(ExpenseEvent.EventType.EXPENSE_CREATED.name(), expense);
-        publishEvent(event);
-        log.info("Published EXPENSE_CREATED event for expense: {}", expense.getId());
+        enqueue(List.of(buildExpenseEvent(ExpenseEvent.EventType.EXPENSE_CREATED.name(), expense)));
+        log.info("Queued EXPENSE_CREATED event for expense: {}", expense.getId());
     }
 
     public void publishExpenseUpdated(Expense expense) {
-        ExpenseEvent event = buildExpenseEvent(ExpenseEvent.EventType.EXPENSE_UPDATED.name(), expense);
-        publishEvent(event);
-        log.info("Published EXPENSE_UPDATED event for expense: {}", expense.getId());
+        enqueue(List.of(buildExpenseEvent(ExpenseEvent.EventType.EXPENSE_UPDATED.name(), expense)));
+        log.info("Queued EXPENSE_UPDATED event for expense: {}", expense.getId());
     }
 
     public void publishExpenseDeleted(Expense expense) {
-        ExpenseEvent event = buildExpenseEvent(ExpenseEvent.EventType.EXPENSE_DELETED.name(), expense);
-        publishEvent(event);
-        log.info("Published EXPENSE_DELETED event for expense: {}", expense.getId());
+        enqueue(List.of(buildExpenseEvent(ExpenseEvent.EventType.EXPENSE_DELETED.name(), expense)));
+        log.info("Queued EXPENSE_DELETED event for expense: {}", expense.getId());
     }
 
     public void publishSplitSettled(Expense expense) {
-        ExpenseEvent event = buildExpenseEvent(ExpenseEvent.EventType.SPLIT_SETTLED.name(),  expense);
-        publishEvent(event);
-        log.info("Published EXPENSE_SETTLED event for expense: {}", expense.getId());
+        enqueue(List.of(buildExpenseEvent(ExpenseEvent.EventType.SPLIT_SETTLED.name(), expense)));
+        log.info("Queued SPLIT_SETTLED event for expense: {}", expense.getId());
     }
 
-    private void publishEvent(ExpenseEvent event) {
-        try{
-            kafkaTemplate.send(EXPENSE_TOPIC, event.getExpenseId().toString(), event);
-            log.debug("Event published successfully to topic: {}", EXPENSE_TOPIC);
-        } catch (Exception e){
-            log.error("Failed to publish event to kafka: {}", e.getMessage(), e);
-            // Don't throw exception, continue processing
-            // In production, you might want to implement a retry mechanism or dead letter queue
+    /**
+     * Queue SPLIT_SETTLED for every expense touched by a bulk settlement in one batch insert
+     */
+    public void publishSplitsSettled(Collection<Expense> expenses) {
+        enqueueAll(ExpenseEvent.EventType.SPLIT_SETTLED, expenses);
+        log.info("Queued {} SPLIT_SETTLED events", expenses.size());
+    }
+
+    /**
+     * Queue EXPENSE_CREATED for a bulk import in one batch insert
+     */
+    public void publishExpensesCreated(List<Expense> expenses) {
+        enqueueAll(ExpenseEvent.EventType.EXPENSE_CREATED, expenses);
+        log.info("Queued {} EXPENSE_CREATED events", expenses.size());
+    }
+
+    private void enqueueAll(ExpenseEvent.EventType eventType, Collection<Expense> expenses) {
+        List<ExpenseEvent> events = new ArrayList<>(expenses.size());
+        for (Expense expense : expenses) {
+            events.add(buildExpenseEvent(eventType.name(), expense));
+        }
+        enqueue(events);
+    }
+
+    private void enqueue(List<ExpenseEvent> events) {
+        List<ExpenseOutboxEvent> rows = new ArrayList<>(events.size());
+        for (ExpenseEvent event : events) {
+            try {
+                rows.add(ExpenseOutboxEvent.builder()
+                        .aggregateId(event.getExpenseId())
+                        .eventType(event.getEventType())
+                        .payload(objectMapper.writeValueAsString(event))
+                        .build());
+            } catch (JsonProcessingException e) {
+                // Fail the write rather than commit it without its event
+                throw new UncheckedIOException("Failed to serialize expense event", e);
+            }
         }
+        outboxRepository.insertAll(rows);
     }
 
     private ExpenseEvent buildExpenseEvent(String evetType, Expense expense) {
@@ -63,6 +104,7 @@ public class ExpenseEventPublisher {
                         .collect(Collectors.toList()))
                 .notes(expense.getNotes())
                 .paidByUserId(expense.getPaidByUserId())
+                .groupId(expense.getGroupId())
                 .totalAmount(expense.getTotalAmount())
                 .eventTimestamp(LocalDateTime.now())
                 .build();
@@ -0,0 +1,192 @@
+package org.splitzy.expense.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.dto.response.ExpenseResponse;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams a user's full expense history to an output stream.
+ * Rows come from a forward-only cursor over splits joined with their expense, so every expense arrives
+ * with its splits in one query and entities are detached as soon as they are written.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseExportService {
+
+    private static final String CSV_HEADER = "expense_id,expense_date,title,category,total_amount,currency,paid_by_user_id,status,"
+            + "split_user_id,split_amount,settled_amount,is_settled";
+
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public enum ExportFormat {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Write all active expenses the user paid for or takes part in
+     */
+    @Transactional(readOnly = true)
+    public void exportUserExpenses(Long userId, ExportFormat format, OutputStream outputStream) {
+        log.info("Exporting expenses for user: {} as {}", userId, format);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        int exported = 0;
+        try (Stream<ExpenseSplit> rows = expenseSplitRepository.streamUserExpenseSplits(userId)) {
+            if (format == ExportFormat.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+
+            Iterator<ExpenseSplit> iterator = rows.iterator();
+            Expense current = null;
+            List<ExpenseSplit> currentSplits = new ArrayList<>();
+            while (iterator.hasNext()) {
+                ExpenseSplit split = iterator.next();
+                if (current != null && !current.getId().equals(split.getExpense().getId())) {
+                    writeExpense(writer, format, current, currentSplits);
+                    exported++;
+                    currentSplits.clear();
+                }
+                current = split.getExpense();
+                currentSplits.add(split);
+            }
+            if (current != null) {
+                writeExpense(writer, format, current, currentSplits);
+                exported++;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write expense export", e);
+        }
+        log.info("Exported {} expenses for user: {}", exported, userId);
+    }
+
+    private void writeExpense(Writer writer, ExportFormat format, Expense expense, List<ExpenseSplit> splits) throws IOException {
+        if (format == ExportFormat.CSV) {
+            for (ExpenseSplit split : splits) {
+                writeCsvRow(writer, expense, split);
+            }
+        } else {
+            writer.write(objectMapper.writeValueAsString(toResponse(expense, splits)));
+            writer.write('\n');
+        }
+
+        // Keep the persistence context empty so memory stays flat for any history size
+        for (ExpenseSplit split : splits) {
+            entityManager.detach(split);
+        }
+        entityManager.detach(expense);
+    }
+
+    private void writeCsvRow(Writer writer, Expense expense, ExpenseSplit split) throws IOException {
+        writer.write(String.valueOf(expense.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(expense.getExpenseDate()));
+        writer.write(',');
+        writer.write(escapeCsv(expense.getTitle()));
+        writer.write(',');
+        writer.write(expense.getCategory().name());
+        writer.write(',');
+        writer.write(expense.getTotalAmount().toPlainString());
+        writer.write(',');
+        writer.write(expense.getCurrency());
+        writer.write(',');
+        writer.write(String.valueOf(expense.getPaidByUserId()));
+        writer.write(',');
+        writer.write(expense.getStatus().name());
+        writer.write(',');
+        writer.write(String.valueOf(split.getUserId()));
+        writer.write(',');
+        writer.write(split.getAmount().toPlainString());
+        writer.write(',');
+        writer.write(split.getSettledAmount() != null ? split.getSettledAmount().toPlainString() : "0");
+        writer.write(',');
+        writer.write(String.valueOf(split.getIsSettled()));
+        writer.write('\n');
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private ExpenseResponse toResponse(Expense expense, List<ExpenseSplit> splits) {
+        List<ExpenseResponse.SplitResponse> splitResponses = new ArrayList<>(splits.size());
+        for (ExpenseSplit split : splits) {
+            splitResponses.add(ExpenseResponse.SplitResponse.builder()
+                    .id(split.getId())
+                    .userId(split.getUserId())
+                    .amount(split.getAmount())
+                    .percentage(split.getPercentage())
+                    .shares(split.getShares())
+                    .isSettled(split.getIsSettled())
+                    .settledAmount(split.getSettledAmount())
+                    .remainingAmount(split.getRemainingAmount())
+                    .notes(split.getNotes())
+                    .build());
+        }
+
+        return ExpenseResponse.builder()
+                .id(expense.getId())
+                .title(expense.getTitle())
+                .description(expense.getDescription())
+                .totalAmount(expense.getTotalAmount())
+                .currency(expense.getCurrency())
+                .paidByUserId(expense.getPaidByUserId())
+                .expenseDate(expense.getExpenseDate())
+                .category(expense.getCategory())
+                .splitType(expense.getSplitType())
+                .groupId(expense.getGroupId())
+                .notes(expense.getNotes())
+                .receiptUrl(expense.getReceiptUrl())
+                .status(expense.getStatus())
+                .splits(splitResponses)
+                .createdAt(expense.getCreatedAt())
+                .updatedAt(expense.getUpdateAt())
+                .build();
+    }
+}
@@ -0,0 +1,201 @@
+package org.splitzy.expense.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.dto.ExpenseEvent;
+import org.splitzy.expense.repository.ExpenseOutboxBatchRepository;
+import org.splitzy.expense.repository.ExpenseOutboxBatchRepository.OutboxRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains expense_outbox to the expense-events topic.
+ * Each round leases the oldest rows in a short transaction and commits, hands them all to the producer
+ * at once so they share batches, waits for the acknowledgements with no transaction open, then deletes
+ * the acknowledged prefix and releases the rest. A failed send leaves it and everything after it for the
+ * next round, and a relay that dies mid-round leaves a lease that expires, so delivery is at least once
+ * and in outbox order per expense. The claim runs under read committed: it locks only the claimed rows,
+ * not the gap at the tail where request threads append.
+ */
+@Slf4j
+@Service
+public class ExpenseOutboxRelay {
+
+    private final ExpenseOutboxBatchRepository outboxRepository;
+    private final KafkaTemplate<String, ExpenseEvent> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate relayTransaction;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter discardedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final String owner = UUID.randomUUID().toString();
+
+    @Value("${expense.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.kafka.topic.expense-events:expense-events}")
+    private String topic;
+
+    @Value("${expense.outbox.relay.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${expense.outbox.relay.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${expense.outbox.relay.send-timeout-seconds:30}")
+    private long sendTimeoutSeconds;
+
+    // Must outlast a round's sends, or another relay takes the rows over while they are still in flight
+    @Value("${expense.outbox.relay.lease-seconds:90}")
+    private long leaseSeconds;
+
+    private ScheduledExecutorService scheduler;
+
+    public ExpenseOutboxRelay(ExpenseOutboxBatchRepository outboxRepository,
+                              KafkaTemplate<String, ExpenseEvent> kafkaTemplate,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.relayTransaction = new TransactionTemplate(transactionManager);
+        this.relayTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.publishedCounter = Counter.builder("expense.outbox.published")
+                .description("Outbox events acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("expense.outbox.failed")
+                .description("Outbox events whose send failed and will be retried")
+                .register(meterRegistry);
+        this.discardedCounter = Counter.builder("expense.outbox.discarded")
+                .description("Outbox events dropped because their payload could not be read")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("expense.outbox.relay.batch")
+                .description("Time to claim, publish and delete one outbox batch")
+                .register(meterRegistry);
+        TimeGauge.builder("expense.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Age of the oldest unpublished outbox event")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "expense-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                // Let a round in flight finish so its acknowledged rows are deleted
+                scheduler.awaitTermination(sendTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Relay full batches back to back until the outbox is caught up or a send fails
+     */
+    void drain() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize && !scheduler.isShutdown());
+        } catch (Exception e) {
+            log.error("Outbox relay round failed: {}", e.getMessage(), e);
+        }
+    }
+
+    int relayBatch() {
+        Timer.Sample sample = Timer.start();
+        List<OutboxRow> rows = relayTransaction.execute(status -> outboxRepository.claimBatch(batchSize, owner, leaseSeconds));
+        if (rows == null || rows.isEmpty()) {
+            lagMillis.set(0);
+            sample.stop(batchTimer);
+            return 0;
+        }
+        lagMillis.set(Math.max(0, Duration.between(rows.get(0).createdAt(), LocalDateTime.now()).toMillis()));
+
+        List<CompletableFuture<SendResult<String, ExpenseEvent>>> sends = new ArrayList<>(rows.size());
+        int discarded = 0;
+        for (OutboxRow row : rows) {
+            ExpenseEvent event = readEvent(row);
+            if (event == null) {
+                // An unreadable row can never be sent; drop it instead of blocking everything behind it
+                discarded++;
+                sends.add(CompletableFuture.completedFuture(null));
+            } else {
+                sends.add(kafkaTemplate.send(topic, String.valueOf(row.aggregateId()), event));
+            }
+        }
+        kafkaTemplate.flush();
+
+        List<Long> published = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeoutSeconds, TimeUnit.SECONDS);
+                published.add(rows.get(i).id());
+            } catch (Exception e) {
+                failedCounter.increment(rows.size() - i);
+                log.warn("Outbox event {} for expense {} not acknowledged, retrying from it next round: {}",
+                        rows.get(i).id(), rows.get(i).aggregateId(), e.getMessage());
+                break;
+            }
+        }
+
+        List<Long> unpublished = rows.subList(published.size(), rows.size()).stream().map(OutboxRow::id).toList();
+        relayTransaction.executeWithoutResult(status -> {
+            outboxRepository.deleteAll(published);
+            outboxRepository.release(unpublished, owner);
+        });
+        publishedCounter.increment(Math.max(0, published.size() - discarded));
+        sample.stop(batchTimer);
+        return unpublished.isEmpty() ? rows.size() : -1;
+    }
+
+    private ExpenseEvent readEvent(OutboxRow row) {
+        try {
+            return objectMapper.readValue(row.payload(), ExpenseEvent.class);
+        } catch (Exception e) {
+            discardedCounter.increment();
+            log.error("Discarding unreadable outbox event {} for expense {}: {}", row.id(), row.aggregateId(), e.getMessage());
+            return null;
+        }
+    }
+}
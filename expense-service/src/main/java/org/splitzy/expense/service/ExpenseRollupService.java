@@ -0,0 +1,186 @@
+package org.splitzy.expense.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.splitzy.expense.repository.ExpenseDailyRollupRepository;
+import org.splitzy.expense.repository.NamedLockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the per-user daily rollup (user, day, category, currency) of paid and owed totals.
+ * Every expense write posts its deltas here in the same transaction. A full rebuild from expenses and
+ * splits can run on startup and on a fixed schedule to repair any drift, on one replica at a time.
+ *
+ * Writers always change the expense or split rows before they post to the rollup. A rebuild takes shared
+ * locks on those source rows for its date range before it touches the rollup, so a writer posting into
+ * the range either commits before the rebuild reads, and is counted by it, or waits and posts its delta
+ * on top of the rebuilt buckets. Taking the locks in the same order on both sides also rules out deadlocks.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ExpenseRollupService {
+
+    private static final String REBUILD_LOCK_NAME = "expense-service.rollup-rebuild";
+
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final NamedLockRepository namedLockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${expense.rollup.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Value("${expense.rollup.rebuild-chunk-days:31}")
+    private int rebuildChunkDays;
+
+    @Value("${expense.rollup.scheduled-rebuild.enabled:false}")
+    private boolean scheduledRebuild;
+
+    @Value("${expense.rollup.scheduled-rebuild.interval-hours:24}")
+    private long rebuildIntervalHours;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Add an expense's contribution to the rollup
+     */
+    public void addExpense(Expense expense) {
+        postExpense(expense, BigDecimal.ONE);
+    }
+
+    /**
+     * Remove an expense's contribution from the rollup
+     */
+    public void removeExpense(Expense expense) {
+        postExpense(expense, BigDecimal.ONE.negate());
+    }
+
+    /**
+     * Settling part of a split reduces what that user still owes on the expense day.
+     * One upsert per (user, day, category, currency) bucket.
+     */
+    public void recordSettlements(Map<ExpenseSplit, BigDecimal> settledAmounts) {
+        Map<RollupBucket, BigDecimal> deltas = new LinkedHashMap<>();
+        for (Map.Entry<ExpenseSplit, BigDecimal> entry : settledAmounts.entrySet()) {
+            Expense expense = entry.getKey().getExpense();
+            RollupBucket bucket = new RollupBucket(entry.getKey().getUserId(), expense.getExpenseDate(),
+                    expense.getCategory().name(), expense.getCurrency());
+            deltas.merge(bucket, entry.getValue(), BigDecimal::add);
+        }
+
+        for (Map.Entry<RollupBucket, BigDecimal> entry : deltas.entrySet()) {
+            RollupBucket bucket = entry.getKey();
+            rollupRepository.upsertDelta(bucket.userId(), bucket.day(), bucket.category(), bucket.currency(),
+                    BigDecimal.ZERO, entry.getValue().negate());
+        }
+    }
+
+    private record RollupBucket(Long userId, LocalDate day, String category, String currency) {
+    }
+
+    private void postExpense(Expense expense, BigDecimal sign) {
+        // Merge per user so the payer's paid and owed deltas go out in one upsert
+        Map<Long, BigDecimal[]> deltas = new LinkedHashMap<>();
+        deltas.computeIfAbsent(expense.getPaidByUserId(), id -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO})[0] =
+                expense.getTotalAmount().multiply(sign);
+
+        for (ExpenseSplit split : expense.getSplits()) {
+            BigDecimal[] delta = deltas.computeIfAbsent(split.getUserId(), id -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            delta[1] = delta[1].add(split.getRemainingAmount().multiply(sign));
+        }
+
+        String category = expense.getCategory().name();
+        for (Map.Entry<Long, BigDecimal[]> entry : deltas.entrySet()) {
+            rollupRepository.upsertDelta(entry.getKey(), expense.getExpenseDate(), category, expense.getCurrency(),
+                    entry.getValue()[0], entry.getValue()[1]);
+        }
+        log.debug("Posted rollup deltas for expense {} to {} users", expense.getId(), deltas.size());
+    }
+
+    /**
+     * Recompute rollups for a date range from expenses and splits. Writers posting to the range wait
+     * until the surrounding transaction commits.
+     */
+    public void rebuild(LocalDate startDate, LocalDate endDate) {
+        rollupRepository.lockSourceRange(startDate, endDate);
+        int deleted = rollupRepository.deleteRange(startDate, endDate);
+        int paid = rollupRepository.rebuildPaid(startDate, endDate);
+        int owed = rollupRepository.rebuildOwed(startDate, endDate);
+        log.info("Rebuilt rollups for {} to {} (removed {}, paid rows {}, owed rows {})", startDate, endDate, deleted, paid, owed);
+    }
+
+    /**
+     * Backfill the whole history in date chunks, one transaction per chunk, unless another replica is
+     * already rebuilding
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebuildAll() {
+        if (!namedLockRepository.runExclusively(REBUILD_LOCK_NAME, this::rebuildAllChunks)) {
+            log.info("Expense rollups are being rebuilt on another replica, skipping");
+        }
+    }
+
+    private void rebuildAllChunks() {
+        LocalDate earliest = rollupRepository.findEarliestExpenseDate();
+        LocalDate latest = rollupRepository.findLatestExpenseDate();
+        if (earliest == null || latest == null) {
+            log.info("No expenses found, nothing to rebuild");
+            return;
+        }
+
+        log.info("Rebuilding expense rollups from {} to {}", earliest, latest);
+        for (LocalDate from = earliest; !from.isAfter(latest); from = from.plusDays(rebuildChunkDays)) {
+            LocalDate to = from.plusDays(rebuildChunkDays - 1L);
+            LocalDate chunkStart = from;
+            LocalDate chunkEnd = to.isAfter(latest) ? latest : to;
+            transactionTemplate.executeWithoutResult(status -> rebuild(chunkStart, chunkEnd));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuildAll();
+        }
+        if (scheduledRebuild) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "expense-rollup-rebuilder");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    rebuildAll();
+                } catch (Exception e) {
+                    log.error("Scheduled rollup rebuild failed: {}", e.getMessage(), e);
+                }
+            }, rebuildIntervalHours, rebuildIntervalHours, TimeUnit.HOURS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
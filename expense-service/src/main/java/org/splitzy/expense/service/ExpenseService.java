@@ -5,9 +5,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.splitzy.common.criteria.GenericCriteriaBuilder;
 import org.splitzy.common.criteria.SearchCriteria;
 import org.splitzy.common.criteria.SearchOperation;
+import org.splitzy.common.dto.CursorPageResponse;
 import org.splitzy.common.dto.PageResponse;
 import org.splitzy.common.exception.ResourceNotFoundException;
 import org.splitzy.common.exception.ValidationException;
+import org.splitzy.common.util.CursorUtil;
+import org.splitzy.expense.config.CacheConfig;
 import org.splitzy.expense.dto.ExpenseSearchCriteria;
 import org.splitzy.expense.dto.request.CreateExpenseRequest;
 import org.splitzy.expense.dto.request.UpdateExpenseRequest;
@@ -15,9 +18,15 @@ import org.splitzy.expense.dto.response.ExpenseResponse;
 import org.splitzy.expense.dto.response.ExpenseStatisticsResponse;
 import org.splitzy.expense.entity.Expense;
 import org.splitzy.expense.entity.ExpenseSplit;
+import org.splitzy.expense.repository.ExpenseBatchRepository;
+import org.splitzy.expense.repository.ExpenseDailyRollupRepository;
 import org.splitzy.expense.repository.ExpenseRepository;
+import org.splitzy.expense.repository.ExpenseSpecifications;
 import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -27,8 +36,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,11 +50,22 @@ import java.util.stream.Collectors;
 @Transactional
 public class ExpenseService {
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("expenseDate", "totalAmount", "createdAt", "title", "category", "status");
+
     private final ExpenseRepository expenseRepository;
     private final ExpenseSplitRepository expenseSplitRepository;
+    private final ExpenseBatchRepository expenseBatchRepository;
+    private final ExpenseDailyRollupRepository rollupRepository;
+    private final ExpenseRollupService expenseRollupService;
+    private final ExpenseTextSearchService expenseTextSearchService;
+    private final CacheEvictionService cacheEvictionService;
+    private final BalancePostingService balancePostingService;
     private final SplitCalculationService splitCalculationService;
     private final ExpenseEventPublisher expenseEventPublisher;
 
+    @Value("${expense.search.max-candidates:1000}")
+    private int maxSearchCandidates;
+
     public ExpenseResponse createExpense(CreateExpenseRequest request, Long requestingUsedId) {
         log.info("Creating expense: {} with total amount: {}", request.getTitle(), request.getTotalAmount());
         splitCalculationService.validateSplitRequests(Expense.builder().splitType(request.getSplitType()).totalAmount(request.getTotalAmount()).build(), request.getSplits());
@@ -70,16 +94,76 @@ public class ExpenseService {
         }
 
         Expense savedExpense = expenseRepository.save(expense);
+        expenseRollupService.addExpense(savedExpense);
+        balancePostingService.postExpenses(List.of(savedExpense));
+        cacheEvictionService.evictForExpense(savedExpense);
         log.info("Expense created successfully with ID: {}", savedExpense.getId());
         expenseEventPublisher.publishExpenseCreated(savedExpense);
         return mapToResponse(savedExpense);
     }
 
+    /**
+     * Create many expenses in one transaction.
+     * Splits are calculated per expense as in createExpense, rows are written through JDBC batches
+     * and the created events are queued in the outbox with one batch insert.
+     */
+    public List<ExpenseResponse> createExpenses(List<CreateExpenseRequest> requests, Long requestingUserId) {
+        log.info("Bulk creating {} expenses for user: {}", requests.size(), requestingUserId);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Expense> expenses = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateExpenseRequest request = requests.get(i);
+            splitCalculationService.validateSplitRequests(Expense.builder().splitType(request.getSplitType()).totalAmount(request.getTotalAmount()).build(), request.getSplits());
+
+            Expense expense = Expense.builder()
+                    .splitType(request.getSplitType())
+                    .totalAmount(request.getTotalAmount())
+                    .title(request.getTitle())
+                    .currency(request.getCurrency())
+                    .description(request.getDescription())
+                    .category(request.getCategory())
+                    .paidByUserId(request.getPaidByUserId())
+                    .groupId(request.getGroupId())
+                    .status(Expense.ExpenseStatus.ACTIVE)
+                    .receiptUrl(request.getReceiptUrl())
+                    .expenseDate(request.getExpenseDate())
+                    .notes(request.getNotes())
+                    .build();
+            expense.setCreatedAt(now);
+            expense.setUpdateAt(now);
+
+            for (ExpenseSplit split : splitCalculationService.calculateSplits(expense, request.getSplits())) {
+                split.setCreatedAt(now);
+                split.setUpdateAt(now);
+                expense.addSplit(split);
+            }
+            if (!expense.isSplitValid()) {
+                throw new ValidationException("Invalid expense at index " + i + ": " + request.getTitle());
+            }
+            expenses.add(expense);
+        }
+
+        expenseBatchRepository.insertAll(expenses);
+        expenses.forEach(expenseRollupService::addExpense);
+        balancePostingService.postExpenses(expenses);
+        cacheEvictionService.evictForUsers(expenses.stream()
+                .flatMap(e -> CacheEvictionService.participantsOf(e).stream())
+                .collect(Collectors.toSet()));
+        log.info("Bulk created {} expenses", expenses.size());
+
+        expenseEventPublisher.publishExpensesCreated(expenses);
+        return expenses.stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.EXPENSES_CACHE, key = "#expenseId")
     public ExpenseResponse getExpenseById(Long expenseId) {
         log.debug("Fetching expense with ID: {}", expenseId);
 
-        Expense expense = expenseRepository.findById(expenseId).orElseThrow(() -> new ResourceNotFoundException("Expense", "id", expenseId));
+        Expense expense = expenseRepository.findWithSplitsById(expenseId).orElseThrow(() -> new ResourceNotFoundException("Expense", "id", expenseId));
         return mapToResponse(expense);
     }
 
@@ -95,6 +179,14 @@ public class ExpenseService {
             throw new ValidationException("Cannot update a settled expense");
         }
 
+        // Rollup buckets are keyed by day and category, so move the expense's totals if either changes
+        boolean rollupKeyChanged = expense.getIsActive()
+                && ((request.getExpenseDate() != null && !request.getExpenseDate().equals(expense.getExpenseDate()))
+                || (request.getCategory() != null && request.getCategory() != expense.getCategory()));
+        if (rollupKeyChanged) {
+            expenseRollupService.removeExpense(expense);
+        }
+
         // Update fields
         if (request.getTitle() != null) {
             expense.setTitle(request.getTitle());
@@ -114,11 +206,23 @@ public class ExpenseService {
         if (request.getReceiptUrl() != null) {
             expense.setReceiptUrl(request.getReceiptUrl());
         }
+        if (request.getStatus() != null && request.getStatus() != expense.getStatus() && expense.getIsActive()) {
+            // Cancelling takes the expense out of everyone's balances; un-cancelling puts it back
+            if (request.getStatus() == Expense.ExpenseStatus.CANCELLED) {
+                balancePostingService.reverseExpenses(List.of(expense));
+            } else if (expense.getStatus() == Expense.ExpenseStatus.CANCELLED) {
+                balancePostingService.postExpenses(List.of(expense));
+            }
+        }
         if (request.getStatus() != null) {
             expense.setStatus(request.getStatus());
         }
 
         Expense updatedExpense = expenseRepository.save(expense);
+        if (rollupKeyChanged) {
+            expenseRollupService.addExpense(updatedExpense);
+        }
+        cacheEvictionService.evictForExpense(updatedExpense);
         log.info("Expense updated successfully with ID: {}", expenseId);
 
         // Publish event
@@ -159,19 +263,31 @@ public class ExpenseService {
             searchCriteria.add(new SearchCriteria("totalAmount", SearchOperation.LESS_THAN_OR_EQUAL, criteria.getAmountMax()));
         }
 
-        if (criteria.getSearchTerm() != null && !criteria.getSearchTerm().isBlank()) {
-            searchCriteria.add(new SearchCriteria("title", SearchOperation.LIKE, criteria.getSearchTerm()));
+        if (criteria.getPaidByUserId() != null) {
+            searchCriteria.add(new SearchCriteria("paidByUserId", SearchOperation.EQUALITY, criteria.getPaidByUserId()));
+        }
+
+        if (criteria.getGroupId() != null) {
+            searchCriteria.add(new SearchCriteria("groupId", SearchOperation.EQUALITY, criteria.getGroupId()));
+        }
+
+        if (criteria.getSplitType() != null) {
+            searchCriteria.add(new SearchCriteria("splitType", SearchOperation.EQUALITY, criteria.getSplitType()));
         }
 
         searchCriteria.add(new SearchCriteria("isActive", SearchOperation.EQUALITY, true));
 
         // Build sort
-        Sort sort = Sort.by(Sort.Direction.DESC, "expenseDate");
+        // id is the tie breaker so the order matches the (..., expense_date, id) indexes
+        Sort sort = Sort.by(Sort.Direction.DESC, "expenseDate", "id");
         if (criteria.getSortBy() != null && !criteria.getSortBy().isBlank()) {
+            if (!SORTABLE_FIELDS.contains(criteria.getSortBy())) {
+                throw new ValidationException("Unsupported sort field: " + criteria.getSortBy());
+            }
             Sort.Direction direction = "ASC".equalsIgnoreCase(criteria.getSortDirection())
                     ? Sort.Direction.ASC
                     : Sort.Direction.DESC;
-            sort = Sort.by(direction, criteria.getSortBy());
+            sort = Sort.by(direction, criteria.getSortBy()).and(Sort.by(direction, "id"));
         }
 
         Pageable pageable = PageRequest.of(
@@ -180,10 +296,55 @@ public class ExpenseService {
                 sort
         );
 
-        Specification<Expense> spec = GenericCriteriaBuilder.of(searchCriteria).build();
-        Page<Expense> expenses = expenseRepository.findUserExpenses(userId, pageable);
+        // Participation and filters go to the database as one WHERE clause
+        Specification<Expense> spec = Specification.where(ExpenseSpecifications.involvesUser(userId))
+                .and(GenericCriteriaBuilder.<Expense>of(searchCriteria).build());
+        if (criteria.getSearchTerm() != null && !criteria.getSearchTerm().isBlank()) {
+            // The text match is part of the same WHERE, so paging and the total count cover every match
+            spec = spec.and(expenseTextSearchService.matching(criteria.getSearchTerm()));
+        }
+        Page<Expense> expenses = expenseRepository.findAll(spec, pageable);
+
+        List<ExpenseResponse> content = mapToResponses(expenses.getContent());
+        return PageResponse.of(new PageImpl<>(content, expenses.getPageable(), expenses.getTotalElements()));
+    }
+
+    /**
+     * Get user's expenses with keyset pagination on (expenseDate, id); skips OFFSET and the count query
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ExpenseResponse> getUserExpensesByCursor(Long userId, String cursor, int requestedSize) {
+        int size = CursorUtil.pageSize(requestedSize);
+        log.debug("Fetching expenses for user: {} after cursor: {}", userId, cursor);
+
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Expense> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = expenseRepository.findUserExpensesFirstPage(userId, limit);
+        } else {
+            String[] key = CursorUtil.decode(cursor, 2);
+            try {
+                rows = expenseRepository.findUserExpensesAfter(userId, LocalDate.parse(key[0]), Long.parseLong(key[1]), limit);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new ValidationException("Invalid cursor", e);
+            }
+        }
+
+        Map<Long, List<ExpenseSplit>> splitsByExpense = loadSplits(rows);
+        return CursorPageResponse.of(rows, size,
+                e -> CursorUtil.encode(e.getExpenseDate(), e.getId()),
+                e -> mapToResponse(e, splitsByExpense.getOrDefault(e.getId(), List.of())));
+    }
+
+    /** Full-text search over the user's expenses, best match first */
+    @Transactional(readOnly = true)
+    public List<ExpenseResponse> searchExpenses(Long userId, String term, int limit) {
+        log.debug("Searching expenses for user: {} with term: {}", userId, term);
 
-        return PageResponse.of(expenses.map(this::mapToResponse));
+        if (limit < 1) {
+            throw new ValidationException("limit must be at least 1");
+        }
+        return mapToResponses(expenseTextSearchService.search(userId, term, Math.min(limit, maxSearchCandidates)));
     }
 
     /** Get unsettled expenses for user */
@@ -194,9 +355,7 @@ public class ExpenseService {
         Pageable pageable = PageRequest.of(0, 1000);
         Page<Expense> unsettledExpenses = expenseRepository.findUnsettledExpenses(userId, pageable);
 
-        return unsettledExpenses.getContent().stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return mapToResponses(unsettledExpenses.getContent());
     }
 
     /** Delete expense (soft delete) */
@@ -206,8 +365,15 @@ public class ExpenseService {
         Expense expense = expenseRepository.findById(expenseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Expense", "id", expenseId));
 
+        if (Boolean.TRUE.equals(expense.getIsActive())) {
+            expenseRollupService.removeExpense(expense);
+            if (expense.getStatus() != Expense.ExpenseStatus.CANCELLED) {
+                balancePostingService.reverseExpenses(List.of(expense));
+            }
+        }
         expense.setIsActive(false);
         expenseRepository.save(expense);
+        cacheEvictionService.evictForExpense(expense);
 
         // Publish event
         expenseEventPublisher.publishExpenseDeleted(expense);
@@ -219,23 +385,13 @@ public class ExpenseService {
      * Get expense statistics for user
      */
     @Transactional(readOnly = true)
+    @Cacheable(value = CacheConfig.STATISTICS_CACHE, key = "T(java.util.List).of(#userId, #startDate, #endDate)")
     public ExpenseStatisticsResponse getExpenseStatistics(Long userId, LocalDate startDate, LocalDate endDate) {
         log.debug("Calculating expense statistics for user: {} from {} to {}", userId, startDate, endDate);
 
-        Page<Expense> expenses = expenseRepository.findByExpenseDateBetweenAndIsActiveTrue(
-                startDate, endDate, PageRequest.of(0, Integer.MAX_VALUE)
-        );
-
-        BigDecimal totalPaid = expenses.getContent().stream()
-                .filter(e -> e.getPaidByUserId().equals(userId))
-                .map(Expense::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalOwed = expenses.getContent().stream()
-                .flatMap(e -> e.getSplits().stream())
-                .filter(s -> s.getUserId().equals(userId) && !s.getIsSettled())
-                .map(ExpenseSplit::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        ExpenseDailyRollupRepository.RollupTotals totals = rollupRepository.sumForUser(userId, startDate, endDate);
+        BigDecimal totalPaid = totals.getPaidAmount();
+        BigDecimal totalOwed = totals.getOwedAmount();
 
         return ExpenseStatisticsResponse.builder()
                 .userId(userId)
@@ -247,7 +403,35 @@ public class ExpenseService {
                 .build();
     }
 
+    /**
+     * Map a page of expenses with one extra query for all their splits instead of one lazy load per expense
+     */
+    private List<ExpenseResponse> mapToResponses(List<Expense> expenses) {
+        Map<Long, List<ExpenseSplit>> splitsByExpense = loadSplits(expenses);
+        List<ExpenseResponse> responses = new ArrayList<>(expenses.size());
+        for (Expense expense : expenses) {
+            responses.add(mapToResponse(expense, splitsByExpense.getOrDefault(expense.getId(), List.of())));
+        }
+        return responses;
+    }
+
+    /**
+     * Fetch splits for all given expenses with a single WHERE expense_id IN (...) query
+     */
+    private Map<Long, List<ExpenseSplit>> loadSplits(List<Expense> expenses) {
+        if (expenses.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> expenseIds = expenses.stream().map(Expense::getId).collect(Collectors.toList());
+        return expenseSplitRepository.findByExpenseIds(expenseIds).stream()
+                .collect(Collectors.groupingBy(split -> split.getExpense().getId()));
+    }
+
     private ExpenseResponse mapToResponse(Expense expense) {
+        return mapToResponse(expense, expense.getSplits());
+    }
+
+    private ExpenseResponse mapToResponse(Expense expense, List<ExpenseSplit> splits) {
         return ExpenseResponse.builder()
                 .id(expense.getId())
                 .title(expense.getTitle())
@@ -262,7 +446,7 @@ public class ExpenseService {
                 .notes(expense.getNotes())
                 .receiptUrl(expense.getReceiptUrl())
                 .status(expense.getStatus())
-                .splits(expense.getSplits().stream()
+                .splits(splits.stream()
                         .map(this::mapSplitToResponse)
                         .collect(Collectors.toList()))
                 .createdAt(expense.getCreatedAt())
@@ -0,0 +1,140 @@
+package org.splitzy.expense.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.config.FullTextFunctionContributor;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.repository.ExpenseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text search over expense title, description and notes.
+ * Uses a MySQL FULLTEXT index with the ngram parser, which InnoDB keeps in sync with every insert,
+ * update and delete, and matches on character n-grams so partial words score.
+ * Falls back to LIKE while the index does not exist.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ExpenseTextSearchService {
+
+    private static final String INDEX_NAME = "ft_expense_text";
+    private static final String CREATE_INDEX_SQL = "ALTER TABLE expenses ADD FULLTEXT INDEX " + INDEX_NAME +
+            " (title, description, notes) WITH PARSER ngram";
+
+    private final ExpenseRepository expenseRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${expense.search.fulltext-enabled:true}")
+    private boolean fulltextEnabled;
+
+    // Adding the index rebuilds the table, so by default it is left to a planned migration
+    @Value("${expense.search.create-index-on-startup:false}")
+    private boolean createIndexOnStartup;
+
+    private volatile boolean fulltextAvailable;
+
+    /**
+     * Check the FULLTEXT index exists, creating it only when explicitly enabled; JPA @Index cannot declare one
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void ensureFullTextIndex() {
+        if (!fulltextEnabled) {
+            log.info("Full-text search disabled, using LIKE fallback");
+            return;
+        }
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+                            "AND table_name = 'expenses' AND index_name = ?", Integer.class, INDEX_NAME);
+            if (existing == null || existing == 0) {
+                if (!createIndexOnStartup) {
+                    log.warn("Full-text index {} is missing, using LIKE fallback. Create it with: {}", INDEX_NAME, CREATE_INDEX_SQL);
+                    fulltextAvailable = false;
+                    return;
+                }
+                log.info("Creating full-text index {} on expenses", INDEX_NAME);
+                jdbcTemplate.execute(CREATE_INDEX_SQL);
+            }
+            fulltextAvailable = true;
+        } catch (DataAccessException e) {
+            log.warn("Full-text index unavailable, using LIKE fallback: {}", e.getMessage());
+            fulltextAvailable = false;
+        }
+    }
+
+    /**
+     * Predicate on the same text match as searchIds, for filtering inside a paged Specification query
+     */
+    public Specification<Expense> matching(String term) {
+        String normalized = term.trim();
+        if (fulltextAvailable) {
+            return (root, query, cb) -> cb.greaterThan(
+                    cb.function(FullTextFunctionContributor.MATCH_AGAINST, Double.class,
+                            root.get("title"), root.get("description"), root.get("notes"), cb.literal(normalized)),
+                    0d);
+        }
+        String pattern = "%" + escapeLike(normalized) + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(root.get("title"), pattern, '\\'),
+                cb.like(root.get("description"), pattern, '\\'),
+                cb.like(root.get("notes"), pattern, '\\'));
+    }
+
+    /**
+     * Ids of the user's expenses matching the term, best match first
+     */
+    public List<Long> searchIds(Long userId, String term, int limit) {
+        String normalized = term.trim();
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        if (fulltextAvailable) {
+            return expenseRepository.searchUserExpenseIds(userId, normalized, limit);
+        }
+        return expenseRepository.searchUserExpenseIdsLike(userId, "%" + escapeLike(normalized) + "%", limit);
+    }
+
+    /**
+     * Search and hydrate the matching expenses with one IN query, keeping relevance order
+     */
+    public List<Expense> search(Long userId, String term, int limit) {
+        List<Long> ids = searchIds(userId, term, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Expense> byId = new HashMap<>();
+        for (Expense expense : expenseRepository.findAllById(ids)) {
+            byId.put(expense.getId(), expense);
+        }
+
+        List<Expense> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Expense expense = byId.get(id);
+            if (expense != null) {
+                ordered.add(expense);
+            }
+        }
+        return ordered;
+    }
+
+    private String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,88 @@
+package org.splitzy.expense.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.repository.UserBalanceBatchRepository;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.BalancePair;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository.NetAmounts;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository.NetKey;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Single write path for pairwise balances and the per-user net ledger.
+ * Every change to a user_balances row is turned into owed / owed-to deltas for both of its users and
+ * applied to user_net_balances in the same transaction. Pair rows are always locked before ledger rows.
+ * A pair keeps one row per currency, so deltas only ever add to amounts in their own currency.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class NetBalanceLedgerService {
+
+    private final UserBalanceBatchRepository userBalanceBatchRepository;
+    private final UserNetBalanceBatchRepository userNetBalanceBatchRepository;
+
+    /**
+     * Add canonical pair deltas in one currency to user_balances and carry the effect over to the ledger
+     */
+    public void applyPairDeltas(SortedMap<BalancePair, BigDecimal> deltas, String currency) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // The upsert takes the row locks, so the locking read that follows sees exactly our new balances
+        userBalanceBatchRepository.upsertAll(deltas, currency);
+        Map<BalancePair, BigDecimal> current = userBalanceBatchRepository.lockPairs(deltas.keySet(), currency);
+
+        SortedMap<NetKey, NetAmounts> netDeltas = new TreeMap<>();
+        for (Map.Entry<BalancePair, BigDecimal> entry : deltas.entrySet()) {
+            BigDecimal newAmount = current.get(entry.getKey());
+            if (newAmount == null) {
+                continue; // zero delta for a pair that has no row yet
+            }
+            addPairChange(netDeltas, entry.getKey().user1Id(), entry.getKey().user2Id(), currency,
+                    newAmount.subtract(entry.getValue()), newAmount);
+        }
+        userNetBalanceBatchRepository.upsertDeltas(netDeltas);
+    }
+
+    /**
+     * Record a change already made to a locked pair row through the entity
+     */
+    public void recordPairChange(Long user1Id, Long user2Id, String currency, BigDecimal oldAmount, BigDecimal newAmount) {
+        SortedMap<NetKey, NetAmounts> netDeltas = new TreeMap<>();
+        addPairChange(netDeltas, user1Id, user2Id, currency, oldAmount, newAmount);
+        userNetBalanceBatchRepository.upsertDeltas(netDeltas);
+    }
+
+    private void addPairChange(SortedMap<NetKey, NetAmounts> netDeltas, long user1Id, long user2Id, String currency,
+                               BigDecimal oldAmount, BigDecimal newAmount) {
+        if (oldAmount.compareTo(newAmount) == 0) {
+            return;
+        }
+        netDeltas.merge(new NetKey(user1Id, currency), user1Side(newAmount).subtract(user1Side(oldAmount)), NetAmounts::add);
+        netDeltas.merge(new NetKey(user2Id, currency), user2Side(newAmount).subtract(user2Side(oldAmount)), NetAmounts::add);
+    }
+
+    /**
+     * Totals a pair balance contributes to user1 (positive balance means user1 owes user2)
+     */
+    static NetAmounts user1Side(BigDecimal balance) {
+        return new NetAmounts(balance.max(BigDecimal.ZERO), balance.negate().max(BigDecimal.ZERO));
+    }
+
+    /**
+     * Totals a pair balance contributes to user2
+     */
+    static NetAmounts user2Side(BigDecimal balance) {
+        return new NetAmounts(balance.negate().max(BigDecimal.ZERO), balance.max(BigDecimal.ZERO));
+    }
+}
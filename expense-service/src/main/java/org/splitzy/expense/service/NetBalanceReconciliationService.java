@@ -0,0 +1,253 @@
+package org.splitzy.expense.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.repository.NamedLockRepository;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository.NetAmounts;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository.NetKey;
+import org.splitzy.expense.repository.UserNetBalanceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically recomputes user_net_balances from user_balances and reports drift.
+ * Runs on one replica at a time, under a MySQL named lock. The user id space is cut into fixed chunks that
+ * are checked in parallel; each chunk reads the ledger and the recomputed totals in one read-only snapshot,
+ * without locks. When repair is enabled the difference found in that snapshot is added to the drifted rows
+ * as a delta in a short write transaction. Postings since the snapshot moved both tables by the same
+ * amount, so the delta stays correct without locking the range, and live postings never wait on the
+ * aggregation. Repaired users' cached balances are evicted after commit.
+ */
+@Slf4j
+@Service
+public class NetBalanceReconciliationService {
+
+    private static final int MAX_LOGGED_DRIFTS = 20;
+
+    private static final String LOCK_NAME = "expense-service.ledger-reconcile";
+
+    private final UserNetBalanceRepository userNetBalanceRepository;
+    private final UserNetBalanceBatchRepository userNetBalanceBatchRepository;
+    private final NamedLockRepository namedLockRepository;
+    private final CacheEvictionService cacheEvictionService;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final Counter driftCounter;
+    private final Counter repairedCounter;
+    private final Timer runTimer;
+    private final AtomicLong lastDriftedRows = new AtomicLong();
+
+    @Value("${expense.ledger.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${expense.ledger.reconcile.initial-delay-minutes:5}")
+    private long initialDelayMinutes;
+
+    @Value("${expense.ledger.reconcile.interval-minutes:360}")
+    private long intervalMinutes;
+
+    @Value("${expense.ledger.reconcile.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${expense.ledger.reconcile.parallelism:4}")
+    private int parallelism;
+
+    // Off by default: report drift, and repair once it is understood
+    @Value("${expense.ledger.reconcile.repair:false}")
+    private boolean repair;
+
+    private ScheduledExecutorService scheduler;
+
+    public NetBalanceReconciliationService(UserNetBalanceRepository userNetBalanceRepository,
+                                           UserNetBalanceBatchRepository userNetBalanceBatchRepository,
+                                           NamedLockRepository namedLockRepository,
+                                           CacheEvictionService cacheEvictionService,
+                                           PlatformTransactionManager transactionManager,
+                                           MeterRegistry meterRegistry) {
+        this.userNetBalanceRepository = userNetBalanceRepository;
+        this.userNetBalanceBatchRepository = userNetBalanceBatchRepository;
+        this.namedLockRepository = namedLockRepository;
+        this.cacheEvictionService = cacheEvictionService;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.driftCounter = Counter.builder("balance.ledger.drift")
+                .description("Ledger rows found out of step with user_balances")
+                .register(meterRegistry);
+        this.repairedCounter = Counter.builder("balance.ledger.repaired")
+                .description("Ledger rows rewritten by reconciliation")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("balance.ledger.reconcile")
+                .description("Duration of a full ledger reconciliation")
+                .register(meterRegistry);
+        meterRegistry.gauge("balance.ledger.drift.last", lastDriftedRows);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "net-balance-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (!namedLockRepository.runExclusively(LOCK_NAME, this::reconcile)) {
+                    log.info("Net balance reconciliation is running on another replica, skipping this run");
+                }
+            } catch (Exception e) {
+                log.error("Net balance reconciliation failed: {}", e.getMessage(), e);
+            }
+        }, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Check every ledger row against user_balances, repairing drift when enabled. Callers other than the
+     * scheduler must hold the reconcile lock, since two repairs of the same drift would correct it twice.
+     */
+    public ReconciliationReport reconcile() {
+        long started = System.nanoTime();
+        long maxUserId = readTransaction.execute(status -> userNetBalanceRepository.findMaxUserId());
+
+        AtomicInteger driftedRows = new AtomicInteger();
+        AtomicInteger repairedRows = new AtomicInteger();
+        AtomicInteger logged = new AtomicInteger();
+        List<Future<?>> chunks = new ArrayList<>();
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "net-balance-reconcile-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (long from = 1; from <= maxUserId; from += chunkSize) {
+                long chunkStart = from;
+                long chunkEnd = Math.min(from + chunkSize - 1, maxUserId);
+                chunks.add(workers.submit(() -> reconcileChunk(chunkStart, chunkEnd, driftedRows, repairedRows, logged)));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Net balance reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Net balance reconciliation failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - started;
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        lastDriftedRows.set(driftedRows.get());
+
+        ReconciliationReport report = new ReconciliationReport(chunks.size(), driftedRows.get(), repairedRows.get(),
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        if (report.driftedRows() > 0) {
+            log.warn("Net balance ledger drift: {}", report);
+        } else {
+            log.info("Net balance ledger in step with user balances: {}", report);
+        }
+        return report;
+    }
+
+    private void reconcileChunk(long fromUserId, long toUserId, AtomicInteger driftedRows,
+                                AtomicInteger repairedRows, AtomicInteger logged) {
+        // Both reads share the transaction's snapshot, so the difference is exact as of that moment
+        Map<NetKey, Drift> drift = readTransaction.execute(status -> diff(fromUserId, toUserId));
+        if (drift.isEmpty()) {
+            return;
+        }
+
+        driftedRows.addAndGet(drift.size());
+        driftCounter.increment(drift.size());
+        for (Map.Entry<NetKey, Drift> entry : drift.entrySet()) {
+            if (logged.incrementAndGet() > MAX_LOGGED_DRIFTS) {
+                break;
+            }
+            log.warn("Ledger drift for user {} ({}): expected owed {} / owed to {}, ledger has {} / {}",
+                    entry.getKey().userId(), entry.getKey().currency(), entry.getValue().expected().owed(),
+                    entry.getValue().expected().owedTo(), entry.getValue().actual().owed(), entry.getValue().actual().owedTo());
+        }
+
+        if (repair) {
+            SortedMap<NetKey, NetAmounts> corrections = new TreeMap<>();
+            Set<Long> users = new HashSet<>();
+            for (Map.Entry<NetKey, Drift> entry : drift.entrySet()) {
+                corrections.put(entry.getKey(), entry.getValue().expected().subtract(entry.getValue().actual()));
+                users.add(entry.getKey().userId());
+            }
+            writeTransaction.executeWithoutResult(status -> {
+                userNetBalanceBatchRepository.upsertDeltas(corrections);
+                cacheEvictionService.evictForUsers(users);
+            });
+            repairedRows.addAndGet(corrections.size());
+            repairedCounter.increment(corrections.size());
+        }
+    }
+
+    /**
+     * Expected and stored totals for every ledger key in the range where they differ
+     */
+    private Map<NetKey, Drift> diff(long fromUserId, long toUserId) {
+        Map<NetKey, NetAmounts> ledger = userNetBalanceBatchRepository.readRange(fromUserId, toUserId);
+        Map<NetKey, NetAmounts> expected = new HashMap<>();
+        userNetBalanceBatchRepository.aggregateFromBalances(fromUserId, toUserId, expected);
+
+        Set<NetKey> keys = new HashSet<>(ledger.keySet());
+        keys.addAll(expected.keySet());
+
+        Map<NetKey, Drift> drift = new HashMap<>();
+        for (NetKey key : keys) {
+            NetAmounts want = expected.getOrDefault(key, NetAmounts.ZERO);
+            NetAmounts have = ledger.getOrDefault(key, NetAmounts.ZERO);
+            if (!want.sameAs(have)) {
+                drift.put(key, new Drift(want, have));
+            }
+        }
+        return drift;
+    }
+
+    private record Drift(NetAmounts expected, NetAmounts actual) {
+    }
+
+    /**
+     * Outcome of one reconciliation run
+     */
+    public record ReconciliationReport(int chunks, int driftedRows, int repairedRows, long durationMs) {
+    }
+}
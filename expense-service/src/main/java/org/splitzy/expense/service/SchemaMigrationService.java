@@ -0,0 +1,106 @@
+package org.splitzy.expense.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.entity.AppliedMigration;
+import org.splitzy.expense.repository.AppliedMigrationRepository;
+import org.splitzy.expense.repository.NamedLockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Versioned one-shot migrations. A migration is recorded in applied_migrations once it completes and never
+ * runs again. Replicas take a MySQL named lock to run one, so a replica that starts while another is
+ * migrating skips it instead of repeating it. A migration that fails leaves no marker and is retried on
+ * the next start.
+ *
+ * ddl-auto: update only ever adds tables, columns and indexes; the schema changes it cannot make, such as
+ * dropping a replaced index, are applied here.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchemaMigrationService {
+
+    static final String USER_BALANCES_CURRENCY_KEY = "V1_user_balances_currency_key";
+    static final String USER_BALANCES_COVERING_INDEXES = "V3_user_balances_covering_indexes";
+
+    private static final String LOCK_NAME = "expense-service.migrations";
+
+    private final AppliedMigrationRepository appliedMigrationRepository;
+    private final NamedLockRepository namedLockRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${expense.migrations.schema-on-startup:true}")
+    private boolean schemaOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateSchemaOnStartup() {
+        if (!schemaOnStartup) {
+            return;
+        }
+        // A pair has one user_balances row per currency; the old pair-only unique key allows just one
+        runOnce(USER_BALANCES_CURRENCY_KEY, "Replace the user_balances pair key with (user1_id, user2_id, currency)",
+                () -> replaceIndex("user_balances", "idx_users_pair", "idx_users_pair_currency"));
+        // ddl-auto never changes the columns of an existing index, so the covering versions get new names
+        runOnce(USER_BALANCES_COVERING_INDEXES, "Replace idx_user1 / idx_user2 with (user, balance_amount) indexes", () -> {
+            replaceIndex("user_balances", "idx_user1", "idx_user1_balance");
+            replaceIndex("user_balances", "idx_user2", "idx_user2_balance");
+        });
+    }
+
+    /**
+     * Apply the migration unless it already ran. Returns true when this call applied it.
+     */
+    public boolean runOnce(String version, String description, Runnable migration) {
+        if (appliedMigrationRepository.existsByVersion(version)) {
+            return false;
+        }
+        AtomicBoolean applied = new AtomicBoolean();
+        boolean locked = namedLockRepository.runExclusively(LOCK_NAME, () -> {
+            // Another replica may have finished it between the check above and taking the lock
+            if (appliedMigrationRepository.existsByVersion(version)) {
+                return;
+            }
+            log.info("Applying migration {}: {}", version, description);
+            long started = System.nanoTime();
+            migration.run();
+            appliedMigrationRepository.save(AppliedMigration.builder()
+                    .version(version)
+                    .description(description)
+                    .build());
+            applied.set(true);
+            log.info("Applied migration {} in {} ms", version, (System.nanoTime() - started) / 1_000_000);
+        });
+        if (!locked) {
+            log.info("Migrations are running on another replica, skipping {}", version);
+        }
+        return applied.get();
+    }
+
+    /**
+     * Drop an index that a renamed one supersedes, once the new index exists. Hibernate creates the new
+     * index at boot; if that failed, the old one is kept and the migration retried on the next start.
+     */
+    void replaceIndex(String table, String oldIndex, String newIndex) {
+        if (!indexExists(table, newIndex)) {
+            throw new IllegalStateException("Index " + newIndex + " on " + table + " is missing, keeping " + oldIndex);
+        }
+        if (indexExists(table, oldIndex)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX " + oldIndex);
+            log.info("Dropped index {} on {}, superseded by {}", oldIndex, table, newIndex);
+        }
+    }
+
+    private boolean indexExists(String table, String index) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+                        "AND table_name = ? AND index_name = ?", Integer.class, table, index);
+        return count != null && count > 0;
+    }
+}
@@ -1,7 +1,7 @@
 package org.splitzy.expense.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.common.security.oauthbearer.internals.secured.ValidateException;
+import org.splitzy.common.exception.ValidationException;
 import org.splitzy.expense.dto.request.CreateExpenseRequest;
 import org.splitzy.expense.entity.Expense;
 import org.splitzy.expense.entity.ExpenseSplit;
@@ -10,156 +10,206 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
+import java.util.function.Function;
+
+/**
+ * Turns split requests into ExpenseSplit rows.
+ * All arithmetic runs on long minor units (paise); amounts are converted from BigDecimal once on the way
+ * in and back once per split on the way out. Shares that do not divide evenly are settled with the
+ * largest remainder method, so the splits always add up to the total and no participant is more than one
+ * minor unit away from their exact share. Percentages are on the 0..100 scale for every split type.
+ */
 @Slf4j
 @Service
 public class SplitCalculationService {
 
     private static final int SCALE = 2;
     private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+    private static final long FULL_BASIS_POINTS = 10_000;     // 100.00%
 
     public List<ExpenseSplit> calculateSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        log.debug("Calculating splits for expense according to type: {}", expense.getSplitType());
-        return switch (expense.getSplitType()){
-            case EQUAL -> calculateEqualSpllits(expense, splitRequests);
+        log.debug("Calculating {} splits for {} participants", expense.getSplitType(), splitRequests.size());
+        if (splitRequests.isEmpty()) {
+            throw new ValidationException("Atleast one participant is required.");
+        }
+        return switch (expense.getSplitType()) {
+            case EQUAL -> calculateEqualSplits(expense, splitRequests);
             case CUSTOM_RATIO -> calculateCustomRatioSplits(expense, splitRequests);
-            case EXACT -> calculateExactSplits(expense, splitRequests);
-            case ITEMIZED -> calculateItemizedSplits(expense, splitRequests);
+            case EXACT -> calculateFixedSplits(expense, splitRequests, CreateExpenseRequest.SplitRequest::getAmount, "exact amounts");
+            case ITEMIZED -> calculateFixedSplits(expense, splitRequests, CreateExpenseRequest.SplitRequest::getItemTotal, "itemized totals");
             case ADJUSTMENT -> calculateAdjustmentSplits(expense, splitRequests);
-            default -> throw new ValidateException("Unsupported expense type: " + expense.getSplitType());
+            default -> throw new ValidationException("Unsupported expense type: " + expense.getSplitType());
         };
     }
-    private List<ExpenseSplit> calculateEqualSpllits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        if(splitRequests.isEmpty()){
-            throw new ValidateException("Atleast one participant is required for equal splits.");
-        }
 
-        List<ExpenseSplit> splits = new ArrayList<>();
-        int participant = splitRequests.size();
-        BigDecimal baseAmount = expense.getTotalAmount().divide(BigDecimal.valueOf(participant), SCALE, ROUNDING_MODE );
-
-        BigDecimal totalCalculated = baseAmount.multiply(BigDecimal.valueOf(participant));
-        BigDecimal difference = expense.getTotalAmount().subtract(totalCalculated);
-
-        for(int i = 0;i<splitRequests.size();i++){
-            CreateExpenseRequest.SplitRequest request = splitRequests.get(i);
-
-            BigDecimal amount = (i == splitRequests.size() -1) ? baseAmount.add(difference) : baseAmount;
-
-
-            splits.add(buildSplit(expense, request, amount, BigDecimal.valueOf(100.0/participant)));
-            log.debug("Equal split calculated for user {}: {}", request.getUserId(), amount);
+    private List<ExpenseSplit> calculateEqualSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
+        long total = toMinorUnits(expense.getTotalAmount());
+        int participants = splitRequests.size();
+        long baseAmount = Math.floorDiv(total, participants);
+        long extraUnits = Math.floorMod(total, participants);   // Handed out one each to the first participants
+        BigDecimal percentage = fromBasisPoints(divideHalfUp(FULL_BASIS_POINTS, participants));
+
+        List<ExpenseSplit> splits = new ArrayList<>(participants);
+        for (int i = 0; i < participants; i++) {
+            long amount = i < extraUnits ? baseAmount + 1 : baseAmount;
+            splits.add(buildSplit(expense, splitRequests.get(i), amount, percentage));
         }
         return splits;
     }
 
     private List<ExpenseSplit> calculateCustomRatioSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        int totalRatio = splitRequests.stream()
-                .mapToInt(r -> Optional.ofNullable(r.getRatio()).orElse(0))
-                .sum();
-
-        if(totalRatio <= 0){
-            throw new ValidateException("Total ratio must be greater than 0 for custom ration split");
-        }
-
-        List<ExpenseSplit> splits = new ArrayList<>();
-        BigDecimal totalCalculated = BigDecimal.ZERO;
-
-        for(int i = 0;i<splitRequests.size();i++){
-            CreateExpenseRequest.SplitRequest request = splitRequests.get(i);
-            if(request.getRatio() == null || request.getRatio() <= 0){
-                throw new ValidateException("Each participant's ratio must be greater than 0");
+        int participants = splitRequests.size();
+        long[] ratios = new long[participants];
+        long totalRatio = 0;
+        for (int i = 0; i < participants; i++) {
+            Integer ratio = splitRequests.get(i).getRatio();
+            if (ratio == null || ratio <= 0) {
+                throw new ValidationException("Each participant's ratio must be greater than 0");
             }
-        BigDecimal amount = expense.getTotalAmount()
-                .multiply(BigDecimal.valueOf(request.getRatio()))
-                .divide(BigDecimal.valueOf(totalRatio), SCALE, ROUNDING_MODE);
-
-        if(i == splitRequests.size() -1){
-        amount = expense.getTotalAmount().subtract(totalCalculated);
+            ratios[i] = ratio;
+            totalRatio += ratio;
+        }
+        if (totalRatio > Integer.MAX_VALUE) {
+            throw new ValidationException("Total ratio must not exceed " + Integer.MAX_VALUE);
         }
-        BigDecimal percentage = BigDecimal.valueOf(request.getRatio())
-                .divide(BigDecimal.valueOf(totalRatio), 4,ROUNDING_MODE);
-        splits.add(buildSplit(expense, request, amount, percentage));
-        totalCalculated = totalCalculated.add(amount);
 
-        log.debug("Custom ratio calculated for user {}: {} (ratio: {})", request.getUserId(), amount, request.getRatio());
+        long[] amounts = allocateByWeight(toMinorUnits(expense.getTotalAmount()), ratios, totalRatio);
+        List<ExpenseSplit> splits = new ArrayList<>(participants);
+        for (int i = 0; i < participants; i++) {
+            BigDecimal percentage = fromBasisPoints(divideHalfUp(ratios[i] * FULL_BASIS_POINTS, totalRatio));
+            splits.add(buildSplit(expense, splitRequests.get(i), amounts[i], percentage));
         }
         return splits;
     }
 
-    private List<ExpenseSplit> calculateExactSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        BigDecimal totalSplit = splitRequests.stream()
-                .map(CreateExpenseRequest.SplitRequest::getAmount)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if (expense.getTotalAmount().compareTo(totalSplit) != 0) {
-            throw new ValidateException("Sum of exact amounts does not match total. Expected: " +
-                    expense.getTotalAmount() + ", but got: " + totalSplit);
+    /**
+     * EXACT and ITEMIZED: every participant names their own amount and the amounts must add up to the total
+     */
+    private List<ExpenseSplit> calculateFixedSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests,
+                                                    Function<CreateExpenseRequest.SplitRequest, BigDecimal> amountOf, String label) {
+        int participants = splitRequests.size();
+        long total = toMinorUnits(expense.getTotalAmount());
+        long[] amounts = new long[participants];
+        long sum = 0;
+        for (int i = 0; i < participants; i++) {
+            BigDecimal amount = amountOf.apply(splitRequests.get(i));
+            if (amount == null) {
+                throw new ValidationException("Every participant needs an amount for " + label);
+            }
+            amounts[i] = toExactMinorUnits(amount, label);
+            sum += amounts[i];
+        }
+        if (sum != total) {
+            throw new ValidationException("Sum of " + label + " does not match total. Expected: " +
+                    expense.getTotalAmount() + ", but got: " + fromMinorUnits(sum));
         }
 
-            List<ExpenseSplit> splits = new ArrayList<>();
-        return splitRequests.stream()
-                .map(req -> buildSplit(expense, req, req.getAmount(), calculatePercentage(expense, req.getAmount())))
-                .peek(req -> log.debug("Exact split for user {}: {}", req.getUserId(), req.getAmount()))
-                .collect(Collectors.toList());
+        List<ExpenseSplit> splits = new ArrayList<>(participants);
+        for (int i = 0; i < participants; i++) {
+            long basisPoints = total == 0 ? 0 : divideHalfUp(amounts[i] * FULL_BASIS_POINTS, total);
+            splits.add(buildSplit(expense, splitRequests.get(i), amounts[i], fromBasisPoints(basisPoints)));
+        }
+        return splits;
     }
 
     public void validateSplitRequests(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        if(splitRequests.isEmpty() || splitRequests == null){
-            throw new ValidateException("Atleast one split is required.");
+        if (splitRequests == null || splitRequests.isEmpty()) {
+            throw new ValidationException("Atleast one split is required.");
         }
     }
 
-    private List<ExpenseSplit> calculateItemizedSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        BigDecimal totalItems = splitRequests.stream()
-                .map(CreateExpenseRequest.SplitRequest::getItemTotal)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if(expense.getTotalAmount().compareTo(totalItems) != 0){
-            throw new ValidateException("Sum ofitemized totals (" +totalItems + ") must equal total expense (" + expense.getTotalAmount() + ")");
+    private List<ExpenseSplit> calculateAdjustmentSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
+        int participants = splitRequests.size();
+        List<ExpenseSplit> splits = new ArrayList<>(participants);
+        long totalAdjustment = 0;
+        for (int i = 0; i < participants; i++) {
+            CreateExpenseRequest.SplitRequest request = splitRequests.get(i);
+            if (request.getAdjustment() == null) {
+                throw new ValidationException("Every participant needs an adjustment for adjustment splits");
+            }
+            long amount = toExactMinorUnits(request.getAdjustment(), "adjustments");
+            totalAdjustment += amount;
+            splits.add(buildSplit(expense, request, amount, null));
         }
 
-        return splitRequests.stream().map(req -> buildSplit(expense, req, req.getItemTotal(), calculatePercentage(expense, req.getItemTotal())))
-                .peek(req -> log.debug("Itemized split for user {}: {}", req.getUserId(), req.getItemTotal()))
-                .collect(Collectors.toList());
+        if (totalAdjustment != 0) {
+            log.warn("Adjustment splits do not sum to zero ({}). This will affect total reconciliation", fromMinorUnits(totalAdjustment));
+        }
+        return splits;
     }
 
-    private List<ExpenseSplit> calculateAdjustmentSplits(Expense expense, List<CreateExpenseRequest.SplitRequest> splitRequests) {
-        BigDecimal totalAdjustment = splitRequests.stream()
-                .map(CreateExpenseRequest.SplitRequest::getAdjustment)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        if(totalAdjustment.compareTo(BigDecimal.ZERO) != 0){
-            log.warn("Adjustment splits do not sum to zero ({}). This will affect total reconciliation", totalAdjustment);
+    /**
+     * Largest remainder apportionment: everyone gets the floor of their exact share, then the units left
+     * over go to the largest fractional remainders, earlier participants first on ties
+     */
+    static long[] allocateByWeight(long total, long[] weights, long totalWeight) {
+        int count = weights.length;
+        long[] amounts = new long[count];
+        // Sort key per participant: (totalWeight - 1 - remainder) in the high half so larger remainders
+        // sort first, index in the low half so ties keep request order
+        long[] order = new long[count];
+        long allocated = 0;
+        for (int i = 0; i < count; i++) {
+            long product;
+            try {
+                product = Math.multiplyExact(total, weights[i]);
+            } catch (ArithmeticException e) {
+                throw new ValidationException("Ratio " + weights[i] + " is too large for amount " + fromMinorUnits(total));
+            }
+            amounts[i] = Math.floorDiv(product, totalWeight);
+            allocated += amounts[i];
+            order[i] = ((totalWeight - 1 - Math.floorMod(product, totalWeight)) << 32) | i;
         }
 
-        return splitRequests.stream().map(req -> buildSplit(expense, req, req.getAdjustment(), null))
-                .peek(req -> log.debug("Adjustment split for user {}: {}", req.getUserId(), req.getAdjustment()))
-                .collect(Collectors.toList());
+        long leftover = total - allocated;    // Always in [0, count)
+        if (leftover > 0) {
+            Arrays.sort(order);
+            for (int k = 0; k < leftover; k++) {
+                amounts[(int) (order[k] & 0xFFFFFFFFL)]++;
+            }
+        }
+        return amounts;
     }
 
-    private ExpenseSplit buildSplit(Expense expense, CreateExpenseRequest.SplitRequest request, BigDecimal amount, BigDecimal percentage) {
+    private ExpenseSplit buildSplit(Expense expense, CreateExpenseRequest.SplitRequest request, long amount, BigDecimal percentage) {
         return ExpenseSplit.builder()
                 .expense(expense)
                 .userId(request.getUserId())
-                .amount(amount.setScale(SCALE, ROUNDING_MODE))
-                .percentage(percentage != null ? percentage.setScale(SCALE, ROUNDING_MODE) : null)
+                .amount(fromMinorUnits(amount))
+                .percentage(percentage)
                 .isSettled(false)
                 .settledAmount(BigDecimal.ZERO)
                 .notes(request.getNotes())
                 .build();
     }
 
-    private BigDecimal calculatePercentage(Expense expense,  BigDecimal amount) {
-        if(expense.getTotalAmount().compareTo(BigDecimal.ZERO) == 0) return BigDecimal.ZERO;
-        return amount.multiply(BigDecimal.valueOf(100))
-                .divide(expense.getTotalAmount(), SCALE + 2, ROUNDING_MODE);
+    // Non-negative numerator and positive denominator only
+    private static long divideHalfUp(long numerator, long denominator) {
+        return (numerator + denominator / 2) / denominator;
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, ROUNDING_MODE).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Amounts a participant names are taken as given: rounding one would break the sum they were checked against
+     */
+    static long toExactMinorUnits(BigDecimal amount, String label) {
+        if (amount.stripTrailingZeros().scale() > SCALE) {
+            throw new ValidationException("Amounts for " + label + " can have at most " + SCALE + " decimal places, got: " +
+                    amount.toPlainString());
+        }
+        return toMinorUnits(amount);
+    }
+
+    private static BigDecimal fromMinorUnits(long amount) {
+        return BigDecimal.valueOf(amount, SCALE);
+    }
+
+    private static BigDecimal fromBasisPoints(long basisPoints) {
+        return BigDecimal.valueOf(basisPoints, 2);
     }
 }
@@ -0,0 +1,70 @@
+package org.splitzy.expense.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.expense.repository.ExpenseRepository;
+import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One-off data migration of CUSTOM_RATIO split percentages.
+ * Those splits used to store their share as a 0..1 fraction while every other split type stores 0..100.
+ * Old rows are recomputed from their amount on the 0..100 scale, one transaction per range of expense ids.
+ * Runs once as a versioned migration through {@link SchemaMigrationService}; it is off by default and is
+ * switched on for the release that ships it.
+ */
+@Slf4j
+@Service
+public class SplitPercentageMigrationService {
+
+    static final String RATIO_PERCENTAGE_SCALE = "V2_custom_ratio_percentage_scale";
+
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final SchemaMigrationService schemaMigrationService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${expense.splits.rescale-ratio-percentages-on-startup:false}")
+    private boolean rescaleOnStartup;
+
+    @Value("${expense.splits.rescale-chunk-size:5000}")
+    private int chunkSize;
+
+    public SplitPercentageMigrationService(ExpenseRepository expenseRepository,
+                                           ExpenseSplitRepository expenseSplitRepository,
+                                           SchemaMigrationService schemaMigrationService,
+                                           PlatformTransactionManager transactionManager) {
+        this.expenseRepository = expenseRepository;
+        this.expenseSplitRepository = expenseSplitRepository;
+        this.schemaMigrationService = schemaMigrationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescaleOnStartup() {
+        if (rescaleOnStartup) {
+            schemaMigrationService.runOnce(RATIO_PERCENTAGE_SCALE,
+                    "Move CUSTOM_RATIO split percentages from 0..1 fractions to 0..100", this::rescaleRatioPercentages);
+        }
+    }
+
+    /**
+     * Move every CUSTOM_RATIO expense whose percentages are still fractions onto the 0..100 scale.
+     * A run interrupted part way is safe to repeat: rescaled expenses no longer match.
+     */
+    void rescaleRatioPercentages() {
+        long maxId = expenseRepository.findMaxId();
+        int rescaled = 0;
+        for (long afterId = 0; afterId < maxId; afterId += chunkSize) {
+            long from = afterId;
+            Integer updated = transactionTemplate.execute(
+                    status -> expenseSplitRepository.rescaleRatioPercentages(from, from + chunkSize));
+            rescaled += updated != null ? updated : 0;
+        }
+        log.info("Rescaled {} custom ratio split percentages to 0..100", rescaled);
+    }
+}
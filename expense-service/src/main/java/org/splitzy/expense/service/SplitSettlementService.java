@@ -0,0 +1,269 @@
+package org.splitzy.expense.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.exception.ResourceNotFoundException;
+import org.splitzy.common.exception.ValidationException;
+import org.splitzy.expense.dto.request.BatchSettleRequest;
+import org.splitzy.expense.dto.response.BatchSettleResponse;
+import org.splitzy.expense.dto.response.SettleBetweenUsersResponse;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.splitzy.expense.entity.SettledBatch;
+import org.splitzy.expense.repository.ExpenseBatchRepository;
+import org.splitzy.expense.repository.ExpenseRepository;
+import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.splitzy.expense.repository.SettledBatchRepository;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.BalancePair;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Settles outstanding splits in bulk: whole user pairs at once, or a payment applied oldest-first.
+ * Split rows are written with set-based UPDATEs or one JDBC batch, balance and rollup deltas are merged
+ * before they are written, and expenses whose splits are all settled are marked SETTLED in one flush.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class SplitSettlementService {
+
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    private final ExpenseSplitRepository expenseSplitRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ExpenseBatchRepository expenseBatchRepository;
+    private final BalancePostingService balancePostingService;
+    private final ExpenseRollupService expenseRollupService;
+    private final CacheEvictionService cacheEvictionService;
+    private final ExpenseEventPublisher expenseEventPublisher;
+    private final SettledBatchRepository settledBatchRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Settle every outstanding split between each pair of users. Pairs are locked in canonical
+     * (lower id, higher id) order so concurrent batches over overlapping pairs cannot deadlock,
+     * and a pair whose outstanding splits span currencies is rejected rather than summed.
+     * A reference that was already settled returns its recorded outcome and settles nothing.
+     */
+    public BatchSettleResponse settlePairs(BatchSettleRequest request) {
+        log.info("Settling {} user pairs (reference: {})", request.getPairs().size(), request.getReference());
+
+        if (request.getReference() != null) {
+            Optional<BatchSettleResponse> previous = findSettledBatch(request.getReference());
+            if (previous.isPresent()) {
+                log.info("Batch {} was already settled, returning its recorded outcome", request.getReference());
+                return previous.get();
+            }
+        }
+
+        SortedMap<BalancePair, BatchSettleRequest.PairSettlement> lockOrder = new TreeMap<>();
+        for (BatchSettleRequest.PairSettlement pair : request.getPairs()) {
+            if (pair.getUser1Id().equals(pair.getUser2Id())) {
+                throw new ValidationException("Cannot settle a user with themselves");
+            }
+            if (lockOrder.put(BalancePair.of(pair.getUser1Id(), pair.getUser2Id()), pair) != null) {
+                throw new ValidationException("Pair " + pair.getUser1Id() + "/" + pair.getUser2Id() + " appears more than once");
+            }
+        }
+
+        Map<ExpenseSplit, BigDecimal> settled = new LinkedHashMap<>();
+        Map<Long, Expense> touchedExpenses = new LinkedHashMap<>();
+        Map<BalancePair, BatchSettleResponse.PairResult> resultByPair = new HashMap<>();
+        for (Map.Entry<BalancePair, BatchSettleRequest.PairSettlement> entry : lockOrder.entrySet()) {
+            BatchSettleRequest.PairSettlement pair = entry.getValue();
+            BigDecimal user1Paid = BigDecimal.ZERO;
+            BigDecimal user2Paid = BigDecimal.ZERO;
+            String currency = null;
+            List<ExpenseSplit> splits = expenseSplitRepository.lockUnsettledSplitsForPair(pair.getUser1Id(), pair.getUser2Id());
+            for (ExpenseSplit split : splits) {
+                String splitCurrency = split.getExpense().getCurrency();
+                if (currency == null) {
+                    currency = splitCurrency;
+                } else if (!currency.equals(splitCurrency)) {
+                    throw new ValidationException("Pair " + pair.getUser1Id() + "/" + pair.getUser2Id()
+                            + " has outstanding splits in both " + currency + " and " + splitCurrency);
+                }
+                BigDecimal remaining = split.getRemainingAmount();
+                settled.put(split, remaining);
+                touchedExpenses.put(split.getExpense().getId(), split.getExpense());
+                if (split.getUserId().equals(pair.getUser1Id())) {
+                    user1Paid = user1Paid.add(remaining);
+                } else {
+                    user2Paid = user2Paid.add(remaining);
+                }
+            }
+
+            resultByPair.put(entry.getKey(), BatchSettleResponse.PairResult.builder()
+                    .user1Id(pair.getUser1Id())
+                    .user2Id(pair.getUser2Id())
+                    .settledSplitCount(splits.size())
+                    .user1Paid(user1Paid)
+                    .user2Paid(user2Paid)
+                    .currency(currency != null ? currency : "INR")
+                    .build());
+        }
+        List<BatchSettleResponse.PairResult> results = request.getPairs().stream()
+                .map(pair -> resultByPair.get(BalancePair.of(pair.getUser1Id(), pair.getUser2Id())))
+                .toList();
+
+        List<Long> splitIds = settled.keySet().stream().map(ExpenseSplit::getId).toList();
+        for (int from = 0; from < splitIds.size(); from += UPDATE_CHUNK_SIZE) {
+            expenseSplitRepository.markAllAsSettled(splitIds.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, splitIds.size())));
+        }
+        List<Long> settledExpenseIds = postSettled(settled, touchedExpenses);
+
+        log.info("Settled {} splits across {} pairs; {} expenses fully settled",
+                splitIds.size(), results.size(), settledExpenseIds.size());
+        BatchSettleResponse response = BatchSettleResponse.builder()
+                .reference(request.getReference())
+                .settledSplitCount(splitIds.size())
+                .settledExpenseIds(settledExpenseIds)
+                .pairs(results)
+                .build();
+        if (request.getReference() != null) {
+            recordSettledBatch(response);
+        }
+        return response;
+    }
+
+    /**
+     * Recorded outcome of an earlier batch settlement, so a caller that lost the response can learn whether it applied
+     */
+    @Transactional(readOnly = true)
+    public BatchSettleResponse getSettledBatch(String reference) {
+        return findSettledBatch(reference)
+                .orElseThrow(() -> new ResourceNotFoundException("Settled batch", "reference", reference));
+    }
+
+    /**
+     * Apply a payment from payer to payee across the splits the payer owes in the payment's currency, oldest
+     * expense first. Every split the payment covers is settled; the last one may be settled partially.
+     * Splits in other currencies are untouched: a payment never converts between currencies.
+     */
+    public SettleBetweenUsersResponse settleBetweenUsers(Long payerUserId, Long payeeUserId, BigDecimal amount, String currency) {
+        log.info("Settling {} {} from user {} to user {}", amount, currency, payerUserId, payeeUserId);
+
+        if (payerUserId.equals(payeeUserId)) {
+            throw new ValidationException("Cannot settle a user with themselves");
+        }
+
+        List<ExpenseSplit> splits = expenseSplitRepository.lockUnsettledSplitsOwedTo(payerUserId, payeeUserId, currency);
+        BigDecimal outstanding = splits.stream()
+                .map(ExpenseSplit::getRemainingAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (amount.compareTo(outstanding) > 0) {
+            throw new ValidationException("Payment of " + amount + " " + currency + " exceeds the outstanding "
+                    + outstanding + " " + currency + " owed to user " + payeeUserId);
+        }
+
+        Map<ExpenseSplit, BigDecimal> settled = new LinkedHashMap<>();
+        Map<Long, Expense> touchedExpenses = new LinkedHashMap<>();
+        BigDecimal left = amount;
+        int fullySettled = 0;
+        Long partialSplitId = null;
+        for (ExpenseSplit split : splits) {
+            if (left.signum() == 0) {
+                break;
+            }
+            BigDecimal remaining = split.getRemainingAmount();
+            BigDecimal applied = remaining.min(left);
+            settled.put(split, applied);
+            touchedExpenses.put(split.getExpense().getId(), split.getExpense());
+            left = left.subtract(applied);
+            if (applied.compareTo(remaining) == 0) {
+                fullySettled++;
+            } else {
+                partialSplitId = split.getId();
+            }
+        }
+
+        expenseBatchRepository.applySettlements(settled);
+        List<Long> settledExpenseIds = postSettled(settled, touchedExpenses);
+
+        log.info("Applied {} across {} splits from user {} to user {}", amount, settled.size(), payerUserId, payeeUserId);
+        return SettleBetweenUsersResponse.builder()
+                .payerUserId(payerUserId)
+                .payeeUserId(payeeUserId)
+                .amountApplied(amount)
+                .currency(currency)
+                .remainingOwed(outstanding.subtract(amount))
+                .settledSplitCount(fullySettled)
+                .partiallySettledSplitId(partialSplitId)
+                .settledExpenseIds(settledExpenseIds)
+                .build();
+    }
+
+    /**
+     * Carry written split settlements over to balances, rollups, expense status, caches and events
+     */
+    private List<Long> postSettled(Map<ExpenseSplit, BigDecimal> settled, Map<Long, Expense> touchedExpenses) {
+        balancePostingService.postSettlements(settled);
+        expenseRollupService.recordSettlements(settled);
+
+        List<Long> settledExpenseIds = markSettledExpenses(touchedExpenses);
+        for (Expense expense : touchedExpenses.values()) {
+            cacheEvictionService.evictExpense(expense.getId());
+        }
+        expenseEventPublisher.publishSplitsSettled(touchedExpenses.values());
+        return settledExpenseIds;
+    }
+
+    private Optional<BatchSettleResponse> findSettledBatch(String reference) {
+        return settledBatchRepository.findByReference(reference).map(batch -> {
+            try {
+                return objectMapper.readValue(batch.getResult(), BatchSettleResponse.class);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("Failed to read settled batch " + reference, e);
+            }
+        });
+    }
+
+    /**
+     * Store the outcome in the settling transaction. A concurrent request with the same reference blocks on the
+     * unique reference until the first commits and then fails, so only one outcome ever commits.
+     */
+    private void recordSettledBatch(BatchSettleResponse response) {
+        try {
+            settledBatchRepository.save(SettledBatch.builder()
+                    .reference(response.getReference())
+                    .result(objectMapper.writeValueAsString(response))
+                    .build());
+        } catch (JsonProcessingException e) {
+            // Fail the settlement rather than commit it without its record
+            throw new UncheckedIOException("Failed to serialize settled batch " + response.getReference(), e);
+        }
+    }
+
+    /**
+     * Flip the status of expenses that no longer have unsettled participant splits. The status is set on the
+     * managed entities, which are flushed as one JDBC batch, so the events and anything else built from them
+     * in this transaction see SETTLED.
+     */
+    private List<Long> markSettledExpenses(Map<Long, Expense> expenses) {
+        List<Long> candidates = new ArrayList<>(expenses.keySet());
+        List<Long> settledIds = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = candidates.subList(from, Math.min(from + UPDATE_CHUNK_SIZE, candidates.size()));
+            for (Long expenseId : expenseRepository.findFullySettledExpenseIds(chunk)) {
+                expenses.get(expenseId).setStatus(Expense.ExpenseStatus.SETTLED);
+                settledIds.add(expenseId);
+            }
+        }
+        return settledIds;
+    }
+}
@@ -0,0 +1,149 @@
+package org.splitzy.expense.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.splitzy.expense.dto.ExpenseEvent;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per second and publish latency of the expense event producer under each ProducerProfile, against
+ * a single-node Kafka. The producer is built by KafkaProducerConfig itself, so the numbers cover the real
+ * settings and the metrics listener. publish only waits for the producer to accept the record, which holds
+ * at the broker's pace once buffer.memory fills; publishAndAwait waits for the acknowledgement. The
+ * listener's ack latency for the whole trial, which mostly comes from publish, is printed at the end.
+ *
+ * Run with: mvn -pl expense-service -am test-compile, then this class's main on the expense-service test
+ * classpath. Needs Docker.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class ProducerProfileBenchmark {
+
+    private static final String TOPIC = "expense-events-benchmark";
+    private static final int PARTITIONS = 6;
+    private static final int PARTICIPANTS = 4;
+
+    @Param({"THROUGHPUT", "BALANCED", "LOW_LATENCY"})
+    public ProducerProfile profile;
+
+    private KafkaContainer kafka;
+    private SimpleMeterRegistry meterRegistry;
+    private ProducerFactory<String, ExpenseEvent> producerFactory;
+    private KafkaTemplate<String, ExpenseEvent> kafkaTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ExecutionException, InterruptedException {
+        kafka = new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+        kafka.start();
+        try (AdminClient admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers()))) {
+            admin.createTopics(List.of(new NewTopic(TOPIC, PARTITIONS, (short) 1))).all().get();
+        }
+
+        KafkaProducerConfig config = new KafkaProducerConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", kafka.getBootstrapServers());
+        ReflectionTestUtils.setField(config, "profile", profile);
+        ReflectionTestUtils.setField(config, "valueFormat", KafkaProducerConfig.ValueFormat.JSON);
+        ReflectionTestUtils.setField(config, "lingerMs", -1);
+        ReflectionTestUtils.setField(config, "batchSize", -1);
+        ReflectionTestUtils.setField(config, "compressionType", "");
+        meterRegistry = new SimpleMeterRegistry();
+        producerFactory = config.producerFactory(meterRegistry);
+        kafkaTemplate = config.kafkaTemplate(producerFactory, meterRegistry);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drain() {
+        // Records still in the accumulator belong to this iteration, not the next one
+        kafkaTemplate.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Timer latency = meterRegistry.get("kafka.producer.send.latency").timer();
+        System.out.printf("%n%s: %d acks, mean %.1f ms, max %.1f ms from send() to ack%n", profile, latency.count(),
+                latency.mean(TimeUnit.MILLISECONDS), latency.max(TimeUnit.MILLISECONDS));
+        producerFactory.reset();
+        kafka.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Object publish() {
+        ExpenseEvent event = event();
+        return kafkaTemplate.send(TOPIC, event.getExpenseId().toString(), event);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SendResult<String, ExpenseEvent> publishAndAwait() throws ExecutionException, InterruptedException {
+        ExpenseEvent event = event();
+        return kafkaTemplate.send(TOPIC, event.getExpenseId().toString(), event).get();
+    }
+
+    // Shaped like the events ExpenseService publishes for a four-way split
+    private static ExpenseEvent event() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long payer = 1 + random.nextLong(100_000);
+        List<Long> participants = new ArrayList<>(PARTICIPANTS);
+        participants.add(payer);
+        for (int i = 1; i < PARTICIPANTS; i++) {
+            participants.add(1 + random.nextLong(100_000));
+        }
+        return ExpenseEvent.builder()
+                .eventType(ExpenseEvent.EventType.EXPENSE_CREATED.name())
+                .expenseId(random.nextLong(1, Long.MAX_VALUE))
+                .title("Dinner at the corner place")
+                .totalAmount(BigDecimal.valueOf(random.nextLong(100, 1_000_000), 2))
+                .currency("INR")
+                .paidByUserId(payer)
+                .groupId(1 + random.nextLong(10_000))
+                .participantUserIds(participants)
+                .eventTimestamp(LocalDateTime.now())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProducerProfileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
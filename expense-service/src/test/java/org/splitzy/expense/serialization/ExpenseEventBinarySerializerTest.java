@@ -0,0 +1,44 @@
+package org.splitzy.expense.serialization;
+
+import org.junit.jupiter.api.Test;
+import org.splitzy.common.util.ExpenseEventCodec;
+import org.splitzy.expense.dto.ExpenseEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExpenseEventBinarySerializerTest {
+
+    private final ExpenseEventBinarySerializer serializer = new ExpenseEventBinarySerializer();
+
+    @Test
+    void writesEveryFieldInTheSharedLayout() {
+        ExpenseEvent event = ExpenseEvent.builder()
+                .eventType("EXPENSE_UPDATED")
+                .expenseId(2_000_001L)
+                .title("Rent")
+                .totalAmount(new BigDecimal("45000.00"))
+                .currency("INR")
+                .paidByUserId(11L)
+                .groupId(4L)
+                .participantUserIds(List.of(11L, 12L, 13L))
+                .eventTimestamp(LocalDateTime.of(2026, 7, 1, 9, 0))
+                .notes("July")
+                .build();
+
+        byte[] data = serializer.serialize("expense-events", event);
+
+        assertEquals(new ExpenseEventCodec.Fields("EXPENSE_UPDATED", 2_000_001L, "Rent", new BigDecimal("45000.00"),
+                "INR", 11L, 4L, List.of(11L, 12L, 13L), LocalDateTime.of(2026, 7, 1, 9, 0), "July"),
+                ExpenseEventCodec.decode(data));
+    }
+
+    @Test
+    void passesNullThrough() {
+        assertNull(serializer.serialize("expense-events", null));
+    }
+}
@@ -0,0 +1,116 @@
+package org.splitzy.expense.serialization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.splitzy.common.util.ExpenseEventCodec;
+import org.splitzy.expense.dto.ExpenseEvent;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and encode/decode throughput of an expense event in the binary ExpenseEventCodec layout against the
+ * JSON the producer sends by default, for a small split and a 50-member group expense. The JSON side uses
+ * Spring Kafka's JsonSerializer and JsonDeserializer configured as on the expense-events topic. Sizes are
+ * printed once per trial.
+ *
+ * Run with: mvn -pl expense-service -am test-compile, then this class's main on the expense-service test
+ * classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseEventCodecBenchmark {
+
+    private static final String TOPIC = "expense-events";
+
+    @Param({"3", "50"})
+    public int participants;
+
+    private ExpenseEvent event;
+    private ExpenseEventBinarySerializer binarySerializer;
+    private JsonSerializer<ExpenseEvent> jsonSerializer;
+    private JsonDeserializer<ExpenseEvent> jsonDeserializer;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Long> participantUserIds = new ArrayList<>(participants);
+        for (int i = 0; i < participants; i++) {
+            // Ids of users who joined around the same time, as in a real group
+            participantUserIds.add(1_250_000L + i * 37L);
+        }
+        event = ExpenseEvent.builder()
+                .eventType(ExpenseEvent.EventType.EXPENSE_CREATED.name())
+                .expenseId(48_210_377L)
+                .title("Team offsite dinner")
+                .totalAmount(new BigDecimal("18450.75"))
+                .currency("INR")
+                .paidByUserId(participantUserIds.get(0))
+                .groupId(90_412L)
+                .participantUserIds(participantUserIds)
+                .eventTimestamp(LocalDateTime.of(2026, 7, 1, 21, 30, 15))
+                .notes("Split equally")
+                .build();
+
+        binarySerializer = new ExpenseEventBinarySerializer();
+        jsonSerializer = new JsonSerializer<>();
+        jsonSerializer.configure(Map.of(JsonSerializer.ADD_TYPE_INFO_HEADERS, false), false);
+        jsonDeserializer = new JsonDeserializer<>(ExpenseEvent.class, false);
+        jsonDeserializer.ignoreTypeHeaders();
+
+        binary = binarySerializer.serialize(TOPIC, event);
+        json = jsonSerializer.serialize(TOPIC, event);
+        System.out.printf("%n%d participants: binary %d bytes, JSON %d bytes (%.0f%%)%n", participants, binary.length,
+                json.length, 100.0 * binary.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public ExpenseEventCodec.Fields decodeBinary() {
+        return ExpenseEventCodec.decode(binary);
+    }
+
+    @Benchmark
+    public ExpenseEvent decodeJson() {
+        return jsonDeserializer.deserialize(TOPIC, json);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExpenseEventCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,132 @@
+package org.splitzy.expense.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.splitzy.expense.dto.ExpenseEvent;
+import org.splitzy.expense.repository.ExpenseOutboxBatchRepository;
+import org.splitzy.expense.repository.ExpenseOutboxBatchRepository.OutboxRow;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the relay against a real MySQL, with the Kafka producer mocked
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ExpenseOutboxRelayTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ExpenseOutboxBatchRepository outboxRepository;
+    private KafkaTemplate<String, ExpenseEvent> kafkaTemplate;
+    private ExpenseOutboxRelay relay;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS expense_outbox");
+        jdbcTemplate.execute("CREATE TABLE expense_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, aggregate_id BIGINT NOT NULL, " +
+                "event_type VARCHAR(32) NOT NULL, payload TEXT NOT NULL, claimed_by VARCHAR(36), claimed_until DATETIME(6), " +
+                "created_at DATETIME(6), updated_at DATETIME(6), is_active BIT)");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        outboxRepository = new ExpenseOutboxBatchRepository(jdbcTemplate, 500);
+
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(ExpenseEvent.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        relay = new ExpenseOutboxRelay(outboxRepository, kafkaTemplate, new ObjectMapper(), transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "topic", "expense-events");
+        ReflectionTestUtils.setField(relay, "batchSize", 100);
+        ReflectionTestUtils.setField(relay, "sendTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(relay, "leaseSeconds", 60L);
+    }
+
+    @Test
+    void publishesAndDeletesTheHead() {
+        append(3);
+
+        assertEquals(3, relay.relayBatch());
+
+        verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any(ExpenseEvent.class));
+        assertEquals(0, pending());
+    }
+
+    @Test
+    void redeliversRowsLeasedByARelayThatDied() throws InterruptedException {
+        append(3);
+        // A relay leases the head and dies before deleting it
+        List<OutboxRow> leased = transactionTemplate.execute(status -> outboxRepository.claimBatch(100, "dead-relay", 1));
+        assertEquals(3, leased.size());
+
+        // Held rows are neither sent twice nor overtaken while the lease runs
+        append(1);
+        assertEquals(0, relay.relayBatch());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(ExpenseEvent.class));
+
+        // NOW() has second precision, so give the one-second lease two to run out
+        Thread.sleep(2_500);
+
+        assertEquals(4, relay.relayBatch());
+        verify(kafkaTemplate, times(4)).send(anyString(), anyString(), any(ExpenseEvent.class));
+        assertEquals(0, pending());
+    }
+
+    @Test
+    void releasesWhatWasNotAcknowledgedForTheNextRound() {
+        append(3);
+        CompletableFuture<SendResult<String, ExpenseEvent>> failed = CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+        when(kafkaTemplate.send(anyString(), eq("2"), any(ExpenseEvent.class))).thenReturn(failed);
+
+        assertEquals(-1, relay.relayBatch());
+        assertEquals(2, pending());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_outbox WHERE claimed_by IS NOT NULL", Integer.class));
+
+        when(kafkaTemplate.send(anyString(), eq("2"), any(ExpenseEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
+        assertEquals(2, relay.relayBatch());
+        assertEquals(0, pending());
+    }
+
+    // Rows for expenses 1..count, keyed by expense id
+    private void append(int count) {
+        int existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_outbox", Integer.class);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{existing + i, "{\"eventType\":\"EXPENSE_CREATED\",\"expenseId\":" + (existing + i) + "}"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO expense_outbox (aggregate_id, event_type, payload, created_at, updated_at, is_active) " +
+                "VALUES (?, 'EXPENSE_CREATED', ?, NOW(6), NOW(6), true)", rows);
+    }
+
+    private int pending() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM expense_outbox", Integer.class);
+    }
+}
@@ -0,0 +1,190 @@
+package org.splitzy.expense.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.splitzy.common.dto.PageResponse;
+import org.splitzy.expense.dto.ExpenseResponse;
+import org.splitzy.expense.dto.ExpenseSearchCriteria;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.repository.ExpenseBatchRepository;
+import org.splitzy.expense.repository.ExpenseDailyRollupRepository;
+import org.splitzy.expense.repository.ExpenseRepository;
+import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latency of the filtered expense listing, which is one Specification query plus its count and one split
+ * query, against a MySQL seeded with the given number of expenses and two splits each. Sample time mode
+ * reports the percentiles, so read p99 against the latency budget. Seeding 10M rows takes several minutes;
+ * pass -p expenses=1000000 for a quicker run.
+ *
+ * Run with: mvn -pl expense-service -am test-compile, then this class's main on the expense-service test
+ * classpath. Needs Docker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExpenseSearchBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int DAYS = 1_500;
+    private static final int CHUNK = 500_000;
+    private static final LocalDate LAST_DAY = LocalDate.of(2026, 1, 1);
+
+    @Param({"10000000"})
+    public int expenses;
+
+    private MySQLContainer<?> mysql;
+    private ConfigurableApplicationContext context;
+    private ExpenseService expenseService;
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan("org.splitzy.expense.entity")
+    @EnableJpaRepositories("org.splitzy.expense.repository")
+    static class JpaConfig {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mysql = new MySQLContainer<>("mysql:8.0").withCommand("--innodb-buffer-pool-size=2G");
+        mysql.start();
+        context = new SpringApplicationBuilder(JpaConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + mysql.getJdbcUrl(),
+                        "spring.datasource.username=" + mysql.getUsername(),
+                        "spring.datasource.password=" + mysql.getPassword(),
+                        "spring.jpa.hibernate.ddl-auto=create")
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+
+        expenseService = new ExpenseService(context.getBean(ExpenseRepository.class), context.getBean(ExpenseSplitRepository.class),
+                mock(ExpenseBatchRepository.class), mock(ExpenseDailyRollupRepository.class), mock(ExpenseRollupService.class),
+                mock(ExpenseTextSearchService.class), mock(CacheEvictionService.class), mock(BalancePostingService.class),
+                new SplitCalculationService(), mock(ExpenseEventPublisher.class));
+        ReflectionTestUtils.setField(expenseService, "maxSearchCandidates", 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        mysql.stop();
+    }
+
+    @Benchmark
+    public PageResponse<ExpenseResponse> unfiltered() {
+        return expenseService.getUserExpenses(randomUser(), page().build());
+    }
+
+    @Benchmark
+    public PageResponse<ExpenseResponse> categoryAndDateRange() {
+        return expenseService.getUserExpenses(randomUser(), page()
+                .categories(List.of(Expense.ExpenseCategory.FOOD_DINING, Expense.ExpenseCategory.GROCERIES))
+                .dateFrom(LAST_DAY.minusYears(1))
+                .dateTo(LAST_DAY)
+                .build());
+    }
+
+    @Benchmark
+    public PageResponse<ExpenseResponse> statusAndAmountRange() {
+        return expenseService.getUserExpenses(randomUser(), page()
+                .status(Expense.ExpenseStatus.ACTIVE)
+                .amountMin(new BigDecimal("500.00"))
+                .amountMax(new BigDecimal("5000.00"))
+                .build());
+    }
+
+    private static ExpenseSearchCriteria.ExpenseSearchCriteriaBuilder page() {
+        return ExpenseSearchCriteria.builder().page(0).size(20);
+    }
+
+    private static long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    // Doubles the table with INSERT ... SELECT in bounded chunks, drawing payer, date, category and amount per row
+    private void seed(JdbcTemplate jdbcTemplate) {
+        String categories = categoryList();
+        jdbcTemplate.update("INSERT INTO expenses (title, total_amount, currency, paid_by_user_id, expense_date, category, " +
+                "split_type, status, created_at, updated_at, is_active) " +
+                "VALUES ('Expense', 100.00, 'INR', 1, ?, 'FOOD_DINING', 'EQUAL', 'ACTIVE', NOW(6), NOW(6), true)", LAST_DAY);
+        long rows = 1;
+        while (rows < expenses) {
+            long batch = Math.min(Math.min(rows, expenses - rows), CHUNK);
+            jdbcTemplate.update("INSERT INTO expenses (title, total_amount, currency, paid_by_user_id, expense_date, category, " +
+                    "split_type, status, created_at, updated_at, is_active) " +
+                    "SELECT 'Expense', ROUND(1 + RAND() * 9999, 2), 'INR', 1 + FLOOR(RAND() * ?), " +
+                    "DATE_SUB(?, INTERVAL FLOOR(RAND() * ?) DAY), ELT(1 + FLOOR(RAND() * ?), " + categories + "), " +
+                    "'EQUAL', IF(RAND() < 0.9, 'ACTIVE', 'SETTLED'), NOW(6), NOW(6), true FROM expenses LIMIT ?",
+                    USERS, LAST_DAY, DAYS, Expense.ExpenseCategory.values().length, batch);
+            rows += batch;
+        }
+
+        // The payer and the next user along each owe half
+        long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM expenses", Long.class);
+        for (long from = 1; from <= maxId; from += CHUNK) {
+            jdbcTemplate.update("INSERT INTO expense_splits (expense_id, user_id, amount, is_settled, settled_amount, " +
+                    "created_at, updated_at, is_active) " +
+                    "SELECT id, paid_by_user_id, total_amount / 2, false, 0, NOW(6), NOW(6), true FROM expenses " +
+                    "WHERE id BETWEEN ? AND ? " +
+                    "UNION ALL " +
+                    "SELECT id, paid_by_user_id % ? + 1, total_amount / 2, false, 0, NOW(6), NOW(6), true FROM expenses " +
+                    "WHERE id BETWEEN ? AND ?",
+                    from, from + CHUNK - 1, USERS, from, from + CHUNK - 1);
+        }
+        jdbcTemplate.execute("ANALYZE TABLE expenses, expense_splits");
+    }
+
+    private static String categoryList() {
+        StringBuilder list = new StringBuilder();
+        for (Expense.ExpenseCategory category : Expense.ExpenseCategory.values()) {
+            list.append(list.isEmpty() ? "" : ", ").append('\'').append(category.name()).append('\'');
+        }
+        return list.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExpenseSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+package org.splitzy.expense.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.splitzy.expense.dto.ExpenseSearchCriteria;
+import org.splitzy.expense.entity.Expense;
+import org.splitzy.expense.entity.ExpenseSplit;
+import org.splitzy.expense.repository.ExpenseBatchRepository;
+import org.splitzy.expense.repository.ExpenseDailyRollupRepository;
+import org.splitzy.expense.repository.ExpenseRepository;
+import org.splitzy.expense.repository.ExpenseSplitRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the SQL statements each listing path sends, with Hibernate statistics, so a lazy load per
+ * expense shows up as a failure instead of as a slow page
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ExpenseServiceQueryCountTest {
+
+    private static final long USER_ID = 7L;
+    private static final int EXPENSES = 30;
+    private static final int SPLITS_PER_EXPENSE = 3;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    // The application class has its own @ComponentScan, which would turn this slice into a full context
+    @Configuration
+    @EntityScan("org.splitzy.expense.entity")
+    @EnableJpaRepositories("org.splitzy.expense.repository")
+    static class JpaConfig {
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+    }
+
+    @Autowired
+    private ExpenseRepository expenseRepository;
+
+    @Autowired
+    private ExpenseSplitRepository expenseSplitRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ExpenseTextSearchService expenseTextSearchService;
+    private ExpenseService expenseService;
+    private Statistics statistics;
+    private final List<Long> expenseIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        expenseTextSearchService = mock(ExpenseTextSearchService.class);
+        expenseService = new ExpenseService(expenseRepository, expenseSplitRepository, mock(ExpenseBatchRepository.class),
+                mock(ExpenseDailyRollupRepository.class), mock(ExpenseRollupService.class), expenseTextSearchService,
+                mock(CacheEvictionService.class), mock(BalancePostingService.class), new SplitCalculationService(),
+                mock(ExpenseEventPublisher.class));
+        ReflectionTestUtils.setField(expenseService, "maxSearchCandidates", 1000);
+
+        for (int i = 0; i < EXPENSES; i++) {
+            Expense expense = Expense.builder()
+                    .title("Dinner " + i)
+                    .totalAmount(new BigDecimal("90.00"))
+                    .paidByUserId(USER_ID)
+                    .expenseDate(LocalDate.of(2026, 1, 1).plusDays(i))
+                    .category(Expense.ExpenseCategory.FOOD_DINING)
+                    .build();
+            for (int s = 0; s < SPLITS_PER_EXPENSE; s++) {
+                expense.getSplits().add(ExpenseSplit.builder()
+                        .expense(expense)
+                        .userId(USER_ID + s)
+                        .amount(new BigDecimal("30.00"))
+                        .isSettled(false)
+                        .settledAmount(BigDecimal.ZERO)
+                        .build());
+            }
+            expenseIds.add(entityManager.persist(expense).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pagedListingRunsPageCountAndOneSplitQuery() {
+        expenseService.getUserExpenses(USER_ID, ExpenseSearchCriteria.builder().page(0).size(10).build());
+
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cursorListingRunsPageAndOneSplitQuery() {
+        expenseService.getUserExpensesByCursor(USER_ID, null, 10);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void unsettledListingRunsPageAndOneSplitQuery() {
+        // Every expense fits on the one page, so Spring Data skips the count query
+        expenseService.getUnsettledExpenses(USER_ID);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void searchRunsOneSplitQueryForAllMatches() {
+        List<Expense> matches = expenseRepository.findAllById(expenseIds);
+        when(expenseTextSearchService.search(eq(USER_ID), anyString(), anyInt())).thenReturn(matches);
+        statistics.clear();
+
+        expenseService.searchExpenses(USER_ID, "dinner", 50);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void detailLoadsExpenseAndSplitsInOneQuery() {
+        expenseService.getExpenseById(expenseIds.get(0));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
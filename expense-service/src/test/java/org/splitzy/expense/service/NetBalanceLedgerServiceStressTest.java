@@ -0,0 +1,153 @@
+package org.splitzy.expense.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.splitzy.expense.repository.UserBalanceBatchRepository;
+import org.splitzy.expense.repository.UserBalanceBatchRepository.BalancePair;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository.NetAmounts;
+import org.splitzy.expense.repository.UserNetBalanceBatchRepository.NetKey;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64 threads posting balance deltas to a handful of user pairs at once, against a real MySQL.
+ * Every increment must land in user_balances and the net ledger must still match the pair rows.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NetBalanceLedgerServiceStressTest {
+
+    private static final int THREADS = 64;
+    private static final int POSTS_PER_THREAD = 200;
+    private static final int USERS = 6;
+    private static final String CURRENCY = "INR";
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private UserNetBalanceBatchRepository userNetBalanceBatchRepository;
+    private NetBalanceLedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(MYSQL.getJdbcUrl() + "?rewriteBatchedStatements=true");
+        dataSource.setUsername(MYSQL.getUsername());
+        dataSource.setPassword(MYSQL.getPassword());
+        dataSource.setMaximumPoolSize(THREADS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS user_balances");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS user_net_balances");
+        jdbcTemplate.execute("CREATE TABLE user_balances (id BIGINT AUTO_INCREMENT PRIMARY KEY, user1_id BIGINT NOT NULL, " +
+                "user2_id BIGINT NOT NULL, balance_amount DECIMAL(10, 2) NOT NULL, currency VARCHAR(3) NOT NULL, " +
+                "created_at DATETIME(6), updated_at DATETIME(6), is_active BIT, " +
+                "UNIQUE KEY idx_users_pair_currency (user1_id, user2_id, currency))");
+        jdbcTemplate.execute("CREATE TABLE user_net_balances (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+                "currency VARCHAR(3) NOT NULL, owed_amount DECIMAL(14, 2) NOT NULL, owed_to_amount DECIMAL(14, 2) NOT NULL, " +
+                "created_at DATETIME(6), updated_at DATETIME(6), is_active BIT, " +
+                "UNIQUE KEY idx_net_user_currency (user_id, currency))");
+
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        userNetBalanceBatchRepository = new UserNetBalanceBatchRepository(jdbcTemplate);
+        ledgerService = new NetBalanceLedgerService(new UserBalanceBatchRepository(jdbcTemplate), userNetBalanceBatchRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void losesNoIncrementUnder64Threads() throws Exception {
+        Map<BalancePair, BigDecimal> expected = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < POSTS_PER_THREAD; i++) {
+                    // One to three pairs per post, like an expense with several participants; signs flip often
+                    SortedMap<BalancePair, BigDecimal> deltas = new TreeMap<>();
+                    int pairs = 1 + random.nextInt(3);
+                    while (deltas.size() < pairs) {
+                        long a = 1 + random.nextInt(USERS);
+                        long b = 1 + random.nextInt(USERS);
+                        if (a != b) {
+                            deltas.put(BalancePair.of(a, b), BigDecimal.valueOf(random.nextInt(20_001) - 10_000, 2));
+                        }
+                    }
+                    post(deltas);
+                    deltas.forEach((pair, delta) -> expected.merge(pair, delta, BigDecimal::add));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(5, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        Map<BalancePair, BigDecimal> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT user1_id, user2_id, balance_amount FROM user_balances", rs -> {
+            stored.put(new BalancePair(rs.getLong("user1_id"), rs.getLong("user2_id")), rs.getBigDecimal("balance_amount"));
+        });
+        assertEquals(expected.size(), stored.size(), "one row per pair");
+        for (Map.Entry<BalancePair, BigDecimal> entry : expected.entrySet()) {
+            assertEquals(0, entry.getValue().compareTo(stored.get(entry.getKey())),
+                    "balance of " + entry.getKey() + ": expected " + entry.getValue() + ", stored " + stored.get(entry.getKey()));
+        }
+
+        Map<NetKey, NetAmounts> recomputed = new HashMap<>();
+        userNetBalanceBatchRepository.aggregateFromBalances(1, USERS, recomputed);
+        Map<NetKey, NetAmounts> ledger = userNetBalanceBatchRepository.readRange(1, USERS);
+        for (long user = 1; user <= USERS; user++) {
+            NetKey key = new NetKey(user, CURRENCY);
+            NetAmounts want = recomputed.getOrDefault(key, NetAmounts.ZERO);
+            NetAmounts have = ledger.getOrDefault(key, NetAmounts.ZERO);
+            assertTrue(want.sameAs(have), "ledger of user " + user + ": expected " + want + ", stored " + have);
+        }
+    }
+
+    // A transaction chosen as a deadlock victim is rolled back whole, so retrying it cannot double count
+    private void post(SortedMap<BalancePair, BigDecimal> deltas) {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> ledgerService.applyPairDeltas(deltas, CURRENCY));
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                // Rolled back; go again
+            }
+        }
+    }
+}
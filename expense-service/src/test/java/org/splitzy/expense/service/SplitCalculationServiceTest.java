@@ -0,0 +1,60 @@
+package org.splitzy.expense.service;
+
+import org.junit.jupiter.api.Test;
+import org.splitzy.common.exception.ValidationException;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SplitCalculationServiceTest {
+
+    @Test
+    void givesTheLeftoverUnitsToTheLargestRemainders() {
+        // 100 paise over 1:1:1 is 33.33 each; the one unit left goes to the first participant on the tie
+        assertArrayEquals(new long[]{34, 33, 33}, SplitCalculationService.allocateByWeight(100, new long[]{1, 1, 1}, 3));
+        // 1000 over 1:2:4 is 142.86, 285.71, 571.43; the unit goes to the largest fraction, .86
+        assertArrayEquals(new long[]{143, 286, 571}, SplitCalculationService.allocateByWeight(1000, new long[]{1, 2, 4}, 7));
+    }
+
+    @Test
+    void sumsToTheTotalWithEveryShareWithinOneUnitOfExact() {
+        Random random = new Random(20);
+        for (int round = 0; round < 5_000; round++) {
+            int count = 1 + random.nextInt(12);
+            long[] weights = new long[count];
+            long totalWeight = 0;
+            for (int i = 0; i < count; i++) {
+                weights[i] = 1 + random.nextInt(round % 2 == 0 ? 10 : 100_000);
+                totalWeight += weights[i];
+            }
+            long total = random.nextInt(10_000_000);
+
+            long[] amounts = SplitCalculationService.allocateByWeight(total, weights, totalWeight);
+
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += amounts[i];
+                // |amount - total * weight / totalWeight| < 1, kept in integers
+                long error = Math.abs(amounts[i] * totalWeight - total * weights[i]);
+                assertTrue(error < totalWeight, "share " + i + " of " + total + " is " + amounts[i]);
+            }
+            assertEquals(total, sum, "sum of shares");
+        }
+    }
+
+    @Test
+    void takesNamedAmountsAsGivenAndRejectsSubMinorUnits() {
+        assertEquals(1050, SplitCalculationService.toExactMinorUnits(new BigDecimal("10.5"), "exact amounts"));
+        assertEquals(1050, SplitCalculationService.toExactMinorUnits(new BigDecimal("10.5000"), "exact amounts"));
+        assertEquals(-25, SplitCalculationService.toExactMinorUnits(new BigDecimal("-0.25"), "adjustments"));
+        assertThrows(ValidationException.class,
+                () -> SplitCalculationService.toExactMinorUnits(new BigDecimal("10.005"), "exact amounts"));
+        assertThrows(ValidationException.class,
+                () -> SplitCalculationService.toExactMinorUnits(new BigDecimal("0.001"), "exact amounts"));
+    }
+}
@@ -0,0 +1,22 @@
+package org.splitzy;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.kafka.annotation.EnableKafka;
+
+/**
+ * Main application class for Settlement Service
+ * Plans how groups settle up with the fewest transfers and records settlements
+ */
+@SpringBootApplication
+@EnableKafka
+@ComponentScan(basePackages = {
+        "org.splitzy.settlement",
+        "org.splitzy.common"})
+public class SettlementServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(SettlementServiceApplication.class, args);
+    }
+}
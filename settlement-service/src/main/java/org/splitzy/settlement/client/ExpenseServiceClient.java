@@ -0,0 +1,157 @@
+package org.splitzy.settlement.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.dto.ApiResponse;
+import org.splitzy.common.exception.BusinessException;
+import org.splitzy.settlement.dto.request.BatchSettlementRequest;
+import org.splitzy.settlement.dto.response.ExpenseSettleResult;
+import org.splitzy.settlement.dto.response.GroupBalanceResponse;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads balances from expense-service
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpenseServiceClient {
+
+    public static final String SERVICE_AUTH_FAILED = "UPSTREAM_AUTH_FAILED";
+
+    private static final ParameterizedTypeReference<ApiResponse<GroupBalanceResponse>> GROUP_BALANCES_TYPE =
+            new ParameterizedTypeReference<>() { };
+
+    private static final ParameterizedTypeReference<ApiResponse<ExpenseSettleResult>> SETTLE_RESULT_TYPE =
+            new ParameterizedTypeReference<>() { };
+
+    private static final ParameterizedTypeReference<ApiResponse<Boolean>> MEMBERSHIP_TYPE =
+            new ParameterizedTypeReference<>() { };
+
+    private final RestClient expenseServiceRestClient;
+
+    /**
+     * Outstanding debts between the members of a group
+     */
+    public GroupBalanceResponse getGroupBalances(Long groupId) {
+        try {
+            ApiResponse<GroupBalanceResponse> response = expenseServiceRestClient.get()
+                    .uri("/internal/balances/group/{groupId}", groupId)
+                    .retrieve()
+                    .body(GROUP_BALANCES_TYPE);
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                throw new BusinessException("Expense service returned no balances for group " + groupId,
+                        HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR");
+            }
+            return response.getData();
+        } catch (RestClientException e) {
+            log.error("Failed to load balances for group {}: {}", groupId, e.getMessage());
+            throw new BusinessException("Could not load balances for group " + groupId,
+                    HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR", e);
+        }
+    }
+
+    /**
+     * Whether the user takes part in an expense of the group
+     */
+    public boolean isGroupMember(Long groupId, Long userId) {
+        try {
+            ApiResponse<Boolean> response = expenseServiceRestClient.get()
+                    .uri("/internal/balances/group/{groupId}/members/{userId}", groupId, userId)
+                    .retrieve()
+                    .body(MEMBERSHIP_TYPE);
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                throw new BusinessException("Expense service returned no membership for group " + groupId,
+                        HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR");
+            }
+            return response.getData();
+        } catch (RestClientException e) {
+            log.error("Failed to check membership of user {} in group {}: {}", userId, groupId, e.getMessage());
+            throw new BusinessException("Could not check membership of group " + groupId,
+                    HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR", e);
+        }
+    }
+
+    /**
+     * Settle every outstanding split between each pair, in a single expense-service transaction.
+     * Safe to repeat: a reference expense-service has already settled returns the recorded outcome.
+     */
+    public ExpenseSettleResult settlePairs(String reference, List<BatchSettlementRequest.PairSettlement> pairs) {
+        try {
+            ApiResponse<ExpenseSettleResult> response = expenseServiceRestClient.post()
+                    .uri("/internal/balances/settle-batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("reference", reference, "pairs", pairs))
+                    .retrieve()
+                    .body(SETTLE_RESULT_TYPE);
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                throw new BusinessException("Expense service returned no result for settlement " + reference,
+                        HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR");
+            }
+            return response.getData();
+        } catch (RestClientResponseException e) {
+            throw settlementFailure(reference, e);
+        } catch (RestClientException e) {
+            log.error("Failed to settle batch {}: {}", reference, e.getMessage());
+            throw new BusinessException("Could not reach expense service for settlement " + reference,
+                    HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR", e);
+        }
+    }
+
+    /**
+     * Outcome of a settlement expense-service has committed, empty when the reference never settled
+     */
+    public Optional<ExpenseSettleResult> findSettlement(String reference) {
+        try {
+            ApiResponse<ExpenseSettleResult> response = expenseServiceRestClient.get()
+                    .uri("/internal/balances/settle-batch/{reference}", reference)
+                    .retrieve()
+                    .body(SETTLE_RESULT_TYPE);
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                throw new BusinessException("Expense service returned no result for settlement " + reference,
+                        HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR");
+            }
+            return Optional.of(response.getData());
+        } catch (HttpClientErrorException.NotFound e) {
+            return Optional.empty();
+        } catch (RestClientResponseException e) {
+            throw settlementFailure(reference, e);
+        } catch (RestClientException e) {
+            log.error("Failed to look up settlement {}: {}", reference, e.getMessage());
+            throw new BusinessException("Could not reach expense service for settlement " + reference,
+                    HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR", e);
+        }
+    }
+
+    /**
+     * Classify an error answer to a settlement call. A refused service token means expense-service will
+     * refuse every call with it, and any other 4xx means the batch itself was refused; neither settled
+     * anything. 5xx leaves the outcome unknown.
+     */
+    private static BusinessException settlementFailure(String reference, RestClientResponseException e) {
+        int status = e.getStatusCode().value();
+        if (status == HttpStatus.UNAUTHORIZED.value() || status == HttpStatus.FORBIDDEN.value()) {
+            log.error("Expense service refused the service token for settlement {}: {}", reference, e.getStatusText());
+            return new BusinessException("Expense service refused the service token for settlement " + reference,
+                    HttpStatus.BAD_GATEWAY, SERVICE_AUTH_FAILED, e);
+        }
+        if (e.getStatusCode().is4xxClientError()) {
+            return new BusinessException("Expense service rejected settlement " + reference + ": " + e.getStatusText(),
+                    HttpStatus.BAD_REQUEST, "SETTLEMENT_REJECTED", e);
+        }
+        log.error("Expense service failed settlement {}: {}", reference, e.getStatusText());
+        return new BusinessException("Expense service failed settlement " + reference + ": " + e.getStatusText(),
+                HttpStatus.BAD_GATEWAY, "UPSTREAM_ERROR", e);
+    }
+}
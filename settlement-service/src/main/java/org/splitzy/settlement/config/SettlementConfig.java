@@ -0,0 +1,37 @@
+package org.splitzy.settlement.config;
+
+import org.splitzy.settlement.engine.SettlementEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+@Configuration
+public class SettlementConfig {
+
+    @Value("${services.expense.base-url:http://localhost:8082}")
+    private String expenseServiceBaseUrl;
+
+    @Value("${services.expense.service-token:}")
+    private String expenseServiceToken;
+
+    @Value("${settlement.engine.max-exact-members:20}")
+    private int maxExactMembers;
+
+    @Value("${settlement.engine.budget-ms:200}")
+    private long budgetMs;
+
+    @Bean
+    public RestClient expenseServiceRestClient(RestClient.Builder builder) {
+        return builder.baseUrl(expenseServiceBaseUrl)
+                .defaultHeader("X-Service-Token", expenseServiceToken)
+                .build();
+    }
+
+    @Bean
+    public SettlementEngine settlementEngine() {
+        return new SettlementEngine(maxExactMembers, Duration.ofMillis(budgetMs));
+    }
+}
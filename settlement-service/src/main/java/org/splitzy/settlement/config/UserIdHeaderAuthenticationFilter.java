@@ -0,0 +1,47 @@
+package org.splitzy.settlement.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Authenticates the user id the gateway forwards in X-User-Id; a missing or malformed id leaves the request anonymous
+ */
+class UserIdHeaderAuthenticationFilter extends OncePerRequestFilter {
+
+    static final String USER_ID_HEADER = "X-User-Id";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Long userId = parseUserId(request.getHeader(USER_ID_HEADER));
+        if (userId != null) {
+            PreAuthenticatedAuthenticationToken authentication = new PreAuthenticatedAuthenticationToken(userId, null, List.of());
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static Long parseUserId(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            long userId = Long.parseLong(header.trim());
+            return userId > 0 ? userId : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.splitzy.settlement.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.dto.ApiResponse;
+import org.splitzy.settlement.dto.request.BatchSettlementRequest;
+import org.splitzy.settlement.dto.response.BatchSettlementResponse;
+import org.splitzy.settlement.dto.response.SettlementPlanResponse;
+import org.splitzy.settlement.service.SettlementBatchService;
+import org.splitzy.settlement.service.SettlementPlanService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/settlements")
+@RequiredArgsConstructor
+public class SettlementController {
+
+    private final SettlementPlanService settlementPlanService;
+    private final SettlementBatchService settlementBatchService;
+
+    /**
+     * Get the simplified settlement plan for a group
+     */
+    @GetMapping("/groups/{groupId}/plan")
+    @Operation(summary = "Plan group settlement", description = "Get the fewest transfers that settle every member of a group")
+    public ResponseEntity<ApiResponse<SettlementPlanResponse>> planGroupSettlement(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable Long groupId,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        log.info("Plan settlement request for group {} by user {}", groupId, userId);
+
+        SettlementPlanResponse response = settlementPlanService.planGroupSettlement(groupId, userId, exact);
+        ApiResponse<SettlementPlanResponse> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Settle many user pairs in one batch
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Batch settle", description = "Settle every outstanding split between each of the given user pairs")
+    public ResponseEntity<ApiResponse<BatchSettlementResponse>> settleBatch(
+            @RequestHeader("X-User-Id") Long userId,
+            @Valid @RequestBody BatchSettlementRequest request) {
+        log.info("Batch settlement request for {} pairs by user {}", request.getPairs().size(), userId);
+
+        BatchSettlementResponse response = settlementBatchService.settleBatch(request, userId);
+        ApiResponse<BatchSettlementResponse> apiResponse = ApiResponse.success(response, "Settlement completed successfully");
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Get a settlement batch from the local ledger
+     */
+    @GetMapping("/batch/{batchId}")
+    @Operation(summary = "Get settlement batch", description = "Get the status and per-pair outcome of a settlement batch")
+    public ResponseEntity<ApiResponse<BatchSettlementResponse>> getBatch(
+            @RequestHeader("X-User-Id") Long userId,
+            @PathVariable String batchId) {
+        log.info("Get settlement batch {} by user {}", batchId, userId);
+
+        BatchSettlementResponse response = settlementBatchService.getBatch(batchId, userId);
+        ApiResponse<BatchSettlementResponse> apiResponse = ApiResponse.success(response);
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    /**
+     * Health check
+     */
+    @GetMapping("/health")
+    @Operation(summary = "Health check", description = "Check if settlement service is running")
+    public ResponseEntity<ApiResponse<String>> healthCheck() {
+        ApiResponse<String> apiResponse = ApiResponse.success("Settlement service is running");
+        return ResponseEntity.ok(apiResponse);
+    }
+}
@@ -0,0 +1,29 @@
+package org.splitzy.settlement.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Expense event as published by expense-service on expense-events
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseEvent {
+
+    private String eventType; // EXPENSE_CREATED, EXPENSE_UPDATED, EXPENSE_DELETED, SPLIT_SETTLED
+    private Long expenseId;
+    private String title;
+    private BigDecimal totalAmount;
+    private String currency;
+    private Long paidByUserId;
+    private Long groupId;
+    private List<Long> participantUserIds;
+    private LocalDateTime eventTimestamp;
+    private String notes;
+}
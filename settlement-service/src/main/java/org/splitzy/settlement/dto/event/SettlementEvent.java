@@ -0,0 +1,34 @@
+package org.splitzy.settlement.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+//  Event DTO published on settlement-events for notification-service
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementEvent {
+
+    private String eventType; // SETTLEMENT_COMPLETED, SETTLEMENT_FAILED
+    private String batchId;
+    private Long groupId;
+    private Long user1Id;
+    private Long user2Id;
+    private BigDecimal user1Paid;
+    private BigDecimal user2Paid;
+    private String currency;
+    private int settledSplitCount;
+    private String failureReason;
+    private LocalDateTime eventTimestamp;
+
+    public enum EventType {
+        SETTLEMENT_COMPLETED,
+        SETTLEMENT_FAILED
+    }
+}
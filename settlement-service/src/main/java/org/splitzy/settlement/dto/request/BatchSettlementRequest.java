@@ -0,0 +1,39 @@
+package org.splitzy.settlement.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Request DTO for settling many user pairs in one call
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSettlementRequest {
+
+    private Long groupId;   // Optional, used to refresh the group's cached plan and tag events
+
+    @NotNull(message = "Pairs are required")
+    @Size(min = 1, max = 1000, message = "Between 1 and 1000 pairs can be settled at once")
+    @Valid
+    private List<PairSettlement> pairs;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PairSettlement {
+
+        @NotNull(message = "User 1 is required")
+        private Long user1Id;
+
+        @NotNull(message = "User 2 is required")
+        private Long user2Id;
+    }
+}
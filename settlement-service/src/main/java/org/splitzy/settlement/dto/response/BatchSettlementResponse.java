@@ -0,0 +1,41 @@
+package org.splitzy.settlement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Response DTO for a settlement batch and its per-pair records
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSettlementResponse {
+
+    private String batchId;
+    private Long groupId;
+    private String status;
+    private int settledSplitCount;
+    private List<RecordResponse> records;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RecordResponse {
+        private Long id;
+        private Long user1Id;
+        private Long user2Id;
+        private String status;
+        private int settledSplitCount;
+        private BigDecimal user1Paid;
+        private BigDecimal user2Paid;
+        private String currency;
+        private String failureReason;
+        private LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,35 @@
+package org.splitzy.settlement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Batch settlement result as returned by expense-service
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExpenseSettleResult {
+
+    private String reference;
+    private int settledSplitCount;
+    private List<Long> settledExpenseIds;
+    private List<PairResult> pairs;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PairResult {
+        private Long user1Id;
+        private Long user2Id;
+        private int settledSplitCount;
+        private BigDecimal user1Paid;
+        private BigDecimal user2Paid;
+        private String currency;
+    }
+}
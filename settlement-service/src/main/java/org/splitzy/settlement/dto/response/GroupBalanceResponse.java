@@ -0,0 +1,31 @@
+package org.splitzy.settlement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Outstanding debts inside a group as returned by expense-service
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupBalanceResponse {
+
+    private Long groupId;
+    private List<Debt> debts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Debt {
+        private Long debtorId;
+        private Long creditorId;
+        private BigDecimal amount;
+        private String currency;
+    }
+}
@@ -0,0 +1,36 @@
+package org.splitzy.settlement.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Response DTO for a group's simplified settlement plan
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementPlanResponse {
+
+    private Long groupId;
+    private String algorithm;          // GREEDY or EXACT
+    private boolean optimal;           // True when every currency was solved exactly
+    private int memberCount;
+    private int transferCount;
+    private long computeTimeMicros;
+    private List<TransferResponse> transfers;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TransferResponse {
+        private Long fromUserId;
+        private Long toUserId;
+        private BigDecimal amount;
+        private String currency;
+    }
+}
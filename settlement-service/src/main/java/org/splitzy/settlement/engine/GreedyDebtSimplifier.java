@@ -0,0 +1,118 @@
+package org.splitzy.settlement.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Greedy debt simplification: repeatedly match the largest debtor with the largest creditor.
+ * Every step clears at least one member, so n members settle in at most n - 1 transfers in O(n log n).
+ * Both heaps hold member indexes keyed by the remaining amount array, so nothing is boxed.
+ */
+public final class GreedyDebtSimplifier {
+
+    /**
+     * Settle all members of the group
+     */
+    public List<Transfer> simplify(NetPositions positions) {
+        int n = positions.size();
+        int[] members = new int[n];
+        for (int i = 0; i < n; i++) {
+            members[i] = i;
+        }
+        List<Transfer> transfers = new ArrayList<>();
+        settle(positions, members, n, transfers);
+        return transfers;
+    }
+
+    /**
+     * Settle the first count members of the given index list; their balances must sum to zero
+     */
+    void settle(NetPositions positions, int[] members, int count, List<Transfer> out) {
+        long[] remaining = new long[positions.size()];
+        IndexMaxHeap creditors = new IndexMaxHeap(count, remaining);
+        IndexMaxHeap debtors = new IndexMaxHeap(count, remaining);
+
+        for (int k = 0; k < count; k++) {
+            int i = members[k];
+            long balance = positions.balance(i);
+            if (balance > 0) {
+                remaining[i] = balance;
+                creditors.push(i);
+            } else if (balance < 0) {
+                remaining[i] = -balance;
+                debtors.push(i);
+            }
+        }
+
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            int creditor = creditors.pop();
+            int debtor = debtors.pop();
+            long amount = Math.min(remaining[creditor], remaining[debtor]);
+            out.add(new Transfer(positions.userId(debtor), positions.userId(creditor), amount));
+
+            remaining[creditor] -= amount;
+            remaining[debtor] -= amount;
+            if (remaining[creditor] > 0) {
+                creditors.push(creditor);
+            }
+            if (remaining[debtor] > 0) {
+                debtors.push(debtor);
+            }
+        }
+    }
+
+    /**
+     * Binary max-heap of indexes ordered by keys[index]; a key must not change while its index is in the heap
+     */
+    private static final class IndexMaxHeap {
+
+        private final int[] heap;
+        private final long[] keys;
+        private int size;
+
+        IndexMaxHeap(int capacity, long[] keys) {
+            this.heap = new int[Math.max(capacity, 1)];
+            this.keys = keys;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int index) {
+            int pos = size++;
+            long key = keys[index];
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (keys[heap[parent]] >= key) {
+                    break;
+                }
+                heap[pos] = heap[parent];
+                pos = parent;
+            }
+            heap[pos] = index;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            long key = keys[last];
+            int pos = 0;
+            int half = size >>> 1;
+            while (pos < half) {
+                int child = 2 * pos + 1;
+                int right = child + 1;
+                if (right < size && keys[heap[right]] > keys[heap[child]]) {
+                    child = right;
+                }
+                if (key >= keys[heap[child]]) {
+                    break;
+                }
+                heap[pos] = heap[child];
+                pos = child;
+            }
+            heap[pos] = last;
+            return top;
+        }
+    }
+}
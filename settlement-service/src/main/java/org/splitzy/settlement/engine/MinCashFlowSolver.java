@@ -0,0 +1,114 @@
+package org.splitzy.settlement.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact minimum-transfer settlement.
+ * A group of k members whose balances sum to zero settles in k - 1 transfers, so the fewest transfers
+ * come from splitting the members into as many zero-sum groups as possible. Members with exactly opposite
+ * balances are paired off first (such a pair is always part of some optimal split); the rest is solved
+ * with a DP over subsets, which is exponential and therefore capped by member count and a deadline.
+ */
+public final class MinCashFlowSolver {
+
+    // 2^22 states already take 36 MB of DP tables
+    private static final int HARD_MAX_MEMBERS = 22;
+    private static final int DEADLINE_CHECK_MASK = (1 << 12) - 1;
+
+    private final GreedyDebtSimplifier greedy;
+    private final int maxMembers;
+
+    public MinCashFlowSolver(GreedyDebtSimplifier greedy, int maxMembers) {
+        this.greedy = greedy;
+        this.maxMembers = Math.min(maxMembers, HARD_MAX_MEMBERS);
+    }
+
+    /**
+     * Minimum set of transfers, or null when the group is too large or the deadline passes first
+     */
+    public List<Transfer> solve(NetPositions positions, long deadlineNanos) {
+        int n = positions.size();
+        List<Transfer> transfers = new ArrayList<>();
+
+        // Pair off exact opposites
+        Map<Long, ArrayDeque<Integer>> unmatched = new HashMap<>();
+        int[] rest = new int[n];
+        boolean[] paired = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            long balance = positions.balance(i);
+            if (balance == 0) {
+                paired[i] = true;
+                continue;
+            }
+            ArrayDeque<Integer> opposites = unmatched.get(-balance);
+            if (opposites != null && !opposites.isEmpty()) {
+                int j = opposites.poll();
+                paired[i] = true;
+                paired[j] = true;
+                int debtor = balance < 0 ? i : j;
+                int creditor = balance < 0 ? j : i;
+                transfers.add(new Transfer(positions.userId(debtor), positions.userId(creditor), Math.abs(balance)));
+            } else {
+                unmatched.computeIfAbsent(balance, b -> new ArrayDeque<>()).add(i);
+            }
+        }
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (!paired[i]) {
+                rest[m++] = i;
+            }
+        }
+        if (m == 0) {
+            return transfers;
+        }
+        if (m > maxMembers) {
+            return null;
+        }
+
+        // dp[mask] = most zero-sum groups the members in mask can be split into
+        int full = (1 << m) - 1;
+        long[] sum = new long[full + 1];
+        byte[] dp = new byte[full + 1];
+        for (int mask = 1; mask <= full; mask++) {
+            if ((mask & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() > deadlineNanos) {
+                return null;
+            }
+            sum[mask] = sum[mask & (mask - 1)] + positions.balance(rest[Integer.numberOfTrailingZeros(mask)]);
+            int best = 0;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                int without = dp[mask ^ Integer.lowestOneBit(bits)];
+                if (without > best) {
+                    best = without;
+                }
+            }
+            dp[mask] = (byte) (sum[mask] == 0 ? best + 1 : best);
+        }
+
+        // Walk back from the full set; every zero-sum mask on the path closes a group
+        int[] group = new int[m];
+        int groupSize = 0;
+        int mask = full;
+        while (mask != 0) {
+            int target = sum[mask] == 0 ? dp[mask] - 1 : dp[mask];
+            int removed = -1;
+            for (int bits = mask; bits != 0; bits &= bits - 1) {
+                int bit = Integer.lowestOneBit(bits);
+                if (dp[mask ^ bit] == target) {
+                    removed = Integer.numberOfTrailingZeros(bit);
+                    break;
+                }
+            }
+            group[groupSize++] = rest[removed];
+            mask ^= 1 << removed;
+            if (sum[mask] == 0) {
+                greedy.settle(positions, group, groupSize, transfers);
+                groupSize = 0;
+            }
+        }
+        return transfers;
+    }
+}
@@ -0,0 +1,102 @@
+package org.splitzy.settlement.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Net position of every member of a group in minor units (paise).
+ * Members are mapped to dense indexes so the solvers work on primitive arrays: positive means the member
+ * is owed money, negative means the member owes.
+ */
+public final class NetPositions {
+
+    private final long[] userIds;
+    private final long[] balances;
+
+    private NetPositions(long[] userIds, long[] balances) {
+        this.userIds = userIds;
+        this.balances = balances;
+    }
+
+    public static Builder builder(int expectedMembers) {
+        return new Builder(expectedMembers);
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+
+    public long userId(int index) {
+        return userIds[index];
+    }
+
+    public long balance(int index) {
+        return balances[index];
+    }
+
+    /**
+     * Convert a two-decimal amount to minor units
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2);
+    }
+
+    public static final class Builder {
+
+        private final Map<Long, Integer> indexByUser;
+        private long[] userIds;
+        private long[] balances;
+        private int size;
+
+        private Builder(int expectedMembers) {
+            int capacity = Math.max(expectedMembers, 16);
+            this.indexByUser = new HashMap<>(capacity * 2);
+            this.userIds = new long[capacity];
+            this.balances = new long[capacity];
+        }
+
+        /**
+         * Record that debtor owes creditor the given amount
+         */
+        public Builder addDebt(long debtorId, long creditorId, long amountMinor) {
+            if (debtorId == creditorId || amountMinor == 0) {
+                return this;
+            }
+            balances[indexOf(debtorId)] -= amountMinor;
+            balances[indexOf(creditorId)] += amountMinor;
+            return this;
+        }
+
+        public NetPositions build() {
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                total += balances[i];
+            }
+            if (total != 0) {
+                throw new IllegalStateException("Net positions do not sum to zero: " + total);
+            }
+            return new NetPositions(Arrays.copyOf(userIds, size), Arrays.copyOf(balances, size));
+        }
+
+        private int indexOf(long userId) {
+            Integer index = indexByUser.get(userId);
+            if (index != null) {
+                return index;
+            }
+            if (size == userIds.length) {
+                userIds = Arrays.copyOf(userIds, size * 2);
+                balances = Arrays.copyOf(balances, size * 2);
+            }
+            userIds[size] = userId;
+            indexByUser.put(userId, size);
+            return size++;
+        }
+    }
+}
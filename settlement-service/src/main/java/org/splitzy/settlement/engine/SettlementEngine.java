@@ -0,0 +1,36 @@
+package org.splitzy.settlement.engine;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Produces a settlement plan for a set of net positions within a latency budget.
+ * The exact solver is tried only when asked for; if the group is too large for it or the budget runs out,
+ * the greedy plan is returned instead.
+ */
+public class SettlementEngine {
+
+    private final GreedyDebtSimplifier greedy;
+    private final MinCashFlowSolver exactSolver;
+    private final long budgetNanos;
+
+    public SettlementEngine(int maxExactMembers, Duration budget) {
+        this.greedy = new GreedyDebtSimplifier();
+        this.exactSolver = new MinCashFlowSolver(greedy, maxExactMembers);
+        this.budgetNanos = budget.toNanos();
+    }
+
+    public SettlementPlan plan(NetPositions positions, boolean exact) {
+        long started = System.nanoTime();
+
+        if (exact) {
+            List<Transfer> transfers = exactSolver.solve(positions, started + budgetNanos);
+            if (transfers != null) {
+                return new SettlementPlan(transfers, SettlementPlan.Algorithm.EXACT, System.nanoTime() - started);
+            }
+        }
+
+        List<Transfer> transfers = greedy.simplify(positions);
+        return new SettlementPlan(transfers, SettlementPlan.Algorithm.GREEDY, System.nanoTime() - started);
+    }
+}
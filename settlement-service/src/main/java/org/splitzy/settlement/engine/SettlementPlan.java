@@ -0,0 +1,22 @@
+package org.splitzy.settlement.engine;
+
+import java.util.List;
+
+/**
+ * Transfers that settle every net position, and how they were found
+ */
+public record SettlementPlan(List<Transfer> transfers, Algorithm algorithm, long elapsedNanos) {
+
+    public enum Algorithm {
+        GREEDY,     // Largest debtor pays largest creditor, at most n - 1 transfers
+        EXACT       // Minimum number of transfers
+    }
+
+    public long totalMinor() {
+        long total = 0;
+        for (Transfer transfer : transfers) {
+            total += transfer.amountMinor();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,7 @@
+package org.splitzy.settlement.engine;
+
+/**
+ * One payment in a settlement plan, in minor units
+ */
+public record Transfer(long fromUserId, long toUserId, long amountMinor) {
+}
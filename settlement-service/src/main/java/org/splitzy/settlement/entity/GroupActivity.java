@@ -0,0 +1,42 @@
+package org.splitzy.settlement.entity;
+
+import org.splitzy.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest expense activity seen per group on expense-events
+ */
+@Entity
+@Table(name = "group_activity", indexes = {
+        @Index(name = "idx_group_activity_group", columnList = "group_id", unique = true)
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupActivity extends BaseEntity {
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(name = "last_expense_id")
+    private Long lastExpenseId;
+
+    @Column(name = "last_event_type", length = 30)
+    private String lastEventType;
+
+    @Column(name = "last_event_at")
+    private LocalDateTime lastEventAt;
+
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Long eventCount = 0L;
+}
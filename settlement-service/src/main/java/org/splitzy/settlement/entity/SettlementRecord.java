@@ -0,0 +1,71 @@
+package org.splitzy.settlement.entity;
+
+import org.splitzy.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Local ledger entry for one pair in a settlement batch.
+ * Written as PENDING before expense-service is called, so every attempt leaves a trace.
+ */
+@Entity
+@Table(name = "settlement_records", indexes = {
+        @Index(name = "idx_settlement_batch", columnList = "batch_id"),
+        @Index(name = "idx_settlement_pair", columnList = "user1_id, user2_id"),
+        @Index(name = "idx_settlement_group", columnList = "group_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementRecord extends BaseEntity {
+
+    @Column(name = "batch_id", nullable = false, length = 36)
+    private String batchId;
+
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "user1_id", nullable = false)
+    private Long user1Id;
+
+    @Column(name = "user2_id", nullable = false)
+    private Long user2Id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    @Builder.Default
+    private SettlementStatus status = SettlementStatus.PENDING;
+
+    @Column(name = "settled_split_count", nullable = false)
+    @Builder.Default
+    private Integer settledSplitCount = 0;
+
+    @Column(name = "user1_paid", precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal user1Paid = BigDecimal.ZERO;
+
+    @Column(name = "user2_paid", precision = 14, scale = 2)
+    @Builder.Default
+    private BigDecimal user2Paid = BigDecimal.ZERO;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    @Builder.Default
+    private String currency = "INR";
+
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    public enum SettlementStatus {
+        PENDING,     // Recorded, expense-service not yet confirmed
+        COMPLETED,   // Splits settled in expense-service
+        FAILED       // expense-service rejected or could not be reached
+    }
+}
@@ -0,0 +1,30 @@
+package org.splitzy.settlement.repository;
+
+import org.splitzy.settlement.entity.GroupActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+// Repository for GroupActivity entity operations
+@Repository
+public interface GroupActivityRepository extends JpaRepository<GroupActivity, Long> {
+
+    Optional<GroupActivity> findByGroupId(Long groupId);
+
+    // Record an expense event for a group, creating its row on first use
+    @Modifying
+    @Query(value = "INSERT INTO group_activity (group_id, last_expense_id, last_event_type, last_event_at, event_count, created_at, updated_at, is_active) " +
+            "VALUES (:groupId, :expenseId, :eventType, :eventAt, 1, NOW(), NOW(), true) " +
+            "ON DUPLICATE KEY UPDATE last_expense_id = VALUES(last_expense_id), last_event_type = VALUES(last_event_type), " +
+            "last_event_at = VALUES(last_event_at), event_count = event_count + 1, updated_at = NOW()",
+            nativeQuery = true)
+    void recordEvent(@Param("groupId") Long groupId,
+                     @Param("expenseId") Long expenseId,
+                     @Param("eventType") String eventType,
+                     @Param("eventAt") LocalDateTime eventAt);
+}
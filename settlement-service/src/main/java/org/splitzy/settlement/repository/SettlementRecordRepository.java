@@ -0,0 +1,15 @@
+package org.splitzy.settlement.repository;
+
+import org.splitzy.settlement.entity.SettlementRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Repository for SettlementRecord entity operations
+@Repository
+public interface SettlementRecordRepository extends JpaRepository<SettlementRecord, Long> {
+
+    // All pair records of a batch in request order
+    List<SettlementRecord> findByBatchIdOrderById(String batchId);
+}
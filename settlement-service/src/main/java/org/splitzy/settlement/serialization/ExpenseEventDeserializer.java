@@ -0,0 +1,63 @@
+package org.splitzy.settlement.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.splitzy.common.util.ExpenseEventCodec;
+import org.splitzy.settlement.dto.event.ExpenseEvent;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Reads expense-events in either wire format: binary records are recognised by ExpenseEventCodec's
+ * magic byte, everything else goes to the JSON deserializer. Lets expense-service change its value format
+ * without a coordinated consumer deploy.
+ */
+public class ExpenseEventDeserializer implements Deserializer<ExpenseEvent> {
+
+    private final JsonDeserializer<ExpenseEvent> jsonDeserializer;
+
+    public ExpenseEventDeserializer() {
+        // expense-service publishes without type headers; bind straight to the local event class
+        this.jsonDeserializer = new JsonDeserializer<>(ExpenseEvent.class, false);
+        this.jsonDeserializer.ignoreTypeHeaders();
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public ExpenseEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!ExpenseEventCodec.isBinary(data)) {
+            return jsonDeserializer.deserialize(topic, data);
+        }
+        ExpenseEventCodec.Fields fields;
+        try {
+            fields = ExpenseEventCodec.decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot decode binary expense event on " + topic, e);
+        }
+        return ExpenseEvent.builder()
+                .eventType(fields.eventType())
+                .expenseId(fields.expenseId())
+                .title(fields.title())
+                .totalAmount(fields.totalAmount())
+                .currency(fields.currency())
+                .paidByUserId(fields.paidByUserId())
+                .groupId(fields.groupId())
+                .participantUserIds(fields.participantUserIds())
+                .eventTimestamp(fields.eventTimestamp())
+                .notes(fields.notes())
+                .build();
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
@@ -0,0 +1,36 @@
+package org.splitzy.settlement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.settlement.dto.event.ExpenseEvent;
+import org.splitzy.settlement.repository.GroupActivityRepository;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tracks group activity from expense-events and drops cached plans of groups whose expenses changed
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpenseEventConsumer {
+
+    private final GroupActivityRepository groupActivityRepository;
+    private final SettlementPlanService settlementPlanService;
+
+    @Transactional
+    @KafkaListener(topics = "${settlement.kafka.expense-topic:expense-events}",
+            containerFactory = "expenseEventListenerFactory")
+    public void onExpenseEvent(ExpenseEvent event) {
+        if (event == null || event.getGroupId() == null) {
+            return; // personal expenses do not affect group plans
+        }
+        LocalDateTime eventAt = event.getEventTimestamp() != null ? event.getEventTimestamp() : LocalDateTime.now();
+        groupActivityRepository.recordEvent(event.getGroupId(), event.getExpenseId(), event.getEventType(), eventAt);
+        settlementPlanService.evictGroup(event.getGroupId());
+        log.debug("Recorded {} for expense {} in group {}", event.getEventType(), event.getExpenseId(), event.getGroupId());
+    }
+}
@@ -0,0 +1,182 @@
+package org.splitzy.settlement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.exception.BusinessException;
+import org.splitzy.settlement.client.ExpenseServiceClient;
+import org.splitzy.settlement.dto.request.BatchSettlementRequest;
+import org.splitzy.settlement.dto.response.BatchSettlementResponse;
+import org.splitzy.settlement.dto.response.ExpenseSettleResult;
+import org.splitzy.settlement.entity.SettlementRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Settles many pairs at once: the batch is recorded locally, applied by expense-service in one
+ * transaction, and the outcome is written back to the ledger and published on settlement-events.
+ * The batch id is sent as expense-service's idempotency reference, so a call whose response was lost
+ * is retried, and a batch is only marked FAILED once expense-service has rejected it or our service
+ * token, or confirms it never settled.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SettlementBatchService {
+
+    private final SettlementLedgerService settlementLedgerService;
+    private final ExpenseServiceClient expenseServiceClient;
+    private final SettlementEventPublisher settlementEventPublisher;
+    private final SettlementPlanService settlementPlanService;
+
+    @Value("${settlement.batch.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${settlement.batch.pending-timeout-seconds:300}")
+    private long pendingTimeoutSeconds;
+
+    /**
+     * Settle the pairs on behalf of a user, who must be one side of every pair and a member of the group
+     */
+    public BatchSettlementResponse settleBatch(BatchSettlementRequest request, Long userId) {
+        for (BatchSettlementRequest.PairSettlement pair : request.getPairs()) {
+            if (!userId.equals(pair.getUser1Id()) && !userId.equals(pair.getUser2Id())) {
+                throw new BusinessException("User " + userId + " is not part of pair " + pair.getUser1Id() + "/" + pair.getUser2Id(),
+                        HttpStatus.FORBIDDEN, "NOT_PAIR_MEMBER");
+            }
+        }
+        if (request.getGroupId() != null) {
+            settlementPlanService.requireGroupMember(request.getGroupId(), userId);
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        log.info("Settling batch {} with {} pairs", batchId, request.getPairs().size());
+
+        settlementLedgerService.recordPending(batchId, request.getGroupId(), request.getPairs());
+
+        ExpenseSettleResult result;
+        try {
+            result = settleRemotely(batchId, request.getPairs());
+        } catch (BusinessException e) {
+            if (!isRejection(e)) {
+                // The settlement may have committed before the response was lost; getBatch resolves it later
+                log.error("Settlement batch {} outcome unknown, left PENDING: {}", batchId, e.getMessage());
+                throw e;
+            }
+            log.error("Settlement batch {} failed: {}", batchId, e.getMessage());
+            settlementEventPublisher.publish(settlementLedgerService.markFailed(batchId, e.getMessage()));
+            throw e;
+        }
+
+        List<SettlementRecord> records = complete(batchId, request.getGroupId(), result);
+        return toResponse(batchId, records);
+    }
+
+    /**
+     * Load a batch for a user on one of its pairs, first resolving a PENDING one against expense-service
+     */
+    public BatchSettlementResponse getBatch(String batchId, Long userId) {
+        List<SettlementRecord> records = settlementLedgerService.getBatch(batchId);
+        if (records.stream().noneMatch(r -> userId.equals(r.getUser1Id()) || userId.equals(r.getUser2Id()))) {
+            throw new BusinessException("User " + userId + " is not part of settlement batch " + batchId,
+                    HttpStatus.FORBIDDEN, "NOT_BATCH_MEMBER");
+        }
+        SettlementRecord first = records.get(0);
+        if (first.getStatus() == SettlementRecord.SettlementStatus.PENDING) {
+            records = resolvePending(batchId, first, records);
+        }
+        return toResponse(batchId, records);
+    }
+
+    /**
+     * Call expense-service, repeating the call when the outcome is unknown. Repeats are answered
+     * from expense-service's record of the reference, so nothing is settled twice.
+     */
+    private ExpenseSettleResult settleRemotely(String batchId, List<BatchSettlementRequest.PairSettlement> pairs) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return expenseServiceClient.settlePairs(batchId, pairs);
+            } catch (BusinessException e) {
+                if (isRejection(e) || attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("Settlement batch {} attempt {} failed, retrying: {}", batchId, attempt, e.getMessage());
+            }
+        }
+    }
+
+    private List<SettlementRecord> resolvePending(String batchId, SettlementRecord first, List<SettlementRecord> records) {
+        Optional<ExpenseSettleResult> result;
+        try {
+            result = expenseServiceClient.findSettlement(batchId);
+        } catch (BusinessException e) {
+            if (isRejection(e)) {
+                // Asking again would be refused the same way, so stop leaving the batch PENDING
+                log.error("Pending settlement batch {} cannot be resolved, marking it FAILED: {}", batchId, e.getMessage());
+                List<SettlementRecord> failed = settlementLedgerService.markFailed(batchId, e.getMessage());
+                settlementEventPublisher.publish(failed);
+                return failed;
+            }
+            log.warn("Could not resolve pending settlement batch {}: {}", batchId, e.getMessage());
+            return records;
+        }
+        if (result.isPresent()) {
+            log.info("Settlement batch {} was applied by expense-service, marking it COMPLETED", batchId);
+            return complete(batchId, first.getGroupId(), result.get());
+        }
+        // Not settled, and old enough that no request can still be in flight
+        if (first.getCreatedAt().isBefore(LocalDateTime.now().minusSeconds(pendingTimeoutSeconds))) {
+            log.info("Settlement batch {} never reached expense-service, marking it FAILED", batchId);
+            List<SettlementRecord> failed = settlementLedgerService.markFailed(batchId, "Not applied by expense service");
+            settlementEventPublisher.publish(failed);
+            return failed;
+        }
+        return records;
+    }
+
+    private List<SettlementRecord> complete(String batchId, Long groupId, ExpenseSettleResult result) {
+        List<SettlementRecord> records = settlementLedgerService.markCompleted(batchId, result);
+        settlementEventPublisher.publish(records);
+        if (groupId != null) {
+            settlementPlanService.evictGroup(groupId);
+        }
+        return records;
+    }
+
+    // expense-service answered 4xx, either refusing the batch or our service token: retrying cannot succeed
+    private static boolean isRejection(BusinessException e) {
+        return e.getStatus() == HttpStatus.BAD_REQUEST || ExpenseServiceClient.SERVICE_AUTH_FAILED.equals(e.getErrorCode());
+    }
+
+    private BatchSettlementResponse toResponse(String batchId, List<SettlementRecord> records) {
+        List<BatchSettlementResponse.RecordResponse> recordResponses = records.stream()
+                .map(r -> BatchSettlementResponse.RecordResponse.builder()
+                        .id(r.getId())
+                        .user1Id(r.getUser1Id())
+                        .user2Id(r.getUser2Id())
+                        .status(r.getStatus().name())
+                        .settledSplitCount(r.getSettledSplitCount())
+                        .user1Paid(r.getUser1Paid())
+                        .user2Paid(r.getUser2Paid())
+                        .currency(r.getCurrency())
+                        .failureReason(r.getFailureReason())
+                        .createdAt(r.getCreatedAt())
+                        .build())
+                .toList();
+
+        // Every record of a batch shares its outcome
+        String status = records.isEmpty() ? SettlementRecord.SettlementStatus.PENDING.name() : records.get(0).getStatus().name();
+        return BatchSettlementResponse.builder()
+                .batchId(batchId)
+                .groupId(records.isEmpty() ? null : records.get(0).getGroupId())
+                .status(status)
+                .settledSplitCount(records.stream().mapToInt(SettlementRecord::getSettledSplitCount).sum())
+                .records(recordResponses)
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package org.splitzy.settlement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.settlement.dto.event.SettlementEvent;
+import org.splitzy.settlement.entity.SettlementRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SettlementEventPublisher {
+
+    private final KafkaTemplate<String, SettlementEvent> settlementEventKafkaTemplate;
+
+    @Value("${settlement.kafka.settlement-topic:settlement-events}")
+    private String settlementTopic;
+
+    /**
+     * Publish one event per pair record; keyed by batch so a batch's events stay in order
+     */
+    public void publish(List<SettlementRecord> records) {
+        for (SettlementRecord record : records) {
+            SettlementEvent event = SettlementEvent.builder()
+                    .eventType(record.getStatus() == SettlementRecord.SettlementStatus.COMPLETED
+                            ? SettlementEvent.EventType.SETTLEMENT_COMPLETED.name()
+                            : SettlementEvent.EventType.SETTLEMENT_FAILED.name())
+                    .batchId(record.getBatchId())
+                    .groupId(record.getGroupId())
+                    .user1Id(record.getUser1Id())
+                    .user2Id(record.getUser2Id())
+                    .user1Paid(record.getUser1Paid())
+                    .user2Paid(record.getUser2Paid())
+                    .currency(record.getCurrency())
+                    .settledSplitCount(record.getSettledSplitCount())
+                    .failureReason(record.getFailureReason())
+                    .eventTimestamp(LocalDateTime.now())
+                    .build();
+            settlementEventKafkaTemplate.send(settlementTopic, record.getBatchId(), event)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.error("Failed to publish settlement event for batch {}: {}", record.getBatchId(), ex.getMessage());
+                        }
+                    });
+        }
+        log.debug("Published {} settlement events", records.size());
+    }
+}
@@ -0,0 +1,92 @@
+package org.splitzy.settlement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.exception.ResourceNotFoundException;
+import org.splitzy.settlement.dto.request.BatchSettlementRequest;
+import org.splitzy.settlement.dto.response.ExpenseSettleResult;
+import org.splitzy.settlement.entity.SettlementRecord;
+import org.splitzy.settlement.repository.SettlementRecordRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local settlement ledger. Each step of a batch commits on its own so the ledger reflects
+ * what was attempted even when the remote call fails midway.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class SettlementLedgerService {
+
+    private static final int MAX_REASON_LENGTH = 500;
+
+    private final SettlementRecordRepository settlementRecordRepository;
+
+    /**
+     * Record one PENDING entry per pair
+     */
+    public List<SettlementRecord> recordPending(String batchId, Long groupId, List<BatchSettlementRequest.PairSettlement> pairs) {
+        List<SettlementRecord> records = new ArrayList<>(pairs.size());
+        for (BatchSettlementRequest.PairSettlement pair : pairs) {
+            records.add(SettlementRecord.builder()
+                    .batchId(batchId)
+                    .groupId(groupId)
+                    .user1Id(pair.getUser1Id())
+                    .user2Id(pair.getUser2Id())
+                    .build());
+        }
+        return settlementRecordRepository.saveAll(records);
+    }
+
+    /**
+     * Copy expense-service's per-pair outcome onto the batch and mark it COMPLETED
+     */
+    public List<SettlementRecord> markCompleted(String batchId, ExpenseSettleResult result) {
+        Map<List<Long>, ExpenseSettleResult.PairResult> byPair = new HashMap<>();
+        for (ExpenseSettleResult.PairResult pair : result.getPairs()) {
+            byPair.put(List.of(pair.getUser1Id(), pair.getUser2Id()), pair);
+        }
+
+        List<SettlementRecord> records = settlementRecordRepository.findByBatchIdOrderById(batchId);
+        for (SettlementRecord record : records) {
+            ExpenseSettleResult.PairResult pair = byPair.get(List.of(record.getUser1Id(), record.getUser2Id()));
+            record.setStatus(SettlementRecord.SettlementStatus.COMPLETED);
+            if (pair != null) {
+                record.setSettledSplitCount(pair.getSettledSplitCount());
+                record.setUser1Paid(pair.getUser1Paid());
+                record.setUser2Paid(pair.getUser2Paid());
+                record.setCurrency(pair.getCurrency());
+            }
+        }
+        return settlementRecordRepository.saveAll(records);
+    }
+
+    /**
+     * Mark every entry of the batch FAILED with the reason
+     */
+    public List<SettlementRecord> markFailed(String batchId, String reason) {
+        String truncated = reason != null && reason.length() > MAX_REASON_LENGTH ? reason.substring(0, MAX_REASON_LENGTH) : reason;
+        List<SettlementRecord> records = settlementRecordRepository.findByBatchIdOrderById(batchId);
+        for (SettlementRecord record : records) {
+            record.setStatus(SettlementRecord.SettlementStatus.FAILED);
+            record.setFailureReason(truncated);
+        }
+        return settlementRecordRepository.saveAll(records);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SettlementRecord> getBatch(String batchId) {
+        List<SettlementRecord> records = settlementRecordRepository.findByBatchIdOrderById(batchId);
+        if (records.isEmpty()) {
+            throw new ResourceNotFoundException("Settlement batch", "batchId", batchId);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,121 @@
+package org.splitzy.settlement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.splitzy.common.exception.BusinessException;
+import org.splitzy.settlement.client.ExpenseServiceClient;
+import org.splitzy.settlement.dto.response.GroupBalanceResponse;
+import org.splitzy.settlement.dto.response.SettlementPlanResponse;
+import org.splitzy.settlement.engine.NetPositions;
+import org.splitzy.settlement.engine.SettlementEngine;
+import org.splitzy.settlement.engine.SettlementPlan;
+import org.splitzy.settlement.engine.Transfer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SettlementPlanService {
+
+    private final ExpenseServiceClient expenseServiceClient;
+    private final SettlementEngine settlementEngine;
+
+    // Last plan per (group, exact); dropped on expense-events for the group and after settlements
+    private final Map<PlanKey, CachedPlan> planCache = new ConcurrentHashMap<>();
+
+    @Value("${settlement.plan.cache-ttl-seconds:60}")
+    private long planCacheTtlSeconds;
+
+    /**
+     * Compute the transfers that settle a group, one plan per currency, for a member of the group
+     */
+    public SettlementPlanResponse planGroupSettlement(Long groupId, Long userId, boolean exact) {
+        requireGroupMember(groupId, userId);
+
+        PlanKey key = new PlanKey(groupId, exact);
+        CachedPlan cached = planCache.get(key);
+        if (cached != null && cached.expiresAtNanos() - System.nanoTime() > 0) {
+            return cached.plan();
+        }
+
+        SettlementPlanResponse plan = computePlan(groupId, exact);
+        planCache.put(key, new CachedPlan(plan, System.nanoTime() + planCacheTtlSeconds * 1_000_000_000L));
+        return plan;
+    }
+
+    /**
+     * Reject a user who takes part in none of the group's expenses; checked on every call, cached plan or not
+     */
+    public void requireGroupMember(Long groupId, Long userId) {
+        if (!expenseServiceClient.isGroupMember(groupId, userId)) {
+            throw new BusinessException("User " + userId + " is not a member of group " + groupId,
+                    HttpStatus.FORBIDDEN, "NOT_GROUP_MEMBER");
+        }
+    }
+
+    /**
+     * Forget cached plans for a group after its balances changed
+     */
+    public void evictGroup(Long groupId) {
+        planCache.remove(new PlanKey(groupId, false));
+        planCache.remove(new PlanKey(groupId, true));
+    }
+
+    private SettlementPlanResponse computePlan(Long groupId, boolean exact) {
+        log.debug("Planning settlement for group: {} (exact: {})", groupId, exact);
+
+        GroupBalanceResponse balances = expenseServiceClient.getGroupBalances(groupId);
+
+        Map<String, NetPositions.Builder> byCurrency = new TreeMap<>();
+        for (GroupBalanceResponse.Debt debt : balances.getDebts()) {
+            byCurrency.computeIfAbsent(debt.getCurrency(), c -> NetPositions.builder(balances.getDebts().size()))
+                    .addDebt(debt.getDebtorId(), debt.getCreditorId(), NetPositions.toMinorUnits(debt.getAmount()));
+        }
+
+        List<SettlementPlanResponse.TransferResponse> transfers = new ArrayList<>();
+        boolean optimal = exact;
+        int members = 0;
+        long elapsedNanos = 0;
+        for (Map.Entry<String, NetPositions.Builder> entry : byCurrency.entrySet()) {
+            NetPositions positions = entry.getValue().build();
+            SettlementPlan plan = settlementEngine.plan(positions, exact);
+
+            members = Math.max(members, positions.size());
+            elapsedNanos += plan.elapsedNanos();
+            optimal &= plan.algorithm() == SettlementPlan.Algorithm.EXACT;
+            for (Transfer transfer : plan.transfers()) {
+                transfers.add(SettlementPlanResponse.TransferResponse.builder()
+                        .fromUserId(transfer.fromUserId())
+                        .toUserId(transfer.toUserId())
+                        .amount(NetPositions.fromMinorUnits(transfer.amountMinor()))
+                        .currency(entry.getKey())
+                        .build());
+            }
+        }
+
+        log.info("Planned {} transfers for group {} in {} us", transfers.size(), groupId, elapsedNanos / 1000);
+        return SettlementPlanResponse.builder()
+                .groupId(groupId)
+                .algorithm(optimal ? SettlementPlan.Algorithm.EXACT.name() : SettlementPlan.Algorithm.GREEDY.name())
+                .optimal(optimal)
+                .memberCount(members)
+                .transferCount(transfers.size())
+                .computeTimeMicros(elapsedNanos / 1000)
+                .transfers(transfers)
+                .build();
+    }
+
+    private record PlanKey(Long groupId, boolean exact) {
+    }
+
+    private record CachedPlan(SettlementPlanResponse plan, long expiresAtNanos) {
+    }
+}
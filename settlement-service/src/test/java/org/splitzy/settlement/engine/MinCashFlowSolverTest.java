@@ -0,0 +1,124 @@
+package org.splitzy.settlement.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinCashFlowSolverTest {
+
+    private final GreedyDebtSimplifier greedy = new GreedyDebtSimplifier();
+    private final MinCashFlowSolver solver = new MinCashFlowSolver(greedy, 20);
+
+    @Test
+    void beatsGreedyWhenTheGroupSplitsIntoZeroSumParts() {
+        // Balances +1 -5 +4 | -3 -3 +6: two zero-sum parts, so 6 - 2 = 4 transfers
+        NetPositions positions = NetPositions.builder(6)
+                .addDebt(2, 1, 100)
+                .addDebt(2, 3, 400)
+                .addDebt(4, 6, 300)
+                .addDebt(5, 6, 300)
+                .build();
+
+        List<Transfer> exact = solver.solve(positions, Long.MAX_VALUE);
+        List<Transfer> greedyTransfers = greedy.simplify(positions);
+
+        assertEquals(4, exact.size());
+        assertTrue(greedyTransfers.size() > exact.size(), "greedy needed " + greedyTransfers.size());
+        assertSettles(positions, exact);
+    }
+
+    @Test
+    void pairsExactOppositesDirectly() {
+        NetPositions positions = NetPositions.builder(4)
+                .addDebt(1, 2, 250)
+                .addDebt(3, 4, 700)
+                .build();
+
+        List<Transfer> transfers = solver.solve(positions, Long.MAX_VALUE);
+
+        assertEquals(List.of(new Transfer(1, 2, 250), new Transfer(3, 4, 700)), transfers);
+    }
+
+    @Test
+    void matchesBruteForceOptimumOnRandomSmallGroups() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            int members = 2 + random.nextInt(7);
+            NetPositions.Builder builder = NetPositions.builder(members);
+            int debts = 1 + random.nextInt(10);
+            for (int d = 0; d < debts; d++) {
+                long debtor = 1 + random.nextInt(members);
+                long creditor = 1 + random.nextInt(members);
+                builder.addDebt(debtor, creditor, 1 + random.nextInt(5) * 100L);
+            }
+            NetPositions positions = builder.build();
+
+            List<Transfer> exact = solver.solve(positions, Long.MAX_VALUE);
+
+            assertEquals(optimalTransferCount(positions), exact.size(), "round " + round);
+            assertTrue(exact.size() <= greedy.simplify(positions).size(), "round " + round);
+            assertSettles(positions, exact);
+        }
+    }
+
+    @Test
+    void givesUpAboveTheMemberLimit() {
+        MinCashFlowSolver small = new MinCashFlowSolver(greedy, 3);
+        NetPositions positions = NetPositions.builder(4)
+                .addDebt(1, 4, 100)
+                .addDebt(2, 4, 200)
+                .addDebt(3, 4, 400)
+                .build();
+
+        assertNull(small.solve(positions, Long.MAX_VALUE));
+    }
+
+    private static void assertSettles(NetPositions positions, List<Transfer> transfers) {
+        Map<Long, Long> remaining = new HashMap<>();
+        for (int i = 0; i < positions.size(); i++) {
+            remaining.put(positions.userId(i), positions.balance(i));
+        }
+        for (Transfer transfer : transfers) {
+            assertTrue(transfer.amountMinor() > 0, "non-positive transfer " + transfer);
+            remaining.merge(transfer.fromUserId(), transfer.amountMinor(), Long::sum);
+            remaining.merge(transfer.toUserId(), -transfer.amountMinor(), Long::sum);
+        }
+        remaining.forEach((userId, balance) -> assertEquals(0L, balance.longValue(), "user " + userId));
+    }
+
+    // Members with a non-zero balance minus the most zero-sum groups they split into, by exhaustive search
+    private static int optimalTransferCount(NetPositions positions) {
+        long[] balances = new long[positions.size()];
+        int n = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            if (positions.balance(i) != 0) {
+                balances[n++] = positions.balance(i);
+            }
+        }
+        int[] best = new int[1 << n];
+        long[] sums = new long[1 << n];
+        for (int mask = 1; mask < (1 << n); mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            sums[mask] = sums[mask & (mask - 1)] + balances[low];
+            if (sums[mask] != 0) {
+                continue;
+            }
+            // Zero-sum mask: best split is one group plus the best split of a zero-sum proper subset
+            int groups = 1;
+            for (int sub = (mask - 1) & mask; sub > 0; sub = (sub - 1) & mask) {
+                if (sums[sub] == 0 && best[sub] + 1 > groups) {
+                    groups = best[sub] + 1;
+                }
+            }
+            best[mask] = groups;
+        }
+        return n == 0 ? 0 : n - best[(1 << n) - 1];
+    }
+}
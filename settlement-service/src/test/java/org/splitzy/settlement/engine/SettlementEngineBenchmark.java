@@ -0,0 +1,107 @@
+package org.splitzy.settlement.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to net a group's pairwise balances and to plan its settlement, up to 10k members with three balance
+ * rows per member. The engine is configured as in application.yml (20 exact members, 200 ms budget), so
+ * every plan must come in under 200 ms. exactPlan on a large group measures the fallback: opposites are
+ * paired off, the rest is too big for the DP, and the greedy plan is returned. exactSmallGroup measures the
+ * DP itself at its configured cap.
+ *
+ * Run with: mvn -pl settlement-service -am test-compile, then this class's main on the settlement-service
+ * test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SettlementEngineBenchmark {
+
+    private static final int ROWS_PER_MEMBER = 3;
+    private static final int MAX_EXACT_MEMBERS = 20;
+
+    @Param({"100", "1000", "10000"})
+    public int members;
+
+    private long[] debtors;
+    private long[] creditors;
+    private long[] amounts;
+    private NetPositions positions;
+    private NetPositions smallGroup;
+    private SettlementEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        int rows = members * ROWS_PER_MEMBER;
+        debtors = new long[rows];
+        creditors = new long[rows];
+        amounts = new long[rows];
+        for (int r = 0; r < rows; r++) {
+            debtors[r] = 1 + random.nextInt(members);
+            creditors[r] = 1 + random.nextInt(members);
+            amounts[r] = 1 + random.nextInt(5_000_000);
+        }
+        positions = netPositions();
+
+        // Distinct amounts, so nothing pairs off and the DP sees every member
+        NetPositions.Builder builder = NetPositions.builder(MAX_EXACT_MEMBERS);
+        for (int i = 1; i < MAX_EXACT_MEMBERS; i++) {
+            builder.addDebt(i, i + 1, 1_000 + random.nextInt(1_000_000));
+        }
+        smallGroup = builder.build();
+
+        engine = new SettlementEngine(MAX_EXACT_MEMBERS, Duration.ofMillis(200));
+    }
+
+    @Benchmark
+    public NetPositions netPositions() {
+        NetPositions.Builder builder = NetPositions.builder(members);
+        for (int r = 0; r < debtors.length; r++) {
+            builder.addDebt(debtors[r], creditors[r], amounts[r]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public SettlementPlan greedyPlan() {
+        return engine.plan(positions, false);
+    }
+
+    @Benchmark
+    public SettlementPlan exactPlan() {
+        return engine.plan(positions, true);
+    }
+
+    @Benchmark
+    public SettlementPlan exactSmallGroup() {
+        return engine.plan(smallGroup, true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SettlementEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
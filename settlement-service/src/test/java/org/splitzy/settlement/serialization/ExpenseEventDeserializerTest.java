@@ -0,0 +1,60 @@
+package org.splitzy.settlement.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+import org.splitzy.common.util.ExpenseEventCodec;
+import org.splitzy.settlement.dto.event.ExpenseEvent;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpenseEventDeserializerTest {
+
+    private final ExpenseEventDeserializer deserializer = new ExpenseEventDeserializer();
+
+    @Test
+    void readsWhatTheBinarySerializerWrites() {
+        // Same codec call expense-service's ExpenseEventBinarySerializer makes
+        byte[] data = ExpenseEventCodec.encode(new ExpenseEventCodec.Fields(
+                "EXPENSE_CREATED", 101L, "Groceries", new BigDecimal("899.90"), "INR", 7L, 3L,
+                List.of(7L, 8L, 12L), LocalDateTime.of(2026, 5, 1, 18, 30, 0, 250_000_000), null));
+
+        ExpenseEvent event = deserializer.deserialize("expense-events", data);
+
+        assertEquals(ExpenseEvent.builder()
+                .eventType("EXPENSE_CREATED")
+                .expenseId(101L)
+                .title("Groceries")
+                .totalAmount(new BigDecimal("899.90"))
+                .currency("INR")
+                .paidByUserId(7L)
+                .groupId(3L)
+                .participantUserIds(List.of(7L, 8L, 12L))
+                .eventTimestamp(LocalDateTime.of(2026, 5, 1, 18, 30, 0, 250_000_000))
+                .build(), event);
+    }
+
+    @Test
+    void stillReadsJson() {
+        byte[] data = "{\"eventType\":\"SPLIT_SETTLED\",\"expenseId\":55,\"participantUserIds\":[1,2]}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        ExpenseEvent event = deserializer.deserialize("expense-events", data);
+
+        assertEquals("SPLIT_SETTLED", event.getEventType());
+        assertEquals(55L, event.getExpenseId().longValue());
+        assertEquals(List.of(1L, 2L), event.getParticipantUserIds());
+    }
+
+    @Test
+    void reportsCorruptBinaryRecords() {
+        byte[] data = {(byte) ExpenseEventCodec.MAGIC, (byte) ExpenseEventCodec.VERSION, 0x02};
+
+        assertThrows(SerializationException.class, () -> deserializer.deserialize("expense-events", data));
+    }
+}